@@ -1,20 +1,21 @@
 package com.example.finance_tracker.Controller;
+import com.example.finance_tracker.Service.AuthService;
 import com.example.finance_tracker.Service.UserService;
+import com.example.finance_tracker.Utility.JwtKeyRing;
 import com.example.finance_tracker.Utility.JwtUtil;
 import com.example.finance_tracker.Entity.User;
-import com.example.finance_tracker.Repository.UserRepository;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.constraints.Null;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
-import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -24,16 +25,13 @@ public class AuthController {
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
 
     @Autowired
-    private AuthenticationManager authenticationManager;
-
-    @Autowired
-    private PasswordEncoder passwordEncoder;
+    private AuthService authService;
 
     @Autowired
     private JwtUtil jwtUtil;
 
     @Autowired
-    private UserRepository userRepository;
+    private JwtKeyRing jwtKeyRing;
 
     @Autowired
     private UserService userService;
@@ -44,42 +42,38 @@ public class AuthController {
 //    }
 
 
+    // One user lookup and one bcrypt check; the check runs on AuthService's bcrypt pool,
+    // and the request thread is released while it waits
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody AuthRequest authRequest) {
-        try {
-            //check username
-            if(userRepository.findByUsername(authRequest.getUsername()).isEmpty()){
-                logger.warn("Login failed: Incorrect username - {}", authRequest.getUsername());
-                return ResponseEntity.status(401).body("Incorrect username");
-            }
-            // Retrieve user from DB
-            User user = userRepository.findByUsername(authRequest.getUsername())
-                    .orElseThrow(()-> new RuntimeException("User not found"));
-
-            // Compare raw password with hashed password
-            if (!passwordEncoder.matches(authRequest.getPassword(), user.getPassword())) {
-                logger.warn("Login failed: Invalid password for user - {}", authRequest.getUsername());
-                return ResponseEntity.status(401).body("Invalid Password");
-            }
-
-            // Authenticate the user
-            authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(authRequest.getUsername(), authRequest.getPassword())
-            );
-
-             //Generate JWT token
-            String token = jwtUtil.generateToken(authRequest.getUsername(),
-                    Collections.singletonList(user.getRole()));
-
-
-            return ResponseEntity.ok(new AuthResponse(token));
-
-        } catch (AuthenticationException e) {
-            return ResponseEntity.status(401).body("Invalid credentials");
-        }
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody AuthRequest authRequest) {
+        return authService.authenticate(authRequest.getUsername(), authRequest.getPassword())
+                .<ResponseEntity<?>>thenApply(user -> {
+                    //Generate JWT token carrying the user's id and role
+                    String token = jwtUtil.generateToken(user);
+                    return ResponseEntity.ok(new AuthResponse(token));
+                })
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof AuthenticationException) {
+                        logger.warn("Login failed: {} - {}", cause.getMessage(), authRequest.getUsername());
+                        return ResponseEntity.status(401).body(cause.getMessage());
+                    }
+                    if (cause instanceof RejectedExecutionException) {
+                        logger.warn("Login rejected: bcrypt queue is full");
+                        return ResponseEntity.status(503).body("Too many login attempts. Please try again shortly.");
+                    }
+                    logger.error("Login failed for user - {}", authRequest.getUsername(), cause);
+                    return ResponseEntity.internalServerError().body("An unexpected error occurred.");
+                });
     }
 
 
+    // Public verification keys (ES256 mode) for services that check tokens without the signing secret
+    @GetMapping("/jwks")
+    public Map<String, Object> jwks() {
+        return Map.of("keys", jwtKeyRing.publicJwks());
+    }
+
     @PostMapping("/signup")
     public User signup(@RequestBody User user) {
         return userService.createUser(user);
@@ -1,13 +1,10 @@
 package com.example.finance_tracker.Controller;
 
 import com.example.finance_tracker.Entity.Budget;
-import com.example.finance_tracker.Entity.User;
 import com.example.finance_tracker.Service.BudgetService;
 import com.example.finance_tracker.Service.UserService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
@@ -39,15 +36,8 @@ public class BudgetController {
     @GetMapping
     public ResponseEntity<?> getAllBudgets() {
 
-        // Get the authenticated user's details
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String authenticatedUsername = authentication.getName();
-
-        // Fetch the user from the database
-        User user = userService.getUserByUsername(authenticatedUsername);
-
-        // Check if the user is an ADMIN
-        if (!"ADMIN".equals(user.getRole())) {
+        // Check if the user is an ADMIN (from the token's role claim)
+        if (!userService.isAdmin()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not authorized to access all budgets.");
         }
 
@@ -152,14 +142,11 @@ public class BudgetController {
            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not authorized to check this budget.");
        }
 
-       // Update the spentAmount by adding the new expense
-       budget.setCurrentSpentAmount(budget.getCurrentSpentAmount().add(newExpense));
-
-       // Save the updated budget to reflect the change in spentAmount
-       budgetService.createOrUpdateBudget(budget);
+       // Atomically add the new expense to the spentAmount
+       Budget updatedBudget = budgetService.addToSpentAmountById(budgetId, newExpense);
 
        // Check if the new expense exceeds the budget
-       boolean isOver = budgetService.isExceedingBudget(budget, newExpense);
+       boolean isOver = budgetService.isExceedingBudget(updatedBudget, newExpense);
        return ResponseEntity.ok(isOver ? "You have exceeded your budget!" : "You are within budget.");
    }
 }
@@ -2,14 +2,11 @@ package com.example.finance_tracker.Controller;
 
 import com.example.finance_tracker.Entity.Budget;
 import com.example.finance_tracker.Entity.Goal.Goal;
-import com.example.finance_tracker.Entity.User;
 import com.example.finance_tracker.Service.GoalService;
 import com.example.finance_tracker.Service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -36,22 +33,19 @@ public class GoalController {
         if (!userService.isAuthUser(goal.getUserId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not authorized to create this goal.");
         }
-        return ResponseEntity.ok(goalService.createGoal(goal));
+        try {
+            return ResponseEntity.ok(goalService.createGoal(goal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     // Get all goals by ADMIN only
     @GetMapping
     public ResponseEntity<?> getAllGoals() {
 
-        // Get the authenticated user's details
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String authenticatedUsername = authentication.getName();
-
-        // Fetch the user from the database
-        User user = userService.getUserByUsername(authenticatedUsername);
-
-        // Check if the user is an ADMIN
-        if (!"ADMIN".equalsIgnoreCase(user.getRole())) {
+        // Check if the user is an ADMIN (from the token's role claim)
+        if (!userService.isAdmin()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not authorized to access all goals.");
         }
 
@@ -108,6 +102,8 @@ public class GoalController {
             // Proceed with the update
             Goal updatedGoal = goalService.updateGoal(goalId,goal);
             return ResponseEntity.ok(updatedGoal);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.status(404).body(e.getMessage()); // Budget not found
         }
@@ -2,8 +2,10 @@ package com.example.finance_tracker.Controller;
 
 
 import com.example.finance_tracker.Entity.Report;
+import com.example.finance_tracker.Entity.ReportSeries;
 import com.example.finance_tracker.Entity.Transaction;
 import com.example.finance_tracker.Service.ReportService;
+import com.example.finance_tracker.Service.TransactionRollupService;
 import com.example.finance_tracker.Service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -18,9 +20,14 @@ import org.springframework.web.bind.annotation.RestController;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.DateTimeException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -32,6 +39,9 @@ public class ReportController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private TransactionRollupService transactionRollupService;
+
     private static final Logger logger = LoggerFactory.getLogger(ReportController.class);
 
     @GetMapping
@@ -58,6 +68,38 @@ public class ReportController {
         return ResponseEntity.ok(report);
     }
 
+    // Totals per day, week or month for charts, in one query instead of one report call per bucket.
+    // Defaults: the user's last 12 buckets up to today, in the server's time zone.
+    @GetMapping("/series")
+    public ResponseEntity<?> getSeries(
+            @RequestParam String userId,
+            @RequestParam(defaultValue = "MONTH") ReportSeries.Granularity granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String timeZone,
+            @RequestParam(required = false) List<Transaction.TransactionCategory> categories,
+            @RequestParam(defaultValue = "false") boolean compare) {
+
+        // Check if the authenticated user is authorized to access the report
+        if (!userService.isAuthUser(userId)) {
+            logger.warn("Access denied for user ID: {}", userId);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not authorized to access this report.");
+        }
+
+        try {
+            ZoneId zone = timeZone == null ? ZoneId.systemDefault() : ZoneId.of(timeZone);
+            LocalDate end = to != null ? to : LocalDate.now(zone);
+            LocalDate start = from != null ? from : switch (granularity) {
+                case DAY -> end.minusDays(11);
+                case WEEK -> end.minusWeeks(11);
+                case MONTH -> end.minusMonths(11);
+            };
+            return ResponseEntity.ok(reportService.generateSeries(userId, granularity, start, end, zone, categories, compare));
+        } catch (DateTimeException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping(value = "/download", produces = "text/csv")
     public ResponseEntity<byte[]> downloadReport(
             @RequestParam String userId,
@@ -86,4 +128,77 @@ public class ReportController {
                 .headers(headers)
                 .body(csvBytes);
     }
+
+    // Stream all raw transactions of a user as CSV without buffering the file in memory
+    @GetMapping(value = "/export", produces = "text/csv")
+    public ResponseEntity<?> exportTransactions(
+            @RequestParam String userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+
+        // Check if the authenticated user is authorized to export the transactions
+        if (!userService.isAuthUser(userId)) {
+            logger.warn("Access denied for user ID: {}", userId);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        // A range needs both ends; exporting everything instead would not be what was asked for
+        if ((startDate == null) != (endDate == null)) {
+            return ResponseEntity.badRequest().body("startDate and endDate must be given together.");
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream, true);
+                reportService.writeTransactionsCsv(userId, startDate, endDate, gzipStream);
+                gzipStream.finish();
+            } else {
+                reportService.writeTransactionsCsv(userId, startDate, endDate, outputStream);
+            }
+        };
+
+        // Set headers for file download
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+        headers.setContentDispositionFormData("attachment", "transactions.csv");
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+
+    // Rebuild the daily report rollups from raw transactions (ADMIN only)
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<String> rebuildRollups(@RequestParam(required = false) String userId) {
+
+        // Check if the user is an ADMIN (from the token's role claim)
+        if (!userService.isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not authorized to rebuild report rollups.");
+        }
+
+        if (userId != null) {
+            transactionRollupService.rebuildForUser(userId);
+            return ResponseEntity.ok("Report rollups rebuilt.");
+        }
+        // Every user's rollups take far longer than a request; the rebuild continues in the background
+        if (!transactionRollupService.startRebuildAll()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A report rollup rebuild is already running.");
+        }
+        return ResponseEntity.accepted().body("Report rollup rebuild started.");
+    }
+
+    // Report cache hit/miss/eviction counters (ADMIN only)
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> getCacheStats() {
+
+        // Check if the user is an ADMIN (from the token's role claim)
+        if (!userService.isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not authorized to view report cache stats.");
+        }
+        return ResponseEntity.ok(reportService.getCacheStats());
+    }
 }
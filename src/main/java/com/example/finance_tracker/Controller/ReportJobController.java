@@ -0,0 +1,131 @@
+package com.example.finance_tracker.Controller;
+
+import com.example.finance_tracker.Entity.ReportJob;
+import com.example.finance_tracker.Entity.Transaction;
+import com.example.finance_tracker.Service.ReportJobService;
+import com.example.finance_tracker.Service.UserService;
+import com.mongodb.client.gridfs.GridFSDownloadStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+// Background reports and exports for ranges too large to answer within one request:
+// submit a job, poll it, then download the artifact once it is DONE.
+@RestController
+@RequestMapping("/api/reports/jobs")
+public class ReportJobController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobController.class);
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private UserService userService;
+
+    @PostMapping
+    public ResponseEntity<?> submitJob(
+            @RequestParam String userId,
+            @RequestParam ReportJob.Type type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) List<Transaction.TransactionCategory> categories,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+
+        // Check if the authenticated user is authorized to access the report
+        if (!userService.isAuthUser(userId)) {
+            logger.warn("Access denied for user ID: {}", userId);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not authorized to access this report.");
+        }
+
+        // A range needs both ends; running over everything instead would not be what was asked for
+        if ((startDate == null) != (endDate == null)) {
+            return ResponseEntity.badRequest().body("startDate and endDate must be given together.");
+        }
+
+        try {
+            ReportJob job = reportJobService.submit(new ReportJob(userId, type, startDate, endDate, categories, gzip));
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/reports/jobs/" + job.getId()))
+                    .body(job);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            logger.warn("Report job rejected: worker queue is full");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Too many report jobs queued. Please try again shortly.");
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getJobs(@RequestParam String userId) {
+
+        // Check if the authenticated user is authorized to access the report
+        if (!userService.isAuthUser(userId)) {
+            logger.warn("Access denied for user ID: {}", userId);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not authorized to access these reports.");
+        }
+        return ResponseEntity.ok(reportJobService.getJobs(userId));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getJob(@PathVariable String jobId) {
+        Optional<ReportJob> job = reportJobService.getJob(jobId);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!userService.isAuthUser(job.get().getUserId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not authorized to access this report.");
+        }
+        return ResponseEntity.ok(job.get());
+    }
+
+    // Stream the finished artifact from GridFS without buffering it
+    @GetMapping("/{jobId}/download")
+    public ResponseEntity<?> downloadArtifact(@PathVariable String jobId) {
+        Optional<ReportJob> found = reportJobService.getJob(jobId);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        ReportJob job = found.get();
+        if (!userService.isAuthUser(job.getUserId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not authorized to access this report.");
+        }
+        if (job.getStatus() != ReportJob.Status.DONE) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("The report job is " + job.getStatus() + ".");
+        }
+
+        Optional<GridFSDownloadStream> artifact = reportJobService.openArtifact(job);
+        if (artifact.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.GONE).body("The report has expired. Please submit it again.");
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            try (GridFSDownloadStream in = artifact.get()) {
+                in.transferTo(outputStream);
+            }
+        };
+
+        // Set headers for file download
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(job.getContentType()));
+        headers.setContentDispositionFormData("attachment", job.getFileName());
+        headers.setContentLength(job.getSizeBytes());
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+}
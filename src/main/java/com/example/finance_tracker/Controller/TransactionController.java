@@ -2,14 +2,14 @@ package com.example.finance_tracker.Controller;
 
 import com.example.finance_tracker.Entity.Transaction;
 import com.example.finance_tracker.Entity.Report;
-import com.example.finance_tracker.Entity.User;
+import com.example.finance_tracker.Entity.TransactionBatchResult;
+import com.example.finance_tracker.Entity.TransactionPage;
+import com.example.finance_tracker.Service.SpendingStatsService;
 import com.example.finance_tracker.Service.TransactionService;
 import com.example.finance_tracker.Service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import java.time.LocalDateTime;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -22,12 +22,17 @@ public class TransactionController {
 
     private final TransactionService transactionService;
     private final UserService userService;
+    private final SpendingStatsService spendingStatsService;
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
 
     //Constructors
     @Autowired
-    public TransactionController(TransactionService transactionService, UserService userService) {
+    public TransactionController(TransactionService transactionService, UserService userService,
+                                 SpendingStatsService spendingStatsService) {
         this.transactionService = transactionService;
         this.userService = userService;
+        this.spendingStatsService = spendingStatsService;
     }
 
     //Create a new Transaction
@@ -54,19 +59,36 @@ public class TransactionController {
     }
 
 
+    //Create many transactions in one request (e.g. a bank statement import)
+    @PostMapping("/batch")
+    public ResponseEntity<?> createTransactions(@RequestBody List<Transaction> transactions) {
+
+        try {
+            // Each distinct user in the batch is checked once; items for other users are rejected individually
+            List<TransactionBatchResult> results = transactionService.createTransactions(transactions, userId -> {
+                try {
+                    return userService.isAuthUser(userId);
+                } catch (RuntimeException e) {
+                    return false; // Unknown user
+                }
+            });
+            return ResponseEntity.ok(results);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage()); // Empty or oversized batch
+
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("An unexpected error occurred.");
+        }
+    }
+
+
     //Get all transactions (ADMIN only)
     @GetMapping
     public ResponseEntity<?> getAllTransactions() {
 
-        // Get the authenticated user's details
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String authenticatedUsername = authentication.getName();
-
-        // Fetch the user from the database
-        User user = userService.getUserByUsername(authenticatedUsername);
-
-        // Check if the user is an ADMIN
-        if (!"ADMIN".equals(user.getRole())) {
+        // Check if the user is an ADMIN (from the token's role claim)
+        if (!userService.isAdmin()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not authorized to access all transactions.");
         }
         // Fetch and return all transactions
@@ -74,9 +96,33 @@ public class TransactionController {
         return ResponseEntity.ok(transactions);
     }
 
+    //Recompute the running spending stats used for unusual spending alerts (ADMIN only)
+    @PostMapping("/spending-stats/rebuild")
+    public ResponseEntity<String> rebuildSpendingStats(@RequestParam(required = false) String userId) {
+
+        // Check if the user is an ADMIN (from the token's role claim)
+        if (!userService.isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not authorized to rebuild spending stats.");
+        }
+
+        if (userId != null) {
+            spendingStatsService.rebuildForUser(userId);
+            return ResponseEntity.ok("Spending stats rebuilt.");
+        }
+        // Every user's stats take far longer than a request; the rebuild continues in the background
+        if (!spendingStatsService.startRebuildAll()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A spending stats rebuild is already running.");
+        }
+        return ResponseEntity.accepted().body("Spending stats rebuild started.");
+    }
+
     //Retrieve all transactions for a specific user.
+    //Pass "limit" (and the "next" token of the previous page as "cursor") for keyset pagination,
+    //without them the full list is returned as before.
     @GetMapping("/user/{userId}")
-    public ResponseEntity<?> getTransactionsByUserId(@PathVariable String userId) {
+    public ResponseEntity<?> getTransactionsByUserId(@PathVariable String userId,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     @RequestParam(required = false) String cursor) {
 
         // Check if the authenticated user matches the requested user
         boolean isAuthUser = userService.isAuthUser(userId);
@@ -84,6 +130,10 @@ public class TransactionController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not authorized to view these transactions.");
         }
 
+        if (limit != null || cursor != null) {
+            return getTransactionsPage(userId, null, limit, cursor);
+        }
+
         List<Transaction> transactions = transactionService.getTransactionsByUserId(userId);
         return ResponseEntity.ok(transactions);
     }
@@ -114,18 +164,34 @@ public class TransactionController {
     @GetMapping("/user/{userId}/category/{category}")
     public ResponseEntity<?> getTransactionsByUserIdAndCategory(
             @PathVariable String userId,
-            @PathVariable Transaction.TransactionCategory category) {
+            @PathVariable Transaction.TransactionCategory category,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
 
         // Check if the authenticated user matches the requested user
         boolean isAuthUser = userService.isAuthUser(userId);
         if (!isAuthUser) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not authorized to view these transactions.");
         }
+
+        if (limit != null || cursor != null) {
+            return getTransactionsPage(userId, category, limit, cursor);
+        }
         // Fetch transactions by user ID and category
         List<Transaction> transactions = transactionService.getTransactionsByUserIdAndCategory(userId, category);
         return ResponseEntity.ok(transactions);
     }
 
+    // Shared keyset pagination for the listing endpoints
+    private ResponseEntity<?> getTransactionsPage(String userId, Transaction.TransactionCategory category, Integer limit, String cursor) {
+        try {
+            TransactionPage page = transactionService.getTransactionsPage(userId, category, limit != null ? limit : DEFAULT_PAGE_SIZE, cursor);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage()); // Bad limit or cursor
+        }
+    }
+
     //Update an existing transaction.
     @PutMapping("/{id}")
     public ResponseEntity<?> updateTransaction(@PathVariable String id, @RequestBody Transaction updatedTransaction) {
@@ -1,8 +1,11 @@
 package com.example.finance_tracker.Controller;
 
+import com.example.finance_tracker.Entity.NotificationPreference;
 import com.example.finance_tracker.Entity.User;
 import com.example.finance_tracker.Repository.UserRepository;
+import com.example.finance_tracker.Service.NotificationService;
 import com.example.finance_tracker.Service.UserService;
+import com.example.finance_tracker.Utility.AuthenticatedUser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.mongodb.repository.Update;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +20,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private NotificationService notificationService;
+
  //creating user will handle from Auth controller
 
     //get all users
@@ -31,6 +37,26 @@ public class UserController {
         return ResponseEntity.ok(userService.updateUser(userId,user));
     }
 
+    //get the logged-in user's notification settings
+    @GetMapping("/me/notification-preferences")
+    public ResponseEntity<?> getNotificationPreferences() {
+        AuthenticatedUser user = userService.getAuthenticatedUser();
+        if (user == null) {
+            return ResponseEntity.status(401).body("Please sign in again");
+        }
+        return ResponseEntity.ok(notificationService.getPreference(user.getUserId()));
+    }
+
+    //update the logged-in user's notification settings
+    @PutMapping("/me/notification-preferences")
+    public ResponseEntity<?> updateNotificationPreferences(@RequestBody NotificationPreference preference) {
+        AuthenticatedUser user = userService.getAuthenticatedUser();
+        if (user == null) {
+            return ResponseEntity.status(401).body("Please sign in again");
+        }
+        return ResponseEntity.ok(notificationService.savePreference(user.getUserId(), preference));
+    }
+
     //delete user by id
     @DeleteMapping("/{userId}")
     public ResponseEntity<?> deleteUser(@PathVariable String userId) {
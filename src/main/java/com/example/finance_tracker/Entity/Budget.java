@@ -4,6 +4,7 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -11,6 +12,8 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Document(collection = "budgets")
+// findByUserId and the atomic spent-amount update on (user_id, budget_category)
+@CompoundIndex(name = "user_category", def = "{'user_id': 1, 'budget_category': 1}")
 public class Budget {
         @Id
         @NotNull(message = "User ID is required")
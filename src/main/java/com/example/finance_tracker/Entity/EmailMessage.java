@@ -0,0 +1,175 @@
+package com.example.finance_tracker.Entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+
+// One outbound email waiting in the delivery queue; drained by the EmailDispatcher
+@Document(collection = "email_queue")
+@CompoundIndex(name = "status_next_attempt", def = "{'status': 1, 'next_attempt_at': 1}")
+public class EmailMessage implements Leased {
+
+    public enum Status {
+        PENDING, SENDING, SENT
+    }
+
+    @Id
+    private String id;
+
+    @Field(name = "to_email")
+    private String toEmail;
+
+    private String subject;
+
+    private String content;
+
+    private Status status;
+
+    private int attempts;
+
+    // Set after the provider rejected a request this message was part of; it is then sent on its own
+    // so one bad address cannot keep failing the rest of a batch
+    private boolean solo;
+
+    @Field(name = "last_error")
+    private String lastError;
+
+    @Field(name = "claimed_by")
+    private String claimedBy;
+
+    @Field(name = "locked_until")
+    private Instant lockedUntil;
+
+    @Field(name = "next_attempt_at")
+    private Instant nextAttemptAt;
+
+    @Field(name = "created_at")
+    private Instant createdAt;
+
+    // Sent messages are removed by MongoDB one day after delivery
+    @Indexed(name = "sent_at_ttl", expireAfterSeconds = 86400)
+    @Field(name = "sent_at")
+    private Instant sentAt;
+
+    public EmailMessage() {
+    }
+
+    public EmailMessage(String toEmail, String subject, String content) {
+        this.toEmail = toEmail;
+        this.subject = subject;
+        this.content = content;
+        this.status = Status.PENDING;
+        this.attempts = 0;
+        Instant now = Instant.now();
+        this.createdAt = now;
+        this.nextAttemptAt = now;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getToEmail() {
+        return toEmail;
+    }
+
+    public void setToEmail(String toEmail) {
+        this.toEmail = toEmail;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public boolean isSolo() {
+        return solo;
+    }
+
+    public void setSolo(boolean solo) {
+        this.solo = solo;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public void setClaimedBy(String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+
+    public Instant getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(Instant lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(Instant sentAt) {
+        this.sentAt = sentAt;
+    }
+}
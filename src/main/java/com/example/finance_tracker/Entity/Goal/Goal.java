@@ -1,33 +1,38 @@
 package com.example.finance_tracker.Entity.Goal;
 
 import com.example.finance_tracker.Entity.Budget;
+import com.example.finance_tracker.Utility.Money;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Document(collection = "goals")
+@CompoundIndex(name = "user_status_end_date", def = "{'userId': 1, 'status': 1, 'endDate': 1}") // daily deadline scan per user page
 @Data
 @AllArgsConstructor
 //@NoArgsConstructor
 public class Goal {
     @Id
     private String id;
+    @Indexed(name = "user_id") // findByUserId and income updates to all goals of a user
     private String userId;
     private String goalName;
     private GoalStatus status;
-    private double targetAmount;
-    private double savedAmount;
+    private Money targetAmount;
+    private Money savedAmount;
     private LocalDate startDate;
     private LocalDate endDate;
 
     public Goal(){};
 
     //Constructor
-    public Goal(String userId, String goalName, GoalStatus status, double targetAmount, double savedAmount, LocalDate startDate, LocalDate endDate) {
+    public Goal(String userId, String goalName, GoalStatus status, Money targetAmount, Money savedAmount, LocalDate startDate, LocalDate endDate) {
         this.userId = userId;
         this.goalName = goalName;
         this.status = status;
@@ -51,11 +56,11 @@ public class Goal {
     public GoalStatus getStatus() {return status;}
     public void setStatus(GoalStatus status) {this.status = status;}
 
-    public double getTargetAmount() {return targetAmount;}
-    public void setTargetAmount(double targetAmount) {this.targetAmount = targetAmount;}
+    public Money getTargetAmount() {return targetAmount;}
+    public void setTargetAmount(Money targetAmount) {this.targetAmount = targetAmount;}
 
-    public double getSavedAmount() {return savedAmount;}
-    public void setSavedAmount(double savedAmount) {this.savedAmount = savedAmount;}
+    public Money getSavedAmount() {return savedAmount;}
+    public void setSavedAmount(Money savedAmount) {this.savedAmount = savedAmount;}
 
     public LocalDate getStartDate() {return startDate;}
     public void setStartDate(LocalDate startDate) {this.startDate = startDate;}
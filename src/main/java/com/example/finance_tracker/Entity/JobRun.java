@@ -0,0 +1,123 @@
+package com.example.finance_tracker.Entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+import java.util.List;
+
+// One execution of a partitioned job, e.g. "notifications:2026-10-18".
+// Fixes the transaction window every shard of the run works on, so all nodes agree on it.
+@Document(collection = "job_runs")
+public class JobRun {
+
+    public enum Status {
+        RUNNING, FINISHED
+    }
+
+    @Id
+    private String id;
+
+    private String job;
+
+    // Transactions with from_id < _id <= to_id belong to this run
+    @Field(name = "from_id")
+    private String fromId;
+
+    @Field(name = "to_id")
+    private String toId;
+
+    @Field(name = "shard_count")
+    private int shardCount;
+
+    // Inclusive upper user _id of every shard but the last, in order; the last shard is open-ended
+    @Field(name = "shard_boundaries")
+    private List<String> shardBoundaries;
+
+    private Status status;
+
+    // Runs are removed by MongoDB 30 days after they started
+    @Indexed(name = "created_at_ttl", expireAfterSeconds = 2592000)
+    @Field(name = "created_at")
+    private Instant createdAt;
+
+    @Field(name = "finished_at")
+    private Instant finishedAt;
+
+    public JobRun() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getJob() {
+        return job;
+    }
+
+    public void setJob(String job) {
+        this.job = job;
+    }
+
+    public String getFromId() {
+        return fromId;
+    }
+
+    public void setFromId(String fromId) {
+        this.fromId = fromId;
+    }
+
+    public String getToId() {
+        return toId;
+    }
+
+    public void setToId(String toId) {
+        this.toId = toId;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public void setShardCount(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    public List<String> getShardBoundaries() {
+        return shardBoundaries;
+    }
+
+    public void setShardBoundaries(List<String> shardBoundaries) {
+        this.shardBoundaries = shardBoundaries;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.finance_tracker.Entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+
+// One _id range of the users of a JobRun. Any node may lease it; the checkpoint is the last
+// user _id it has finished, so a shard left behind by a crashed node is resumed from there.
+@Document(collection = "job_shards")
+@CompoundIndex(name = "job_status_locked_until", def = "{'job': 1, 'status': 1, 'locked_until': 1}")
+public class JobShard {
+
+    public enum Status {
+        PENDING, RUNNING, DONE
+    }
+
+    // "<run id>:<shard>"
+    @Id
+    private String id;
+
+    private String job;
+
+    @Indexed(name = "run_id")
+    @Field(name = "run_id")
+    private String runId;
+
+    private int shard;
+
+    private Status status;
+
+    private String owner;
+
+    // Users with range_start < _id <= range_end; a missing bound is open
+    @Field(name = "range_start")
+    private String rangeStart;
+
+    @Field(name = "range_end")
+    private String rangeEnd;
+
+    @Field(name = "locked_until")
+    private Instant lockedUntil;
+
+    private String checkpoint;
+
+    @Field(name = "processed_users")
+    private long processedUsers;
+
+    @Field(name = "updated_at")
+    private Instant updatedAt;
+
+    // Shards go together with their run
+    @Indexed(name = "created_at_ttl", expireAfterSeconds = 2592000)
+    @Field(name = "created_at")
+    private Instant createdAt;
+
+    public JobShard() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getJob() {
+        return job;
+    }
+
+    public void setJob(String job) {
+        this.job = job;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public void setRunId(String runId) {
+        this.runId = runId;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public void setShard(int shard) {
+        this.shard = shard;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public String getRangeStart() {
+        return rangeStart;
+    }
+
+    public void setRangeStart(String rangeStart) {
+        this.rangeStart = rangeStart;
+    }
+
+    public String getRangeEnd() {
+        return rangeEnd;
+    }
+
+    public void setRangeEnd(String rangeEnd) {
+        this.rangeEnd = rangeEnd;
+    }
+
+    public Instant getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(Instant lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    public String getCheckpoint() {
+        return checkpoint;
+    }
+
+    public void setCheckpoint(String checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public long getProcessedUsers() {
+        return processedUsers;
+    }
+
+    public void setProcessedUsers(long processedUsers) {
+        this.processedUsers = processedUsers;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
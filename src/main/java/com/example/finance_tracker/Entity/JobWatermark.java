@@ -0,0 +1,55 @@
+package com.example.finance_tracker.Entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+
+// Progress marker of a scheduled job: the last transaction _id it has processed
+@Document(collection = "job_watermarks")
+public class JobWatermark {
+
+    // Job name, e.g. "unusual_spending"
+    @Id
+    private String id;
+
+    @Field(name = "last_id")
+    private String lastId;
+
+    @Field(name = "updated_at")
+    private Instant updatedAt;
+
+    public JobWatermark() {
+    }
+
+    public JobWatermark(String id, String lastId, Instant updatedAt) {
+        this.id = id;
+        this.lastId = lastId;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getLastId() {
+        return lastId;
+    }
+
+    public void setLastId(String lastId) {
+        this.lastId = lastId;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.finance_tracker.Entity;
+
+import java.time.Instant;
+
+// A queue document that one dispatcher node works on at a time, under a lease (see LeasedQueue)
+public interface Leased {
+
+    String getId();
+
+    String getClaimedBy();
+
+    void setClaimedBy(String claimedBy);
+
+    void setLockedUntil(Instant lockedUntil);
+
+    int getAttempts();
+
+    void setAttempts(int attempts);
+
+    void setLastError(String lastError);
+}
@@ -1,6 +1,7 @@
 package com.example.finance_tracker.Entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "notification_preferences")
@@ -8,6 +9,7 @@ public class NotificationPreference {
 
     @Id
     private String id;
+    @Indexed(name = "userId", unique = true) // findByUserIdIn
     private String userId;
     private boolean emailEnabled;
     private boolean smsEnabled;
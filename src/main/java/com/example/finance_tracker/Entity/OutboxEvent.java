@@ -0,0 +1,125 @@
+package com.example.finance_tracker.Entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Side effects of a transaction write (budget / goal updates) waiting to be applied by the OutboxDispatcher.
+// Written before the transaction itself, so a crash between the two writes can never lose an update.
+@Document(collection = "transaction_outbox")
+@CompoundIndex(name = "status_next_attempt", def = "{'status': 1, 'next_attempt_at': 1}")
+public class OutboxEvent implements Leased {
+
+    public enum Status {
+        PENDING, PROCESSING, DONE
+    }
+
+    @Id
+    private String id;
+
+    @Field(name = "transaction_id")
+    private String transactionId;
+
+    @Field(name = "user_id")
+    private String userId;
+
+    @Field(name = "transaction_type")
+    private Transaction.TransactionType transactionType;
+
+    @Field(name = "transaction_category")
+    private Transaction.TransactionCategory transactionCategory;
+
+    @Field(name = "amount", targetType = FieldType.DECIMAL128)
+    private BigDecimal amount;
+
+    private Status status;
+
+    private int attempts;
+
+    @Field(name = "last_error")
+    private String lastError;
+
+    @Field(name = "claimed_by")
+    private String claimedBy;
+
+    @Field(name = "locked_until")
+    private Instant lockedUntil;
+
+    @Field(name = "next_attempt_at")
+    private Instant nextAttemptAt;
+
+    @Field(name = "created_at")
+    private Instant createdAt;
+
+    // Finished events are removed by MongoDB one day after processing
+    @Indexed(name = "processed_at_ttl", expireAfterSeconds = 86400)
+    @Field(name = "processed_at")
+    private Instant processedAt;
+
+    public OutboxEvent() {
+    }
+
+    public static OutboxEvent forTransaction(Transaction transaction) {
+        OutboxEvent event = new OutboxEvent();
+        event.setTransactionId(transaction.getTransactionId());
+        event.setUserId(transaction.getUserId());
+        event.setTransactionType(transaction.getTransactionType());
+        event.setTransactionCategory(transaction.getTransactionCategory());
+        event.setAmount(transaction.getTransactionAmount());
+        event.setStatus(Status.PENDING);
+        event.setAttempts(0);
+        Instant now = Instant.now();
+        event.setCreatedAt(now);
+        event.setNextAttemptAt(now);
+        return event;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getTransactionId() { return transactionId; }
+    public void setTransactionId(String transactionId) { this.transactionId = transactionId; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public Transaction.TransactionType getTransactionType() { return transactionType; }
+    public void setTransactionType(Transaction.TransactionType transactionType) { this.transactionType = transactionType; }
+
+    public Transaction.TransactionCategory getTransactionCategory() { return transactionCategory; }
+    public void setTransactionCategory(Transaction.TransactionCategory transactionCategory) { this.transactionCategory = transactionCategory; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public String getClaimedBy() { return claimedBy; }
+    public void setClaimedBy(String claimedBy) { this.claimedBy = claimedBy; }
+
+    public Instant getLockedUntil() { return lockedUntil; }
+    public void setLockedUntil(Instant lockedUntil) { this.lockedUntil = lockedUntil; }
+
+    public Instant getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(Instant nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getProcessedAt() { return processedAt; }
+    public void setProcessedAt(Instant processedAt) { this.processedAt = processedAt; }
+}
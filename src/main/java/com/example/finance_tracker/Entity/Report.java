@@ -1,35 +1,36 @@
 package com.example.finance_tracker.Entity;
 
-import java.math.BigDecimal;
+import com.example.finance_tracker.Utility.Money;
+
 import java.util.Map;
 
 public class Report {
-    private BigDecimal totalIncome;
-    private BigDecimal totalExpenses;
-    private Map<Transaction.TransactionCategory, BigDecimal> categoryTotals; // Category-wise totals
+    private Money totalIncome;
+    private Money totalExpenses;
+    private Map<Transaction.TransactionCategory, Money> categoryTotals; // Category-wise totals
 
     // Getters and setters
-    public BigDecimal getTotalIncome() {
+    public Money getTotalIncome() {
         return totalIncome;
     }
 
-    public void setTotalIncome(BigDecimal totalIncome) {
+    public void setTotalIncome(Money totalIncome) {
         this.totalIncome = totalIncome;
     }
 
-    public BigDecimal getTotalExpenses() {
+    public Money getTotalExpenses() {
         return totalExpenses;
     }
 
-    public void setTotalExpenses(BigDecimal totalExpenses) {
+    public void setTotalExpenses(Money totalExpenses) {
         this.totalExpenses = totalExpenses;
     }
 
-    public Map<Transaction.TransactionCategory, BigDecimal> getCategoryTotals() {
+    public Map<Transaction.TransactionCategory, Money> getCategoryTotals() {
         return categoryTotals;
     }
 
-    public void setCategoryTotals(Map<Transaction.TransactionCategory, BigDecimal> categoryTotals) {
+    public void setCategoryTotals(Map<Transaction.TransactionCategory, Money> categoryTotals) {
         this.categoryTotals = categoryTotals;
     }
 }
\ No newline at end of file
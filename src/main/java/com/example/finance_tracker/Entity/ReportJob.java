@@ -0,0 +1,268 @@
+package com.example.finance_tracker.Entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// A report or export run in the background (see ReportJobService). Clients poll it for progress
+// and download the artifact, stored in GridFS, once it is DONE.
+@Document(collection = "report_jobs")
+@CompoundIndexes({
+        // Per-user listing and the active-jobs limit
+        @CompoundIndex(name = "user_status", def = "{'user_id': 1, 'status': 1}"),
+        // Sweep for jobs whose node stopped sending heartbeats
+        @CompoundIndex(name = "status_heartbeat", def = "{'status': 1, 'heartbeat_at': 1}")
+})
+public class ReportJob {
+
+    public enum Type {
+        REPORT,      // Report as JSON (ReportService.generateReport)
+        REPORT_CSV,  // Report as CSV (ReportService.generateCsvReport)
+        EXPORT       // raw transactions as CSV (ReportService.writeTransactionsCsv)
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    @Id
+    private String id;
+
+    @Field(name = "user_id")
+    private String userId;
+
+    private Type type;
+
+    private Status status;
+
+    @Field(name = "start_date")
+    private LocalDateTime startDate;
+
+    @Field(name = "end_date")
+    private LocalDateTime endDate;
+
+    private List<Transaction.TransactionCategory> categories;
+
+    // EXPORT only: store the CSV gzip-compressed
+    private boolean gzip;
+
+    // EXPORT progress; total_rows is counted when the job starts
+    @Field(name = "processed_rows")
+    private long processedRows;
+
+    @Field(name = "total_rows")
+    private long totalRows;
+
+    // GridFS file id of the finished artifact
+    @Field(name = "artifact_id")
+    private String artifactId;
+
+    @Field(name = "file_name")
+    private String fileName;
+
+    @Field(name = "content_type")
+    private String contentType;
+
+    @Field(name = "size_bytes")
+    private long sizeBytes;
+
+    private String error;
+
+    @Field(name = "created_at")
+    private Instant createdAt;
+
+    @Field(name = "started_at")
+    private Instant startedAt;
+
+    @Field(name = "finished_at")
+    private Instant finishedAt;
+
+    // Refreshed by the node that holds the job while it is queued or running
+    @Field(name = "heartbeat_at")
+    private Instant heartbeatAt;
+
+    // MongoDB removes the job at this time; the artifact is deleted by ReportJobService's cleanup
+    @Indexed(name = "expires_at_ttl", expireAfterSeconds = 0)
+    @Field(name = "expires_at")
+    private Instant expiresAt;
+
+    public ReportJob() {
+    }
+
+    public ReportJob(String userId, Type type, LocalDateTime startDate, LocalDateTime endDate,
+                     List<Transaction.TransactionCategory> categories, boolean gzip) {
+        this.userId = userId;
+        this.type = type;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.categories = categories;
+        this.gzip = gzip;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDateTime startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDateTime getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDateTime endDate) {
+        this.endDate = endDate;
+    }
+
+    public List<Transaction.TransactionCategory> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<Transaction.TransactionCategory> categories) {
+        this.categories = categories;
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    public long getProcessedRows() {
+        return processedRows;
+    }
+
+    public void setProcessedRows(long processedRows) {
+        this.processedRows = processedRows;
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(long totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    public void setArtifactId(String artifactId) {
+        this.artifactId = artifactId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public Instant getHeartbeatAt() {
+        return heartbeatAt;
+    }
+
+    public void setHeartbeatAt(Instant heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.finance_tracker.Entity;
+
+import com.example.finance_tracker.Utility.Money;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+// Report totals bucketed by day, week or month, optionally with the same number of buckets
+// from the period just before for comparison. Buckets are contiguous: empty ones carry zero totals.
+public class ReportSeries {
+
+    public enum Granularity {
+        DAY("day"), WEEK("week"), MONTH("month");
+
+        private final String unit; // $dateTrunc unit
+
+        Granularity(String unit) {
+            this.unit = unit;
+        }
+
+        public String getUnit() {
+            return unit;
+        }
+    }
+
+    private Granularity granularity;
+    private String timeZone;
+    private List<Bucket> buckets;
+    private List<Bucket> previous; // null unless a comparison was requested
+
+    public ReportSeries(Granularity granularity, String timeZone, List<Bucket> buckets, List<Bucket> previous) {
+        this.granularity = granularity;
+        this.timeZone = timeZone;
+        this.buckets = buckets;
+        this.previous = previous;
+    }
+
+    // Getters and setters
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(Granularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public String getTimeZone() {
+        return timeZone;
+    }
+
+    public void setTimeZone(String timeZone) {
+        this.timeZone = timeZone;
+    }
+
+    public List<Bucket> getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(List<Bucket> buckets) {
+        this.buckets = buckets;
+    }
+
+    public List<Bucket> getPrevious() {
+        return previous;
+    }
+
+    public void setPrevious(List<Bucket> previous) {
+        this.previous = previous;
+    }
+
+    // One day, week (starting Monday) or month in the user's time zone
+    public static class Bucket {
+        private LocalDate start;
+        private Money totalIncome;
+        private Money totalExpenses;
+        private Map<Transaction.TransactionCategory, Money> categoryTotals; // Category-wise expense totals
+
+        public Bucket(LocalDate start, Report totals) {
+            this.start = start;
+            this.totalIncome = totals.getTotalIncome();
+            this.totalExpenses = totals.getTotalExpenses();
+            this.categoryTotals = totals.getCategoryTotals();
+        }
+
+        public LocalDate getStart() {
+            return start;
+        }
+
+        public void setStart(LocalDate start) {
+            this.start = start;
+        }
+
+        public Money getTotalIncome() {
+            return totalIncome;
+        }
+
+        public void setTotalIncome(Money totalIncome) {
+            this.totalIncome = totalIncome;
+        }
+
+        public Money getTotalExpenses() {
+            return totalExpenses;
+        }
+
+        public void setTotalExpenses(Money totalExpenses) {
+            this.totalExpenses = totalExpenses;
+        }
+
+        public Map<Transaction.TransactionCategory, Money> getCategoryTotals() {
+            return categoryTotals;
+        }
+
+        public void setCategoryTotals(Map<Transaction.TransactionCategory, Money> categoryTotals) {
+            this.categoryTotals = categoryTotals;
+        }
+    }
+}
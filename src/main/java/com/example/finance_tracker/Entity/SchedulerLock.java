@@ -0,0 +1,48 @@
+package com.example.finance_tracker.Entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+
+// Lease held by one node for a scheduled task; free again once locked_until has passed
+@Document(collection = "scheduler_locks")
+public class SchedulerLock {
+
+    // Lock name, e.g. "notifications"
+    @Id
+    private String id;
+
+    private String owner;
+
+    @Field(name = "locked_until")
+    private Instant lockedUntil;
+
+    public SchedulerLock() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Instant getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(Instant lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+}
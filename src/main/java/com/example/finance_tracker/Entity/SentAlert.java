@@ -0,0 +1,57 @@
+package com.example.finance_tracker.Entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+
+// An alert that has already been mailed, e.g. "transaction:<id>" or "goal_deadline:<goalId>:<endDate>".
+// Kept for 90 days so the same transaction or deadline is not reported again.
+@Document(collection = "sent_alerts")
+public class SentAlert {
+
+    @Id
+    private String key;
+
+    @Field(name = "user_id")
+    private String userId;
+
+    @Indexed(name = "sent_at_ttl", expireAfterSeconds = 7776000)
+    @Field(name = "sent_at")
+    private Instant sentAt;
+
+    public SentAlert() {
+    }
+
+    public SentAlert(String key, String userId, Instant sentAt) {
+        this.key = key;
+        this.userId = userId;
+        this.sentAt = sentAt;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public Instant getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(Instant sentAt) {
+        this.sentAt = sentAt;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.finance_tracker.Entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+
+// Running statistics of a user's expenses in one category, maintained with Welford's algorithm.
+// m2 is the sum of squared differences from the mean, so variance = m2 / (count - 1).
+@Document(collection = "spending_stats")
+@CompoundIndex(name = "stats_key", def = "{'user_id': 1, 'transaction_category': 1}", unique = true)
+public class SpendingStats {
+
+    @Id
+    private String id;
+
+    @Field(name = "user_id")
+    private String userId;
+
+    @Field(name = "transaction_category")
+    private Transaction.TransactionCategory transactionCategory;
+
+    private long count;
+
+    private double mean;
+
+    private double m2;
+
+    // Incremented by every merge into the row; the rebuild only swaps in new stats if it has not moved
+    private long writes;
+
+    @Field(name = "updated_at")
+    private Instant updatedAt;
+
+    public SpendingStats() {
+    }
+
+    public SpendingStats(String userId, Transaction.TransactionCategory transactionCategory, long count, double mean, double m2) {
+        this.userId = userId;
+        this.transactionCategory = transactionCategory;
+        this.count = count;
+        this.mean = mean;
+        this.m2 = m2;
+        this.updatedAt = Instant.now();
+    }
+
+    // Sample standard deviation, 0 until there are two samples
+    public double standardDeviation() {
+        return count > 1 ? Math.sqrt(Math.max(m2, 0) / (count - 1)) : 0;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public Transaction.TransactionCategory getTransactionCategory() {
+        return transactionCategory;
+    }
+
+    public void setTransactionCategory(Transaction.TransactionCategory transactionCategory) {
+        this.transactionCategory = transactionCategory;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public void setMean(double mean) {
+        this.mean = mean;
+    }
+
+    public double getM2() {
+        return m2;
+    }
+
+    public void setM2(double m2) {
+        this.m2 = m2;
+    }
+
+    public long getWrites() {
+        return writes;
+    }
+
+    public void setWrites(long writes) {
+        this.writes = writes;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.finance_tracker.Entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+
+// Tokens of this user issued before revoked_at are no longer accepted.
+// The row is dropped by MongoDB once every such token has expired anyway.
+@Document(collection = "token_revocations")
+public class TokenRevocation {
+
+    // The user's id
+    @Id
+    private String id;
+
+    @Indexed(name = "revoked_at")
+    @Field(name = "revoked_at")
+    private Instant revokedAt;
+
+    @Indexed(name = "expires_at_ttl", expireAfterSeconds = 0)
+    @Field(name = "expires_at")
+    private Instant expiresAt;
+
+    public TokenRevocation() {
+    }
+
+    public TokenRevocation(String id, Instant revokedAt, Instant expiresAt) {
+        this.id = id;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Instant getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(Instant revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
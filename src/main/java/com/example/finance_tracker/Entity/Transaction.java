@@ -5,6 +5,9 @@ import jakarta.validation.constraints.NotNull;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -13,6 +16,14 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Document(collection = "transactions")
+@CompoundIndexes({
+        // findByUserId, findByUserIdAndTransactionDateBetween, the report @Query/aggregation, exports and keyset pages
+        @CompoundIndex(name = "user_date_id", def = "{'user_id': 1, 'transaction_date': -1, '_id': -1}"),
+        // findByUserIdAndTransactionCategory and category-filtered keyset pages
+        @CompoundIndex(name = "user_category_date_id", def = "{'user_id': 1, 'transaction_category': 1, 'transaction_date': -1, '_id': -1}"),
+        // findByUserIdAndTransactionAmountBetween
+        @CompoundIndex(name = "user_amount", def = "{'user_id': 1, 'transaction_amount': 1}")
+})
 public class Transaction {
 
     @Id
@@ -23,10 +34,12 @@ public class Transaction {
     private String userId;
 
     @Field(name = "transaction_type")
+    @Indexed(name = "transaction_type") // findByTransactionType
     @NotNull(message = "Transaction type is required")
     private TransactionType transactionType;
 
     @Field(name = "transaction_category")
+    @Indexed(name = "transaction_category") // findByTransactionCategory
     private TransactionCategory transactionCategory;
 
     @Field(name = "transaction_date")
@@ -34,6 +47,7 @@ public class Transaction {
 
     private List<String> tags;
 
+    @Indexed(name = "recurring") // findByRecurringTrue
     private Boolean recurring; // Optional, so using Boolean instead of boolean
 
     @Field(name = "recurrence_pattern")
@@ -0,0 +1,45 @@
+package com.example.finance_tracker.Entity;
+
+// Outcome of one item in a batch transaction import
+public class TransactionBatchResult {
+
+    public enum Status {
+        CREATED, ERROR
+    }
+
+    private int index;
+    private Status status;
+    private String transactionId;
+    private String error;
+
+    public TransactionBatchResult() {
+    }
+
+    public TransactionBatchResult(int index, Status status, String transactionId, String error) {
+        this.index = index;
+        this.status = status;
+        this.transactionId = transactionId;
+        this.error = error;
+    }
+
+    public static TransactionBatchResult created(int index, String transactionId) {
+        return new TransactionBatchResult(index, Status.CREATED, transactionId, null);
+    }
+
+    public static TransactionBatchResult failed(int index, String error) {
+        return new TransactionBatchResult(index, Status.ERROR, null, error);
+    }
+
+    // Getters and Setters
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public String getTransactionId() { return transactionId; }
+    public void setTransactionId(String transactionId) { this.transactionId = transactionId; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,34 @@
+package com.example.finance_tracker.Entity;
+
+import java.util.List;
+
+// One page of a keyset-paginated transaction listing; pass "next" back as the cursor to get the following page
+public class TransactionPage {
+    private List<Transaction> items;
+    private String next; // null on the last page
+
+    public TransactionPage() {
+    }
+
+    public TransactionPage(List<Transaction> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    // Getters and setters
+    public List<Transaction> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Transaction> items) {
+        this.items = items;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
+}
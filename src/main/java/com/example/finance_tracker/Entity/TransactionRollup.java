@@ -0,0 +1,86 @@
+package com.example.finance_tracker.Entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Daily totals per (user, day, category, type), kept in step with the transactions collection.
+// "tagged" mirrors whether the transactions carry a tags field, which the report filter depends on.
+@Document(collection = "transaction_rollups")
+@CompoundIndex(name = "rollup_key",
+        def = "{'user_id': 1, 'day': 1, 'transaction_category': 1, 'transaction_type': 1, 'tagged': 1}",
+        unique = true)
+public class TransactionRollup {
+
+    @Id
+    private String id;
+
+    @Field(name = "user_id")
+    private String userId;
+
+    private LocalDate day;
+
+    @Field(name = "transaction_category")
+    private Transaction.TransactionCategory transactionCategory;
+
+    @Field(name = "transaction_type")
+    private Transaction.TransactionType transactionType;
+
+    private boolean tagged;
+
+    // Stored as Decimal128 so it can be $inc-ed and $sum-ed on the server
+    @Field(name = "total", targetType = FieldType.DECIMAL128)
+    private BigDecimal total;
+
+    private long count;
+
+    // Incremented by every $inc on the row; the rebuild only swaps in new totals if it has not moved
+    private long writes;
+
+    public TransactionRollup() {
+    }
+
+    public TransactionRollup(String userId, LocalDate day, Transaction.TransactionCategory transactionCategory,
+                             Transaction.TransactionType transactionType, boolean tagged, BigDecimal total, long count) {
+        this.userId = userId;
+        this.day = day;
+        this.transactionCategory = transactionCategory;
+        this.transactionType = transactionType;
+        this.tagged = tagged;
+        this.total = total;
+        this.count = count;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public LocalDate getDay() { return day; }
+    public void setDay(LocalDate day) { this.day = day; }
+
+    public Transaction.TransactionCategory getTransactionCategory() { return transactionCategory; }
+    public void setTransactionCategory(Transaction.TransactionCategory transactionCategory) { this.transactionCategory = transactionCategory; }
+
+    public Transaction.TransactionType getTransactionType() { return transactionType; }
+    public void setTransactionType(Transaction.TransactionType transactionType) { this.transactionType = transactionType; }
+
+    public boolean isTagged() { return tagged; }
+    public void setTagged(boolean tagged) { this.tagged = tagged; }
+
+    public BigDecimal getTotal() { return total; }
+    public void setTotal(BigDecimal total) { this.total = total; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+
+    public long getWrites() { return writes; }
+    public void setWrites(long writes) { this.writes = writes; }
+}
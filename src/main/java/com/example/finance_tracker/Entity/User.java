@@ -1,16 +1,19 @@
 package com.example.finance_tracker.Entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "users")
 public class User {
     @Id
     private String userId;
+    @Indexed(name = "email", unique = true) // findByEmail
     private String email;
     private String password;
     private String firstName;
     private String lastName;
+    @Indexed(name = "username", unique = true) // findByUsername
     private String username;
     private String role;
     private  String currency;
@@ -1,12 +1,23 @@
 package com.example.finance_tracker.Repository;
 
 import com.example.finance_tracker.Entity.Goal.Goal;
+import com.example.finance_tracker.Entity.Goal.GoalStatus;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface GoalRepository  extends MongoRepository<Goal, String> {
     List<Goal> findByUserId(String userId);
+
+    // Goals of the given users with one of the given statuses due between from and to (inclusive),
+    // read through a cursor. Callers must close the stream.
+    @Query("{ 'userId': { $in: ?0 }, 'status': { $in: ?3 }, 'endDate': { $gte: ?1, $lte: ?2 } }")
+    Stream<Goal> streamByUserIdInAndEndDateBetweenAndStatusIn(Collection<String> userIds, LocalDate from, LocalDate to,
+                                                             Collection<GoalStatus> statuses);
 }
@@ -0,0 +1,15 @@
+package com.example.finance_tracker.Repository;
+
+import com.example.finance_tracker.Entity.NotificationPreference;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NotificationPreferenceRepository extends MongoRepository<NotificationPreference, String> {
+    Optional<NotificationPreference> findByUserId(String userId);
+    List<NotificationPreference> findByUserIdIn(Collection<String> userIds);
+}
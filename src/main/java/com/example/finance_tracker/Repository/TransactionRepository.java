@@ -8,9 +8,10 @@ import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface TransactionRepository extends MongoRepository<Transaction, String> {
+public interface TransactionRepository extends MongoRepository<Transaction, String>, TransactionRepositoryCustom {
 
     // Find all transactions by user ID
     List<Transaction> findByUserId(String userId);
@@ -32,6 +33,13 @@ public interface TransactionRepository extends MongoRepository<Transaction, Stri
     // Find transactions by user ID and category
     List<Transaction> findByUserIdAndTransactionCategory(String userId, Transaction.TransactionCategory transactionCategory);
 
+    // Cursor-backed streams for exports; callers must close the stream
+    Stream<Transaction> streamByUserIdOrderByTransactionDateAsc(String userId);
+
+    // Both bounds inclusive (a derived "Between" would exclude them), like the report queries
+    @Query(value = "{ 'user_id': ?0, 'transaction_date': { $gte: ?1, $lte: ?2 } }", sort = "{ 'transaction_date': 1 }")
+    Stream<Transaction> streamByUserIdAndTransactionDateInRange(String userId, LocalDateTime startDate, LocalDateTime endDate);
+
     @Query(value = "{ 'user_id': ?0, " +
             "'transaction_date': { $gte: ?1, $lte: ?2 }, " +
             "$and: [ " +
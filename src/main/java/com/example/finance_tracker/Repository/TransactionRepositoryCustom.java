@@ -0,0 +1,45 @@
+package com.example.finance_tracker.Repository;
+
+import com.example.finance_tracker.Entity.Report;
+import com.example.finance_tracker.Entity.Transaction;
+import org.bson.Document;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Queries that need MongoTemplate instead of derived/@Query methods
+public interface TransactionRepositoryCustom {
+
+    // Compute report totals on the server with one $match + $group pipeline.
+    // Uses the same filter as findByUserIdAndTransactionDateBetweenAndTransactionCategoryInAndTagsIn.
+    Report aggregateReport(String userId,
+                           LocalDateTime startDate,
+                           LocalDateTime endDate,
+                           List<String> categories,
+                           List<String> tags);
+
+    // Totals per (bucket, transaction_type, transaction_category) over [from, to) with one $match + $group.
+    // bucket is transaction_date truncated with $dateTrunc to unit ("day", "week" or "month") in timeZone,
+    // weeks starting on Monday; rows are shaped { _id: { bucket, transaction_type, transaction_category }, total }.
+    List<Document> aggregateSeries(String userId,
+                                   Instant from,
+                                   Instant to,
+                                   String unit,
+                                   String timeZone,
+                                   List<String> categories);
+
+    // Unordered insertMany: every row is attempted even if some fail. Returns the write error message of each
+    // failed row by its index in transactions; empty when all were inserted.
+    Map<Integer, String> insertUnordered(List<Transaction> transactions);
+
+    // Keyset page of a user's transactions, newest first, ordered by (transaction_date, _id) descending.
+    // Returns the rows strictly after (afterDate, afterId); both null for the first page, and afterDate alone
+    // null after an undated row (rows without a transaction_date come last). Category is optional.
+    List<Transaction> findPageByUserId(String userId,
+                                       Transaction.TransactionCategory category,
+                                       LocalDateTime afterDate,
+                                       String afterId,
+                                       int limit);
+}
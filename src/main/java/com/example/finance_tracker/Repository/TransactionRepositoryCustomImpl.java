@@ -0,0 +1,120 @@
+package com.example.finance_tracker.Repository;
+
+import com.example.finance_tracker.Entity.Report;
+import com.example.finance_tracker.Entity.Transaction;
+import com.example.finance_tracker.Utility.ReportUtil;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TransactionRepositoryCustomImpl implements TransactionRepositoryCustom {
+
+    private static final String COLLECTION = "transactions";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public Report aggregateReport(String userId, LocalDateTime startDate, LocalDateTime endDate,
+                                  List<String> categories, List<String> tags) {
+
+        // Same filter as the @Query on TransactionRepository
+        Criteria criteria = Criteria.where("user_id").is(userId)
+                .and("transaction_date").gte(startDate).lte(endDate)
+                .andOperator(
+                        new Criteria().orOperator(
+                                Criteria.where("transaction_category").in(categories),
+                                Criteria.where("transaction_category").exists(false)),
+                        new Criteria().orOperator(
+                                Criteria.where("tags").in(tags),
+                                Criteria.where("tags").exists(false)));
+
+        // One row per (type, category); amounts are converted server side so
+        // string-encoded BigDecimals are summed as decimals, not skipped
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.group("transaction_type", "transaction_category")
+                        .sum(ConvertOperators.valueOf("transaction_amount").convertToDecimal()).as("total"));
+
+        List<Document> rows = mongoTemplate.aggregate(aggregation, COLLECTION, Document.class).getMappedResults();
+
+        return ReportUtil.fromGroupedRows(rows);
+    }
+
+    @Override
+    public List<Document> aggregateSeries(String userId, Instant from, Instant to, String unit, String timeZone,
+                                          List<String> categories) {
+        Criteria criteria = Criteria.where("user_id").is(userId)
+                .and("transaction_date").gte(from).lt(to)
+                .orOperator(
+                        Criteria.where("transaction_category").in(categories),
+                        Criteria.where("transaction_category").exists(false));
+
+        // $dateTrunc (MongoDB 5.0+) has no typed builder here, so the $group stage is written out
+        Document bucket = new Document("$dateTrunc", new Document("date", "$transaction_date")
+                .append("unit", unit)
+                .append("timezone", timeZone)
+                .append("startOfWeek", "monday"));
+        AggregationOperation group = context -> new Document("$group", new Document("_id", new Document("bucket", bucket)
+                .append("transaction_type", "$transaction_type")
+                .append("transaction_category", "$transaction_category"))
+                .append("total", new Document("$sum", new Document("$toDecimal", "$transaction_amount"))));
+
+        Aggregation aggregation = Aggregation.newAggregation(Aggregation.match(criteria), group);
+        return mongoTemplate.aggregate(aggregation, COLLECTION, Document.class).getMappedResults();
+    }
+
+    @Override
+    public Map<Integer, String> insertUnordered(List<Transaction> transactions) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Transaction.class).insert(transactions).execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            Map<Integer, String> errors = new HashMap<>();
+            e.getErrors().forEach(error -> errors.put(error.getIndex(), error.getMessage()));
+            return errors;
+        }
+    }
+
+    @Override
+    public List<Transaction> findPageByUserId(String userId, Transaction.TransactionCategory category,
+                                              LocalDateTime afterDate, String afterId, int limit) {
+        Criteria criteria = Criteria.where("user_id").is(userId);
+        if (category != null) {
+            criteria = criteria.and("transaction_category").is(category);
+        }
+        // Range predicate on the sort key instead of skip(), so every page is an index seek
+        // Undated rows sort after every dated one, since null is the lowest BSON value
+        if (afterId != null) {
+            ObjectId lastId = new ObjectId(afterId);
+            if (afterDate != null) {
+                criteria = criteria.orOperator(
+                        Criteria.where("transaction_date").lt(afterDate),
+                        Criteria.where("transaction_date").is(afterDate).and("_id").lt(lastId),
+                        Criteria.where("transaction_date").is(null));
+            } else {
+                criteria = criteria.and("transaction_date").is(null).and("_id").lt(lastId);
+            }
+        }
+
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "transaction_date", "_id"))
+                .limit(limit);
+        return mongoTemplate.find(query, Transaction.class);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.User;
+import com.example.finance_tracker.Repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Password login: one user lookup and one bcrypt check per attempt.
+// Bcrypt runs on its own bounded pool, so a burst of logins queues (or is turned away) there
+// instead of tying up the web server's request threads.
+@Service
+public class AuthService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
+
+    // $2a$10$... -> cost 10
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d\\d)\\$");
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final MongoTemplate mongoTemplate;
+    private final int bcryptStrength;
+    private final ThreadPoolExecutor bcryptExecutor;
+
+    @Autowired
+    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, MongoTemplate mongoTemplate,
+                       @Value("${security.bcrypt.strength:10}") int bcryptStrength,
+                       @Value("${security.bcrypt.threads:0}") int bcryptThreads,
+                       @Value("${security.bcrypt.queue-capacity:200}") int queueCapacity) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.mongoTemplate = mongoTemplate;
+        this.bcryptStrength = bcryptStrength;
+
+        // Default: one thread per core, since bcrypt is pure CPU work
+        int threads = bcryptThreads > 0 ? bcryptThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.bcryptExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bcryptExecutor.shutdown();
+    }
+
+    // ✅ Check a username/password pair. Completes with the user, or exceptionally with
+    // BadCredentialsException (unknown user / wrong password) or RejectedExecutionException (too many logins queued).
+    public CompletableFuture<User> authenticate(String username, String password) {
+        Optional<User> found = userRepository.findByUsername(username);
+        if (found.isEmpty()) {
+            return CompletableFuture.failedFuture(new BadCredentialsException("Incorrect username"));
+        }
+        User user = found.get();
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                if (password == null || user.getPassword() == null || !passwordEncoder.matches(password, user.getPassword())) {
+                    throw new BadCredentialsException("Invalid Password");
+                }
+                if (needsRehash(user.getPassword())) {
+                    rehash(user, password);
+                }
+                return user;
+            }, bcryptExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // A stored hash made with a different cost than security.bcrypt.strength is replaced on the next login
+    boolean needsRehash(String hash) {
+        Matcher matcher = BCRYPT_COST.matcher(hash);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != bcryptStrength;
+    }
+
+    // Only replaces the hash that was just verified, so a concurrent password change is never overwritten
+    private void rehash(User user, String password) {
+        try {
+            String newHash = passwordEncoder.encode(password);
+            Query query = new Query(Criteria.where("_id").is(user.getUserId()).and("password").is(user.getPassword()));
+            mongoTemplate.updateFirst(query, new Update().set("password", newHash), User.class);
+            user.setPassword(newHash);
+            logger.info("Rehashed password of user {} with bcrypt cost {}", user.getUsername(), bcryptStrength);
+        } catch (RuntimeException e) {
+            // The login itself succeeded; the rehash is retried on the next one
+            logger.warn("Failed to rehash password of user {}", user.getUsername(), e);
+        }
+    }
+}
@@ -2,16 +2,29 @@ package com.example.finance_tracker.Service;
 
 import com.example.finance_tracker.Entity.Budget;
 import com.example.finance_tracker.Repository.BudgetRepository;
+import com.example.finance_tracker.Utility.IdempotentIncrement;
+import com.example.finance_tracker.Utility.Money;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class BudgetService {
     private final BudgetRepository budgetRepository;
+    private final MongoTemplate mongoTemplate;
 
-    public BudgetService(BudgetRepository budgetRepository) {
+    public BudgetService(BudgetRepository budgetRepository, MongoTemplate mongoTemplate) {
         this.budgetRepository = budgetRepository;
+        this.mongoTemplate = mongoTemplate;
     }
 
     // ✅ Create or Update Budget (Now handles spentAmount)
@@ -55,6 +68,34 @@ public class BudgetService {
         budgetRepository.deleteById(id);
     }
 
+    // ✅ Atomically add outbox expenses to the first budget of the user in that category (single round trip,
+    // no lost updates). Keyed by outbox event id: an event that was already applied adds nothing.
+    public void addToSpentAmount(String userId, String budgetCategory, Map<String, BigDecimal> amountsByEventId) {
+        Query query = new Query(Criteria.where("user_id").is(userId).and("budget_category").is(budgetCategory));
+        mongoTemplate.updateFirst(query, AggregationUpdate.from(IdempotentIncrement.stages("spent_amount", amountsByEventId)),
+                Budget.class);
+    }
+
+    // ✅ Atomically add an expense to a budget by ID and return the updated budget
+    public Budget addToSpentAmountById(String id, BigDecimal amount) {
+        Query query = new Query(Criteria.where("_id").is(id));
+        Budget budget = mongoTemplate.findAndModify(query, incrementSpentAmount(amount),
+                FindAndModifyOptions.options().returnNew(true), Budget.class);
+        if (budget == null) {
+            throw new RuntimeException("Budget not found");
+        }
+        return budget;
+    }
+
+    // spent_amount += amount, evaluated on the server. $toDecimal/$ifNull accept Decimal128, the
+    // string-encoded values of documents not yet migrated by DecimalMigrationService and a missing field.
+    private AggregationUpdate incrementSpentAmount(BigDecimal amount) {
+        return AggregationUpdate.update()
+                .set("spent_amount").toValue(ArithmeticOperators.Add.valueOf(
+                                ConvertOperators.ToDecimal.toDecimal(ConditionalOperators.ifNull("spent_amount").then(0)))
+                        .add(Money.toDecimal128(amount)));
+    }
+
     // ✅ Check if user is exceeding budget (Now updates spentAmount)
     public boolean isExceedingBudget(Budget budget, BigDecimal newExpense) {
         BigDecimal newTotal = budget.getCurrentSpentAmount().add(newExpense);
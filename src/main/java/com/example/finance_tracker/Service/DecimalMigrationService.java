@@ -0,0 +1,149 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.JobWatermark;
+import com.example.finance_tracker.Utility.ReportUtil;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Rewrites money fields that older versions stored as strings into Decimal128, in place.
+// Works through each collection in _id order in batches, one server-side updateMany per batch, and
+// records the last _id after every batch, so an interrupted migration resumes where it stopped.
+@Service
+public class DecimalMigrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DecimalMigrationService.class);
+
+    // Collection -> BigDecimal fields stored in it
+    static final Map<String, List<String>> MONEY_FIELDS = new LinkedHashMap<>();
+
+    static {
+        MONEY_FIELDS.put("transactions", List.of("transaction_amount"));
+        MONEY_FIELDS.put("budgets", List.of("budget_amount", "spent_amount"));
+    }
+
+    private static final String CHECKPOINT_PREFIX = "decimal128_migration:";
+
+    // Totals of one field, computed two ways
+    public record FieldCheck(String collection, String field, long documents, long notDecimal,
+                             BigDecimal valueTotal, BigDecimal decimalTotal) {
+
+        // Every value is a Decimal128 and the server-side $sum sees the same total the stored values represent
+        public boolean isMigrated() {
+            return notDecimal == 0 && valueTotal.compareTo(decimalTotal) == 0;
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+
+    public DecimalMigrationService(MongoTemplate mongoTemplate, @Value("${migration.decimal128.batch-size:1000}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+    }
+
+    // ✅ Convert every string money value to Decimal128; returns the number of documents changed
+    public long migrate() {
+        long changed = 0;
+        for (Map.Entry<String, List<String>> entry : MONEY_FIELDS.entrySet()) {
+            changed += migrateCollection(entry.getKey(), entry.getValue());
+        }
+        return changed;
+    }
+
+    // ✅ Compare, per field, the total of the stored values (whatever their type) with what $sum sees
+    public List<FieldCheck> verify() {
+        List<FieldCheck> checks = new ArrayList<>();
+        MONEY_FIELDS.forEach((collection, fields) -> fields.forEach(field -> checks.add(checkField(collection, field))));
+        return checks;
+    }
+
+    private long migrateCollection(String collection, List<String> fields) {
+        MongoCollection<Document> documents = mongoTemplate.getCollection(collection);
+        String checkpointId = CHECKPOINT_PREFIX + collection;
+        JobWatermark checkpoint = mongoTemplate.findById(checkpointId, JobWatermark.class);
+        Object after = checkpoint != null ? parseId(checkpoint.getLastId()) : null;
+
+        // $convert leaves Decimal128 values as they are and keeps unparsable strings, which verify() reports
+        Document set = new Document();
+        for (String field : fields) {
+            set.append(field, new Document("$convert", new Document("input", "$" + field)
+                    .append("to", "decimal")
+                    .append("onError", "$" + field)
+                    .append("onNull", "$" + field)));
+        }
+        List<Bson> pipeline = List.of(new Document("$set", set));
+        Bson anyString = Filters.or(fields.stream().map(field -> Filters.type(field, "string")).toList());
+
+        long changed = 0;
+        long scanned = 0;
+        while (true) {
+            List<Object> ids = new ArrayList<>(batchSize);
+            documents.find(after != null ? Filters.gt("_id", after) : new Document())
+                    .projection(Projections.include("_id"))
+                    .sort(Sorts.ascending("_id"))
+                    .limit(batchSize)
+                    .forEach(document -> ids.add(document.get("_id")));
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            changed += documents.updateMany(Filters.and(Filters.in("_id", ids), anyString), pipeline).getModifiedCount();
+            scanned += ids.size();
+            after = ids.get(ids.size() - 1);
+            mongoTemplate.save(new JobWatermark(checkpointId, after.toString(), Instant.now()));
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        logger.info("Decimal128 migration of {}: {} documents scanned, {} converted", collection, scanned, changed);
+        return changed;
+    }
+
+    private FieldCheck checkField(String collection, String field) {
+        Document convertible = new Document("$convert", new Document("input", "$" + field)
+                .append("to", "decimal").append("onError", null).append("onNull", null));
+        Document isDecimal = new Document("$eq", List.of(new Document("$type", "$" + field), "decimal"));
+        Document present = new Document("$ne", List.of(new Document("$type", "$" + field), "missing"));
+
+        Document group = new Document("_id", null)
+                .append("documents", new Document("$sum", 1))
+                .append("notDecimal", new Document("$sum", new Document("$cond",
+                        List.of(new Document("$and", List.of(present, new Document("$not", List.of(isDecimal)))), 1, 0))))
+                .append("valueTotal", new Document("$sum", convertible))
+                .append("decimalTotal", new Document("$sum", "$" + field));
+        Document result = mongoTemplate.getCollection(collection)
+                .aggregate(List.of(new Document("$group", group)))
+                .first();
+
+        if (result == null) {
+            return new FieldCheck(collection, field, 0, 0, BigDecimal.ZERO, BigDecimal.ZERO);
+        }
+        return new FieldCheck(collection, field,
+                ((Number) result.get("documents")).longValue(),
+                ((Number) result.get("notDecimal")).longValue(),
+                ReportUtil.toBigDecimal(result.get("valueTotal")),
+                ReportUtil.toBigDecimal(result.get("decimalTotal")));
+    }
+
+    // Checkpoints are stored as text; ids of these collections are ObjectIds
+    private static Object parseId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.EmailMessage;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Drains the email queue on a worker pool, so a slow provider never holds up the code that sent the alert.
+// Messages are claimed in batches from a LeasedQueue (several nodes can dispatch at once) and sent to
+// SendGrid as multi-personalization requests, renewing the lease before each one. Failures back off
+// exponentially and end up in a dead-letter collection. Each worker sends one batch at a time; the
+// @Scheduled thread only claims batches and hands them over.
+@Component
+public class EmailDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailDispatcher.class);
+
+    private static final String DEAD_LETTER_COLLECTION = "email_dead_letters";
+
+    private final SendGridEmailService sendGridEmailService;
+    private final LeasedQueue<EmailMessage> queue;
+    private final ExecutorService executor;
+
+    private final int batchSize;
+    private final int recipientsPerRequest;
+    private final int workers;
+
+    public EmailDispatcher(MongoTemplate mongoTemplate, SendGridEmailService sendGridEmailService,
+                           @Value("${email.batch-size:2000}") int batchSize,
+                           @Value("${email.recipients-per-request:1000}") int recipientsPerRequest,
+                           @Value("${email.max-attempts:8}") int maxAttempts,
+                           @Value("${email.max-backoff-seconds:900}") long maxBackoffSeconds,
+                           @Value("${email.lease-seconds:120}") long leaseSeconds,
+                           @Value("${email.workers:4}") int workers) {
+        this.sendGridEmailService = sendGridEmailService;
+        this.queue = new LeasedQueue<>(mongoTemplate, EmailMessage.class,
+                EmailMessage.Status.PENDING, EmailMessage.Status.SENDING, EmailMessage.Status.SENT, "sent_at",
+                DEAD_LETTER_COLLECTION, Duration.ofSeconds(leaseSeconds), maxAttempts, maxBackoffSeconds);
+        this.batchSize = batchSize;
+        this.recipientsPerRequest = Math.min(recipientsPerRequest, SendGridEmailService.MAX_PERSONALIZATIONS);
+        this.workers = workers;
+        this.executor = Executors.newFixedThreadPool(workers);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // Returns at once: the @Scheduled thread is shared with the outbox, token, key ring and report job tasks,
+    // and sending at the provider's rate limit takes minutes. The next run tops the workers up again.
+    @Scheduled(fixedDelayString = "${email.poll-interval-ms:1000}")
+    public void dispatch() {
+        queue.dispatch(batchSize, workers, executor, this::process);
+    }
+
+    // True while batches are being sent by this node
+    boolean isBusy() {
+        return queue.isBusy();
+    }
+
+    void process(List<EmailMessage> messages) {
+        // Batchable messages share requests of up to recipientsPerRequest; the rest go one per request
+        List<List<EmailMessage>> requests = new ArrayList<>();
+        List<EmailMessage> current = new ArrayList<>();
+        for (EmailMessage message : messages) {
+            if (!SendGridEmailService.isBatchable(message)) {
+                requests.add(List.of(message));
+                continue;
+            }
+            current.add(message);
+            if (current.size() == recipientsPerRequest) {
+                requests.add(current);
+                current = new ArrayList<>();
+            }
+        }
+        if (!current.isEmpty()) {
+            requests.add(current);
+        }
+
+        for (List<EmailMessage> request : requests) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try {
+                sendRequest(request);
+            } catch (RuntimeException e) {
+                logger.error("Email request failed unexpectedly", e);
+            }
+        }
+    }
+
+    private void sendRequest(List<EmailMessage> request) {
+        // A batch of solo messages can take longer to send than the lease at the provider's rate limit.
+        // Renew the lease right before each request and leave out messages another node has taken over
+        // after their lease ran out, so no message is sent twice.
+        List<EmailMessage> owned = queue.renewLease(request);
+        if (owned.isEmpty()) {
+            return;
+        }
+
+        SendGridEmailService.SendResult result;
+        try {
+            result = sendGridEmailService.send(owned);
+        } catch (RuntimeException e) {
+            result = new SendGridEmailService.SendResult(SendGridEmailService.Outcome.RETRY, 0, e.getMessage());
+        }
+
+        switch (result.outcome()) {
+            case SENT -> queue.markDone(owned);
+            case RETRY -> {
+                logger.warn("Sending {} emails failed, will retry: {}", owned.size(), result.detail());
+                owned.forEach(message -> queue.markFailed(message, result.detail()));
+            }
+            case REJECTED -> {
+                if (owned.size() > 1) {
+                    // Find the offending message by sending each one on its own; this round does not count as an attempt
+                    logger.warn("Request with {} emails was rejected, splitting it: {}", owned.size(), result.detail());
+                    owned.forEach(message -> queue.release(message, Instant.now(), new Update().set("solo", true)));
+                } else {
+                    queue.deadLetter(owned.get(0), owned.get(0).getAttempts() + 1, result.detail());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.EmailMessage;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+// Persistent outbound email queue; callers return as soon as the message is stored
+@Service
+public class EmailQueueService {
+
+    private final MongoTemplate mongoTemplate;
+
+    public EmailQueueService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // ✅ Queue one email for delivery by the EmailDispatcher
+    public void enqueue(String toEmail, String subject, String content) {
+        mongoTemplate.insert(new EmailMessage(toEmail, subject, content));
+    }
+
+    // ✅ Queue many emails with one insertMany
+    public void enqueueAll(List<EmailMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        mongoTemplate.insert(messages, EmailMessage.class);
+    }
+}
@@ -4,28 +4,44 @@ import com.example.finance_tracker.Entity.Budget;
 import com.example.finance_tracker.Entity.Goal.Goal;
 import com.example.finance_tracker.Entity.Goal.GoalStatus;
 import com.example.finance_tracker.Repository.GoalRepository;
+import com.example.finance_tracker.Utility.IdempotentIncrement;
+import com.example.finance_tracker.Utility.Money;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 
 @Service
 public class GoalService {
     private final GoalRepository goalRepository;
+    private final MongoTemplate mongoTemplate;
 
     //constructor
-    public GoalService(GoalRepository goalRepository) {
+    public GoalService(GoalRepository goalRepository, MongoTemplate mongoTemplate) {
         this.goalRepository = goalRepository;
+        this.mongoTemplate = mongoTemplate;
     }
 
     // ✅ create a gaol
     public Goal createGoal(Goal goal) {
-        goal.setSavedAmount(0);
+        requireTarget(goal.getTargetAmount());
+        goal.setSavedAmount(Money.ZERO);
         goal.setStatus(GoalStatus.NOT_STARTED);
         return goalRepository.save(goal);
     }
@@ -52,14 +68,29 @@ public class GoalService {
 
         goal.setGoalName(updatedGoal.getGoalName());
         goal.setStatus(updatedGoal.getStatus());
+        requireTarget(updatedGoal.getTargetAmount());
         goal.setTargetAmount(updatedGoal.getTargetAmount());
-        goal.setSavedAmount(updatedGoal.getSavedAmount());
+        // A request without a saved amount keeps the one already stored
+        if (updatedGoal.getSavedAmount() != null) {
+            goal.setSavedAmount(updatedGoal.getSavedAmount());
+        }
         goal.setStartDate(updatedGoal.getStartDate());
         goal.setEndDate(updatedGoal.getEndDate());
 
         return goalRepository.save(goal);
     }
 
+    private static void requireTarget(Money targetAmount) {
+        if (targetAmount == null || targetAmount.isNegative()) {
+            throw new IllegalArgumentException("targetAmount is required and must not be negative");
+        }
+    }
+
+    // Goals stored before the amounts were validated may still have them missing
+    static Money orZero(Money amount) {
+        return amount == null ? Money.ZERO : amount;
+    }
+
     // ✅ delete goal
     public void deleteGoal(String goalId) {
         goalRepository.deleteById(goalId);
@@ -74,41 +105,52 @@ public class GoalService {
         }
 
         Goal goal = optionalGoal.get();
-        double savedAmount = goal.getSavedAmount();
-        double targetAmount = goal.getTargetAmount();
+        Money savedAmount = orZero(goal.getSavedAmount());
+        Money targetAmount = orZero(goal.getTargetAmount());
 
-        if (savedAmount >= targetAmount) {
-            double extra = savedAmount - targetAmount;
-            return String.format("100%% (Extra saved: %.2f)", extra);
+        if (savedAmount.compareTo(targetAmount) >= 0) {
+            Money extra = savedAmount.minus(targetAmount);
+            return String.format("100%% (Extra saved: %.2f)", extra.toBigDecimal());
         } else {
-            double remaining = targetAmount - savedAmount;
-            double percentage = (savedAmount / targetAmount) * 100;
-            return String.format("%.0f%% (Remaining: %.2f)", percentage, remaining);
+            Money remaining = targetAmount.minus(savedAmount);
+            double percentage = savedAmount.percentOf(targetAmount);
+            return String.format("%.0f%% (Remaining: %.2f)", percentage, remaining.toBigDecimal());
         }
     }
 
-    // ✅ add money to savings of a goal
+    // ✅ add money to savings of a goal (atomic: amount and status are updated in one server-side step)
     public Goal addMoneyToGoal(Goal request) {
-        Optional<Goal> optionalGoal = goalRepository.findById(request.getId());
-
-        if (optionalGoal.isEmpty()) {
-            return null;  // You may handle this case in the controller instead of throwing an error
-        }
-
-        Goal goal = optionalGoal.get();
-        double savedAmount = goal.getSavedAmount();
-        double targetAmount = goal.getTargetAmount();
-        double newAmount = request.getSavedAmount();
+        Query query = new Query(Criteria.where("_id").is(request.getId()));
+        // Returns null if the goal does not exist; handled in the controller
+        return mongoTemplate.findAndModify(query, addToSavedAmount(request.getSavedAmount()),
+                FindAndModifyOptions.options().returnNew(true), Goal.class);
+    }
 
-        savedAmount += newAmount;
-        goal.setSavedAmount(savedAmount);
+    // ✅ add outbox incomes to every goal of a user with a single atomic update.
+    // Keyed by outbox event id: an event that was already applied to a goal adds nothing to it.
+    public void addMoneyToUserGoals(String userId, Map<String, Money> amountsByEventId) {
+        Map<String, BigDecimal> amounts = new LinkedHashMap<>();
+        amountsByEventId.forEach((eventId, amount) -> amounts.put(eventId, amount.toBigDecimal()));
+        AggregationUpdate update = AggregationUpdate.from(IdempotentIncrement.stages("savedAmount", amounts));
+        Query query = new Query(Criteria.where("userId").is(userId));
+        mongoTemplate.updateMulti(query, withStatus(update), Goal.class);
+    }
 
-        if (savedAmount >= targetAmount) {
-            goal.setStatus(GoalStatus.COMPLETED);
-        } else {
-            goal.setStatus(GoalStatus.IN_PROGRESS);
-        }
+    // savedAmount += amount, then status = COMPLETED if savedAmount >= targetAmount else IN_PROGRESS.
+    // The second $set stage sees the new savedAmount, so both fields change together.
+    // Decimal128 arithmetic keeps the stored amount exact (older double values are promoted on the first add).
+    private AggregationUpdate addToSavedAmount(Money amount) {
+        return withStatus(AggregationUpdate.update()
+                .set("savedAmount").toValue(ArithmeticOperators.Add.valueOf(
+                        ConditionalOperators.ifNull("savedAmount").then(0)).add(amount.toDecimal128())));
+    }
 
-        return goalRepository.save(goal);
+    // Appends the stage that sets status from the (already updated) savedAmount
+    private AggregationUpdate withStatus(AggregationUpdate update) {
+        return update
+                .set("status").toValue(ConditionalOperators
+                        .when(ComparisonOperators.valueOf("savedAmount").greaterThanEqualTo("targetAmount"))
+                        .then(GoalStatus.COMPLETED.name())
+                        .otherwise(GoalStatus.IN_PROGRESS.name()));
     }
 }
@@ -0,0 +1,120 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.JobRun;
+import com.example.finance_tracker.Entity.JobShard;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Runs of a job split into user _id ranges ("shards") that any node can lease, checkpoint and finish.
+// Every write is conditional on the lease owner, so a node that lost its lease cannot overwrite the new owner's progress.
+@Service
+public class JobShardService {
+
+    private final MongoTemplate mongoTemplate;
+
+    public JobShardService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // ✅ Create a run and its shards, one per _id range between the boundaries.
+    // Idempotent: if the run already exists it is returned unchanged, and missing shards are created from its own boundaries.
+    public JobRun startRun(String job, String runId, String fromId, String toId, List<String> shardBoundaries) {
+        Instant now = Instant.now();
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(runId)),
+                new Update().setOnInsert("job", job)
+                        .setOnInsert("from_id", fromId)
+                        .setOnInsert("to_id", toId)
+                        .setOnInsert("shard_count", shardBoundaries.size() + 1)
+                        .setOnInsert("shard_boundaries", shardBoundaries)
+                        .setOnInsert("status", JobRun.Status.RUNNING)
+                        .setOnInsert("created_at", now),
+                JobRun.class);
+        JobRun run = mongoTemplate.findById(runId, JobRun.class);
+        List<String> boundaries = run.getShardBoundaries() != null ? run.getShardBoundaries() : List.of();
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, JobShard.class);
+        for (int shard = 0; shard < run.getShardCount(); shard++) {
+            Update update = new Update().setOnInsert("job", job)
+                    .setOnInsert("run_id", runId)
+                    .setOnInsert("shard", shard)
+                    .setOnInsert("status", JobShard.Status.PENDING)
+                    .setOnInsert("processed_users", 0L)
+                    .setOnInsert("created_at", now);
+            if (shard > 0) {
+                update.setOnInsert("range_start", boundaries.get(shard - 1));
+            }
+            if (shard < boundaries.size()) {
+                update.setOnInsert("range_end", boundaries.get(shard));
+            }
+            bulk.upsert(new Query(Criteria.where("_id").is(runId + ":" + shard)), update);
+        }
+        bulk.execute();
+        return run;
+    }
+
+    // ✅ Lease a pending shard of the job, or a running one whose owner stopped renewing; null when none is left
+    public JobShard claim(String job, String owner, Duration lease) {
+        Instant now = Instant.now();
+        Query query = new Query(Criteria.where("job").is(job).orOperator(
+                Criteria.where("status").is(JobShard.Status.PENDING),
+                Criteria.where("status").is(JobShard.Status.RUNNING).and("locked_until").lt(now)));
+        return mongoTemplate.findAndModify(query,
+                new Update().set("status", JobShard.Status.RUNNING)
+                        .set("owner", owner)
+                        .set("locked_until", now.plus(lease))
+                        .set("updated_at", now),
+                FindAndModifyOptions.options().returnNew(true), JobShard.class);
+    }
+
+    // ✅ Record progress and renew the lease; false when the lease was lost and the caller must stop
+    public boolean checkpoint(JobShard shard, String owner, String checkpoint, long processedUsers, Duration lease) {
+        Instant now = Instant.now();
+        boolean kept = mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(shard.getId()).and("owner").is(owner).and("status").is(JobShard.Status.RUNNING)),
+                new Update().set("checkpoint", checkpoint)
+                        .set("processed_users", processedUsers)
+                        .set("locked_until", now.plus(lease))
+                        .set("updated_at", now),
+                JobShard.class).getMatchedCount() == 1;
+        if (kept) {
+            shard.setCheckpoint(checkpoint);
+            shard.setProcessedUsers(processedUsers);
+        }
+        return kept;
+    }
+
+    // ✅ Mark a shard done; false when the lease was lost first
+    public boolean complete(JobShard shard, String owner) {
+        return mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(shard.getId()).and("owner").is(owner).and("status").is(JobShard.Status.RUNNING)),
+                new Update().set("status", JobShard.Status.DONE)
+                        .set("updated_at", Instant.now())
+                        .unset("locked_until"),
+                JobShard.class).getMatchedCount() == 1;
+    }
+
+    // ✅ Close the run once all its shards are done. Returns the run only to the one caller that closed it.
+    public JobRun finishRunIfComplete(String runId) {
+        if (mongoTemplate.exists(new Query(Criteria.where("run_id").is(runId).and("status").ne(JobShard.Status.DONE)), JobShard.class)) {
+            return null;
+        }
+        return mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(runId).and("status").is(JobRun.Status.RUNNING)),
+                new Update().set("status", JobRun.Status.FINISHED).set("finished_at", Instant.now()),
+                FindAndModifyOptions.options().returnNew(true), JobRun.class);
+    }
+
+    // ✅ Get a run by id
+    public JobRun getRun(String runId) {
+        return mongoTemplate.findById(runId, JobRun.class);
+    }
+}
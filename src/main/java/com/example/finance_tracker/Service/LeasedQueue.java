@@ -0,0 +1,193 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.Leased;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// A collection used as a work queue by several nodes at once. Documents wait in the pending status until
+// next_attempt_at, are claimed in batches (claimed_by, locked_until) and end in the done status, back in
+// pending with an exponential backoff, or in a dead-letter collection. A claim whose lease ran out can be
+// taken over by another node, so every state change here is conditioned on the claim.
+// Used by the OutboxDispatcher and the EmailDispatcher; the statuses are theirs.
+public final class LeasedQueue<T extends Leased> {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeasedQueue.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final Class<T> type;
+    private final Enum<?> pending;
+    private final Enum<?> claimed;
+    private final Enum<?> done;
+    // Timestamp set together with the done status; the collection's TTL index expires documents by it
+    private final String doneAtField;
+    private final String deadLetterCollection;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final long maxBackoffSeconds;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // Batches handed to a worker and not finished yet
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public LeasedQueue(MongoTemplate mongoTemplate, Class<T> type, Enum<?> pending, Enum<?> claimed, Enum<?> done,
+                       String doneAtField, String deadLetterCollection, Duration lease, int maxAttempts,
+                       long maxBackoffSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.type = type;
+        this.pending = pending;
+        this.claimed = claimed;
+        this.done = done;
+        this.doneAtField = doneAtField;
+        this.deadLetterCollection = deadLetterCollection;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.maxBackoffSeconds = maxBackoffSeconds;
+    }
+
+    // Claims a batch for every idle worker, up to maxInFlight, and hands it to executor without waiting for it:
+    // callers run on the shared @Scheduled thread. Batches still in flight keep their workers.
+    public void dispatch(int batchSize, int maxInFlight, Executor executor, Consumer<List<T>> process) {
+        while (true) {
+            int active = inFlight.get();
+            if (active >= maxInFlight) {
+                return;
+            }
+            if (!inFlight.compareAndSet(active, active + 1)) {
+                continue;
+            }
+            List<T> batch;
+            try {
+                batch = claimBatch(batchSize);
+            } catch (RuntimeException e) {
+                inFlight.decrementAndGet();
+                throw e;
+            }
+            if (batch.isEmpty()) {
+                inFlight.decrementAndGet();
+                return;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        process.accept(batch);
+                    } catch (RuntimeException e) {
+                        logger.error("{} batch failed unexpectedly", type.getSimpleName(), e);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the batch is claimed again once its lease runs out
+                inFlight.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    // True while batches are being worked on by this node
+    public boolean isBusy() {
+        return inFlight.get() > 0;
+    }
+
+    // Claim up to batchSize ready documents for this node
+    public List<T> claimBatch(int batchSize) {
+        Instant now = Instant.now();
+        Criteria ready = new Criteria().orOperator(
+                Criteria.where("status").is(pending).and("next_attempt_at").lte(now),
+                Criteria.where("status").is(claimed).and("locked_until").lt(now));
+
+        Query candidates = new Query(ready).limit(batchSize);
+        candidates.fields().include("_id");
+        List<String> ids = mongoTemplate.find(candidates, type).stream().map(Leased::getId).toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // Only documents still ready at this point are taken, so two nodes never claim the same one
+        String claim = nodeId + ":" + UUID.randomUUID();
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("_id").in(ids).andOperator(ready)),
+                new Update().set("status", claimed)
+                        .set("claimed_by", claim)
+                        .set("locked_until", now.plus(lease)),
+                type);
+        return mongoTemplate.find(new Query(Criteria.where("claimed_by").is(claim)), type);
+    }
+
+    // Extend the lease of the documents this node still holds, and return those documents. Called right
+    // before each piece of work, since earlier work of the same batch may have used up much of the lease.
+    public List<T> renewLease(List<T> items) {
+        Query owned = owned(items);
+        mongoTemplate.updateMulti(owned, new Update().set("locked_until", Instant.now().plus(lease)), type);
+        return mongoTemplate.find(owned, type);
+    }
+
+    // Documents of one batch share a claim
+    public void markDone(List<T> items) {
+        mongoTemplate.updateMulti(owned(items),
+                new Update().set("status", done)
+                        .set(doneAtField, Instant.now())
+                        .unset("claimed_by")
+                        .unset("locked_until"),
+                type);
+    }
+
+    // Retry with exponential backoff, or move to the dead-letter collection after maxAttempts
+    public void markFailed(T item, String error) {
+        int attempts = item.getAttempts() + 1;
+        if (attempts >= maxAttempts) {
+            deadLetter(item, attempts, error);
+            return;
+        }
+        long backoffSeconds = Math.min(1L << Math.min(attempts, 30), maxBackoffSeconds);
+        release(item, Instant.now().plusSeconds(backoffSeconds),
+                new Update().set("attempts", attempts).set("last_error", error));
+    }
+
+    // Back to pending without counting an attempt; extra carries any other fields to set with it
+    public void release(T item, Instant nextAttemptAt, Update extra) {
+        mongoTemplate.updateFirst(claimed(item),
+                extra.set("status", pending)
+                        .set("next_attempt_at", nextAttemptAt)
+                        .unset("claimed_by")
+                        .unset("locked_until"),
+                type);
+    }
+
+    // Removed first, so that a document another node has taken over is not dead-lettered while it is retried
+    public void deadLetter(T item, int attempts, String error) {
+        if (mongoTemplate.remove(claimed(item), type).getDeletedCount() == 0) {
+            return;
+        }
+        item.setAttempts(attempts);
+        item.setLastError(error);
+        item.setClaimedBy(null);
+        item.setLockedUntil(null);
+        mongoTemplate.save(item, deadLetterCollection);
+        logger.error("{} {} moved to {} after {} attempts: {}",
+                type.getSimpleName(), item.getId(), deadLetterCollection, attempts, error);
+    }
+
+    private static Query owned(List<? extends Leased> items) {
+        return new Query(Criteria.where("_id").in(items.stream().map(Leased::getId).toList())
+                .and("claimed_by").is(items.get(0).getClaimedBy()));
+    }
+
+    private static Query claimed(Leased item) {
+        return new Query(Criteria.where("_id").is(item.getId()).and("claimed_by").is(item.getClaimedBy()));
+    }
+}
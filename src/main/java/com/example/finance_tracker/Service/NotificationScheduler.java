@@ -1,71 +1,411 @@
 package com.example.finance_tracker.Service;
 
+import com.example.finance_tracker.Entity.JobRun;
+import com.example.finance_tracker.Entity.JobShard;
 import com.example.finance_tracker.Entity.Transaction;
 import com.example.finance_tracker.Entity.Goal.Goal;
 import com.example.finance_tracker.Entity.Goal.GoalStatus;
-import com.example.finance_tracker.Repository.TransactionRepository;
+import com.example.finance_tracker.Entity.JobWatermark;
+import com.example.finance_tracker.Entity.User;
 import com.example.finance_tracker.Repository.GoalRepository;
+import com.example.finance_tracker.Utility.ReportUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
+// Daily alert job, safe to run on every replica. The node that wins the scheduler lock creates the day's run:
+// the transaction window plus `notifications.shards` ranges of the user id space. Every node then
+// leases shards until none are left, checkpointing after each page of users, so N nodes split the work and a
+// shard abandoned by a crashed node is resumed from its checkpoint once the lease runs out.
 @Service
 public class NotificationScheduler {
 
-    @Autowired
-    private TransactionRepository transactionRepository;
-
     @Autowired
     private GoalRepository goalRepository;
 
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private JobShardService jobShardService;
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationScheduler.class);
+
+    private static final String JOB = "notifications";
+
+    // Watermark id of the unusual spending check
+    private static final String UNUSUAL_SPENDING_JOB = "unusual_spending";
+
+    // New transactions checked per round trip
+    private static final int UNUSUAL_SPENDING_CHUNK_SIZE = 1000;
+
+    // A transaction is unusual when it is more than 1.5x the average of its (user, category)
+    private static final BigDecimal UNUSUAL_SPENDING_FACTOR = new BigDecimal("1.5");
+
+    // User ids sampled per shard to place the range boundaries
+    private static final int BOUNDARY_SAMPLES_PER_SHARD = 64;
+
+    // Goals due within this many days get a reminder
+    private static final int DEADLINE_WINDOW_DAYS = 7;
+
+    private static final Set<GoalStatus> OPEN_GOAL_STATUSES = EnumSet.complementOf(EnumSet.of(GoalStatus.COMPLETED));
+
+    // Partitions per run; read from the run afterwards, so changing it only affects new runs
+    @Value("${notifications.shards:16}")
+    private int shardCount = 16;
+
+    // Shards this node works on at the same time
+    @Value("${notifications.workers:2}")
+    private int workers = 2;
+
+    // Transaction ids are made on the client (outbox, batch create) before the insert reaches the server, so
+    // the window ends this far in the past: an insert committed later than its id's timestamp still lands
+    // above the next run's from_id. Must exceed the slowest insert plus the clock skew between nodes.
+    @Value("${notifications.window-lag-seconds:600}")
+    private long windowLagSeconds = 600;
+
+    @Value("${notifications.shard-lease-seconds:300}")
+    private long shardLeaseSeconds = 300;
+
+    // User ids read per checkpoint
+    @Value("${notifications.user-page-size:2000}")
+    private int userPageSize = 2000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private ExecutorService shardExecutor;
+
+    // Drain tasks submitted to shardExecutor and not finished yet
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+
+    @PostConstruct
+    public void start() {
+        shardExecutor = Executors.newFixedThreadPool(workers);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shardExecutor.shutdown();
+    }
+
     // Run this task every day at 8 AM
     @Scheduled(cron = "0 0 8 * * ?")
     public void checkForNotifications() {
-        checkUnusualSpending();
-        checkUpcomingDeadlines();
+        startRun(LocalDate.now());
+        processShards();
     }
 
-    // Check for unusual spending patterns
-    private void checkUnusualSpending() {
-        List<Transaction> transactions = transactionRepository.findAll();
-        for (Transaction transaction : transactions) {
-            double averageSpending = calculateAverageSpending(transaction.getUserId(), transaction.getTransactionCategory());
-            if (transaction.getTransactionAmount().doubleValue() > 1.5 * averageSpending) {
-                String message = "Unusual spending detected in category: " + transaction.getTransactionCategory() +
-                        ". You spent " + transaction.getTransactionAmount() + ", which is higher than your average spending.";
-                notificationService.sendEmailNotification(transaction.getUserId(), "Unusual Spending Alert", message);
+    // Picks up shards of runs this node did not start, and shards whose owner stopped renewing its lease
+    @Scheduled(fixedDelayString = "${notifications.shard-poll-interval-ms:60000}")
+    public void resumeShards() {
+        processShards();
+    }
+
+    // Create the day's run once; other nodes find it already there (or the lock taken) and go straight to the shards
+    void startRun(LocalDate day) {
+        String runId = JOB + ":" + day;
+        if (!schedulerLockService.tryAcquire(JOB, nodeId, Duration.ofMinutes(1))) {
+            return;
+        }
+        try {
+            if (jobShardService.getRun(runId) == null) {
+                String fromId = loadWatermark().toHexString();
+                String toId = lowestObjectId(Instant.now().minusSeconds(windowLagSeconds)).toHexString();
+                List<String> boundaries = shardBoundaries(shardCount);
+                jobShardService.startRun(JOB, runId, fromId, toId, boundaries);
+                logger.info("Started {} with {} shards", runId, boundaries.size() + 1);
+            }
+        } finally {
+            schedulerLockService.release(JOB, nodeId);
+        }
+    }
+
+    // Hands the shards to this node's workers and returns at once: the @Scheduled thread is shared with the
+    // outbox, email, token and key ring jobs, which must not wait for a run that can take many minutes.
+    // Tops the workers up to `workers` draining threads; ones already running keep claiming shards.
+    void processShards() {
+        while (true) {
+            int active = activeWorkers.get();
+            if (active >= workers) {
+                return;
+            }
+            if (!activeWorkers.compareAndSet(active, active + 1)) {
+                continue;
+            }
+            try {
+                shardExecutor.execute(() -> {
+                    try {
+                        drainShards();
+                    } catch (RuntimeException e) {
+                        logger.error("Notification shard worker failed", e);
+                    } finally {
+                        activeWorkers.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                activeWorkers.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    // True while shards are being worked on by this node
+    boolean isBusy() {
+        return activeWorkers.get() > 0;
+    }
+
+    // Lease and run shards until none are left
+    private void drainShards() {
+        Duration lease = Duration.ofSeconds(shardLeaseSeconds);
+        while (true) {
+            // A fresh owner per lease, so a stalled thread of this node cannot write over a later lease
+            String owner = nodeId + ":" + UUID.randomUUID();
+            JobShard shard = jobShardService.claim(JOB, owner, lease);
+            if (shard == null) {
+                return;
+            }
+            try {
+                runShard(shard, owner, lease);
+            } catch (RuntimeException e) {
+                // The lease runs out and the shard is retried from its last checkpoint
+                logger.error("Shard {} failed at checkpoint {}", shard.getId(), shard.getCheckpoint(), e);
             }
         }
     }
 
-    // Check for upcoming deadlines (e.g., financial goals)
-    private void checkUpcomingDeadlines() {
-        List<Goal> goals = goalRepository.findAll();
+    // Walk the shard's user id range after its checkpoint in _id order; the server only returns this shard's users
+    void runShard(JobShard shard, String owner, Duration lease) {
+        JobRun run = jobShardService.getRun(shard.getRunId());
+        String after = shard.getCheckpoint() != null ? shard.getCheckpoint() : shard.getRangeStart();
+        long processed = shard.getProcessedUsers();
+        while (true) {
+            Criteria range = Criteria.where("_id");
+            if (after != null) {
+                range = range.gt(after);
+            }
+            if (shard.getRangeEnd() != null) {
+                range = range.lte(shard.getRangeEnd());
+            }
+            Query query = new Query(after != null || shard.getRangeEnd() != null ? range : new Criteria())
+                    .with(Sort.by(Sort.Direction.ASC, "_id"))
+                    .limit(userPageSize);
+            query.fields().include("_id");
+            List<User> page = mongoTemplate.find(query, User.class);
+            if (page.isEmpty()) {
+                break;
+            }
+
+            List<String> userIds = page.stream().map(User::getUserId).toList();
+            processUsers(userIds, run);
+
+            after = userIds.get(userIds.size() - 1);
+            processed += userIds.size();
+            if (!jobShardService.checkpoint(shard, owner, after, processed, lease)) {
+                logger.warn("Lost the lease on shard {}; another node continues it", shard.getId());
+                return;
+            }
+            if (page.size() < userPageSize) {
+                break;
+            }
+        }
+
+        if (jobShardService.complete(shard, owner)) {
+            JobRun finished = jobShardService.finishRunIfComplete(run.getId());
+            if (finished != null) {
+                advanceWatermark(finished.getToId());
+                logger.info("Finished {}", finished.getId());
+            }
+        }
+    }
+
+    // Alerts for one page of a shard's users, mailed as one digest per user
+    void processUsers(List<String> userIds, JobRun run) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<NotificationService.Alert> alerts = new ArrayList<>();
+        checkUnusualSpending(userIds, run, alerts);
+        checkUpcomingDeadlines(userIds, alerts);
+        notificationService.sendDigests(alerts);
+    }
+
+    // Inclusive upper user _id of each shard but the last, from quantiles of a random sample of user ids.
+    // $sample reads only the sampled documents, so the boundaries cost one small query per run instead of
+    // every shard scanning the whole collection. Fewer boundaries come back when there are few users.
+    List<String> shardBoundaries(int shards) {
+        if (shards <= 1) {
+            return List.of();
+        }
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.sample((long) shards * BOUNDARY_SAMPLES_PER_SHARD),
+                Aggregation.project("_id"));
+        List<String> sample = mongoTemplate.aggregate(aggregation, "users", Document.class).getMappedResults().stream()
+                .map(row -> row.get("_id").toString())
+                .sorted()
+                .distinct()
+                .toList();
+
+        List<String> boundaries = new ArrayList<>();
+        for (int i = 1; i < shards && !sample.isEmpty(); i++) {
+            String boundary = sample.get((int) ((long) i * sample.size() / shards));
+            if (boundaries.isEmpty() || boundary.compareTo(boundaries.get(boundaries.size() - 1)) > 0) {
+                boundaries.add(boundary);
+            }
+        }
+        return boundaries;
+    }
+
+    // Check for unusual spending patterns in the run's window of new transactions.
+    // The per-(user, category) averages for each chunk come from a single aggregation instead of one query per transaction.
+    private void checkUnusualSpending(List<String> userIds, JobRun run, List<NotificationService.Alert> alerts) {
+        ObjectId after = new ObjectId(run.getFromId());
+        ObjectId to = new ObjectId(run.getToId());
+        while (true) {
+            Query query = new Query(Criteria.where("user_id").in(userIds).and("_id").gt(after).lte(to))
+                    .with(Sort.by(Sort.Direction.ASC, "_id"))
+                    .limit(UNUSUAL_SPENDING_CHUNK_SIZE);
+            List<Transaction> transactions = mongoTemplate.find(query, Transaction.class);
+            if (transactions.isEmpty()) {
+                break;
+            }
+
+            Map<String, BigDecimal> averages = calculateAverageSpending(transactions);
+            for (Transaction transaction : transactions) {
+                BigDecimal amount = transaction.getTransactionAmount();
+                BigDecimal averageSpending = averages.get(averageKey(transaction.getUserId(), transaction.getTransactionCategory()));
+                if (amount == null || averageSpending == null) {
+                    continue;
+                }
+                if (amount.compareTo(averageSpending.multiply(UNUSUAL_SPENDING_FACTOR)) > 0) {
+                    String message = "Unusual spending detected in category: " + transaction.getTransactionCategory() +
+                            ". You spent " + transaction.getTransactionAmount() + ", which is higher than your average spending.";
+                    alerts.add(new NotificationService.Alert(transaction.getUserId(),
+                            "transaction:" + transaction.getTransactionId(), "Unusual Spending Alert", message));
+                }
+            }
+
+            after = new ObjectId(transactions.get(transactions.size() - 1).getTransactionId());
+            if (transactions.size() < UNUSUAL_SPENDING_CHUNK_SIZE) {
+                break;
+            }
+        }
+    }
+
+    // Check for upcoming deadlines (e.g., financial goals): open goals of these users due from today up to
+    // DEADLINE_WINDOW_DAYS ahead, streamed from the (userId, status, endDate) index
+    private void checkUpcomingDeadlines(List<String> userIds, List<NotificationService.Alert> alerts) {
         LocalDate today = LocalDate.now();
-        for (Goal goal : goals) {
-            if (goal.getEndDate().isBefore(today.plusDays(7)) && !goal.getStatus().equals(GoalStatus.COMPLETED)) {
-                String message = "Your financial goal '" + goal.getGoalName() + "' is due in 7 days. You have saved " +
-                        goal.getSavedAmount() + " out of " + goal.getTargetAmount() + ".";
-                notificationService.sendEmailNotification(goal.getUserId(), "Upcoming Goal Deadline", message);
+        try (Stream<Goal> goals = goalRepository.streamByUserIdInAndEndDateBetweenAndStatusIn(
+                userIds, today, today.plusDays(DEADLINE_WINDOW_DAYS), OPEN_GOAL_STATUSES)) {
+            goals.forEach(goal -> {
+                long daysLeft = ChronoUnit.DAYS.between(today, goal.getEndDate());
+                String due = daysLeft == 0 ? "is due today" : daysLeft == 1 ? "is due tomorrow" : "is due in " + daysLeft + " days";
+                String message = "Your financial goal '" + goal.getGoalName() + "' " + due + ". You have saved " +
+                        GoalService.orZero(goal.getSavedAmount()) + " out of " + GoalService.orZero(goal.getTargetAmount()) + ".";
+                // One reminder per goal and end date, not one every morning of the last week
+                alerts.add(new NotificationService.Alert(goal.getUserId(),
+                        "goal_deadline:" + goal.getId() + ":" + goal.getEndDate(), "Upcoming Goal Deadline", message));
+            });
+        }
+    }
+
+    // Average spending per (user, category) for every pair that appears in the given transactions,
+    // computed over all of that pair's transactions in one $match/$group
+    private Map<String, BigDecimal> calculateAverageSpending(List<Transaction> transactions) {
+        Map<String, Criteria> pairs = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            if (transaction.getUserId() == null || transaction.getTransactionCategory() == null) {
+                continue;
             }
+            pairs.computeIfAbsent(averageKey(transaction.getUserId(), transaction.getTransactionCategory()),
+                    key -> Criteria.where("user_id").is(transaction.getUserId())
+                            .and("transaction_category").is(transaction.getTransactionCategory().name()));
         }
+        if (pairs.isEmpty()) {
+            return Map.of();
+        }
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(new Criteria().orOperator(pairs.values().toArray(new Criteria[0]))),
+                Aggregation.group("user_id", "transaction_category")
+                        .avg(ConvertOperators.valueOf("transaction_amount").convertToDecimal()).as("average")
+        );
+
+        Map<String, BigDecimal> averages = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, "transactions", Document.class).getMappedResults()) {
+            Document id = row.get("_id", Document.class);
+            averages.put(id.getString("user_id") + ":" + id.getString("transaction_category"),
+                    ReportUtil.toBigDecimal(row.get("average")));
+        }
+        return averages;
+    }
+
+    private static String averageKey(String userId, Transaction.TransactionCategory category) {
+        return userId + ":" + (category != null ? category.name() : null);
     }
 
-    // Helper method to calculate average spending for a category
-    private double calculateAverageSpending(String userId, Transaction.TransactionCategory category) {
-        List<Transaction> transactions = transactionRepository.findByUserIdAndTransactionCategory(userId, category);
-        if (transactions.isEmpty()) {
-            return 0.0; // Return 0 if no transactions exist for the category
+    // The first run only looks back one schedule period instead of alerting on the whole history
+    private ObjectId loadWatermark() {
+        JobWatermark watermark = mongoTemplate.findById(UNUSUAL_SPENDING_JOB, JobWatermark.class);
+        if (watermark != null && ObjectId.isValid(watermark.getLastId())) {
+            return new ObjectId(watermark.getLastId());
         }
-        double totalSpending = transactions.stream()
-                .mapToDouble(t -> t.getTransactionAmount().doubleValue())
-                .sum();
-        return totalSpending / transactions.size();
+        return lowestObjectId(Instant.now().minus(1, ChronoUnit.DAYS));
+    }
+
+    // Only ever moves forward, in case an older run finishes after a newer one
+    private void advanceWatermark(String lastId) {
+        try {
+            mongoTemplate.upsert(new Query(Criteria.where("_id").is(UNUSUAL_SPENDING_JOB).and("last_id").lt(lastId)),
+                    new Update().set("last_id", lastId).set("updated_at", Instant.now()), JobWatermark.class);
+        } catch (DuplicateKeyException e) {
+            // The watermark is already past lastId
+        }
+    }
+
+    // Smallest ObjectId of that second: every transaction created before it sorts below it
+    private static ObjectId lowestObjectId(Instant instant) {
+        return new ObjectId(String.format("%08x", instant.getEpochSecond()) + "0000000000000000");
     }
-}
\ No newline at end of file
+}
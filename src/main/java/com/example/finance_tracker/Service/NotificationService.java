@@ -1,43 +1,264 @@
 package com.example.finance_tracker.Service;
 
+import com.example.finance_tracker.Entity.EmailMessage;
+import com.example.finance_tracker.Entity.NotificationPreference;
+import com.example.finance_tracker.Entity.SentAlert;
 import com.example.finance_tracker.Entity.User;
+import com.example.finance_tracker.Repository.NotificationPreferenceRepository;
 import com.example.finance_tracker.Repository.UserRepository;
-import lombok.Getter;
-import org.springframework.boot.CommandLineRunner;
-import org.springframework.stereotype.Component;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @Service
 public class NotificationService {
 
-    private final SendGridEmailService sendGridEmailService;
+    private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
+
+    // One email to one user
+    public record Notification(String userId, String subject, String message) {
+    }
+
+    // Something worth telling a user about. The key identifies what it is about (e.g. "transaction:<id>"),
+    // so it is mailed only once; alerts without a key are never deduplicated.
+    public record Alert(String userId, String key, String subject, String message) {
+    }
+
+    private static final String DIGEST_SUBJECT = "Your Finance Tracker daily summary";
+
+    private final EmailQueueService emailQueueService;
     private final UserRepository userRepository;
+    private final NotificationPreferenceRepository notificationPreferenceRepository;
+    private final MongoTemplate mongoTemplate;
+
+    // userId -> email; short-lived so an address change is picked up within minutes
+    private final Cache<String, String> emailCache;
 
     @Autowired
-    public NotificationService(SendGridEmailService sendGridEmailService, UserRepository userRepository) {
-        this.sendGridEmailService = sendGridEmailService;
+    public NotificationService(EmailQueueService emailQueueService, UserRepository userRepository,
+                               NotificationPreferenceRepository notificationPreferenceRepository, MongoTemplate mongoTemplate,
+                               @Value("${notification.email-cache.maximum-size:10000}") long emailCacheSize,
+                               @Value("${notification.email-cache.ttl-minutes:10}") long emailCacheTtlMinutes) {
+        this.emailQueueService = emailQueueService;
         this.userRepository = userRepository;
+        this.notificationPreferenceRepository = notificationPreferenceRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.emailCache = Caffeine.newBuilder()
+                .maximumSize(emailCacheSize)
+                .expireAfterWrite(Duration.ofMinutes(emailCacheTtlMinutes))
+                .build();
     }
 
-    // Method to send email notifications
+    // Method to send email notifications; the email is queued and delivered by the EmailDispatcher
     public void sendEmailNotification(String userId, String subject, String message) {
-        // Fetch the user's email from the database
+        // Fetch the user's email from the cache or the database
         String userEmail = getUserEmail(userId);
 
         if (userEmail != null) {
-            sendGridEmailService.sendEmail(userEmail, subject, message);
+            emailQueueService.enqueue(userEmail, subject, message);
         } else {
-            System.err.println("User email not found for userId: " + userId);
+            logger.warn("User email not found for userId: {}", userId);
+        }
+    }
+
+    // ✅ Send many notifications at once: addresses come from the cache plus one $in query for the rest,
+    // and all emails are queued with a single insert
+    public void sendEmailNotifications(Collection<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        Set<String> userIds = new LinkedHashSet<>();
+        for (Notification notification : notifications) {
+            userIds.add(notification.userId());
+        }
+        Map<String, String> emails = getUserEmails(userIds);
+
+        List<EmailMessage> messages = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            String userEmail = emails.get(notification.userId());
+            if (userEmail != null) {
+                messages.add(new EmailMessage(userEmail, notification.subject(), notification.message()));
+            } else {
+                logger.warn("User email not found for userId: {}", notification.userId());
+            }
+        }
+        emailQueueService.enqueueAll(messages);
+    }
+
+    // ✅ Send one alert right away, unless the user turned email off or it was already sent
+    public void sendAlert(Alert alert) {
+        if (alert.key() != null && mongoTemplate.exists(new Query(Criteria.where("_id").is(alert.key())), SentAlert.class)) {
+            return;
+        }
+        if (!isEmailEnabled(alert.userId())) {
+            return;
+        }
+        sendEmailNotification(alert.userId(), alert.subject(), alert.message());
+        markSent(List.of(alert));
+    }
+
+    // ✅ Mail a run's alerts as one digest per user. Alerts that were already sent and users
+    // who turned email off are skipped; everything mailed is remembered for the next run.
+    public void sendDigests(Collection<Alert> alerts) {
+        Set<String> alreadySent = findSent(alerts);
+        Map<String, List<Alert>> byUser = new LinkedHashMap<>();
+        Set<String> seen = new HashSet<>();
+        for (Alert alert : alerts) {
+            if (alert.key() != null && (alreadySent.contains(alert.key()) || !seen.add(alert.key()))) {
+                continue;
+            }
+            byUser.computeIfAbsent(alert.userId(), id -> new ArrayList<>()).add(alert);
+        }
+        byUser.keySet().removeAll(findEmailDisabled(byUser.keySet()));
+        if (byUser.isEmpty()) {
+            return;
+        }
+
+        List<Notification> digests = new ArrayList<>(byUser.size());
+        List<Alert> sent = new ArrayList<>();
+        byUser.forEach((userId, userAlerts) -> {
+            digests.add(renderDigest(userId, userAlerts));
+            sent.addAll(userAlerts);
+        });
+        sendEmailNotifications(digests);
+        markSent(sent);
+        logger.info("Queued {} digest emails covering {} alerts", digests.size(), sent.size());
+    }
+
+    // ✅ A user's notification settings; users who never saved any get email only
+    public NotificationPreference getPreference(String userId) {
+        return notificationPreferenceRepository.findByUserId(userId).orElseGet(() -> defaultPreference(userId));
+    }
+
+    // ✅ Save a user's notification settings
+    public NotificationPreference savePreference(String userId, NotificationPreference preference) {
+        NotificationPreference existing = notificationPreferenceRepository.findByUserId(userId).orElse(null);
+        preference.setId(existing != null ? existing.getId() : null);
+        preference.setUserId(userId);
+        return notificationPreferenceRepository.save(preference);
+    }
+
+    // One alert is mailed as it is; several become a list grouped by alert type
+    private Notification renderDigest(String userId, List<Alert> alerts) {
+        if (alerts.size() == 1) {
+            return new Notification(userId, alerts.get(0).subject(), alerts.get(0).message());
+        }
+        Map<String, List<String>> bySubject = new LinkedHashMap<>();
+        for (Alert alert : alerts) {
+            bySubject.computeIfAbsent(alert.subject(), subject -> new ArrayList<>()).add(alert.message());
+        }
+        StringBuilder body = new StringBuilder("You have ").append(alerts.size()).append(" new alerts.\n");
+        bySubject.forEach((subject, messages) -> {
+            body.append("\n").append(subject).append(" (").append(messages.size()).append(")\n");
+            messages.forEach(message -> body.append("- ").append(message).append("\n"));
+        });
+        return new Notification(userId, DIGEST_SUBJECT + " (" + alerts.size() + " alerts)", body.toString());
+    }
+
+    private Set<String> findSent(Collection<Alert> alerts) {
+        List<String> keys = alerts.stream().map(Alert::key).filter(key -> key != null).distinct().toList();
+        if (keys.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> sent = new HashSet<>();
+        for (SentAlert alert : mongoTemplate.find(new Query(Criteria.where("_id").in(keys)), SentAlert.class)) {
+            sent.add(alert.getKey());
+        }
+        return sent;
+    }
+
+    private void markSent(List<Alert> alerts) {
+        Instant now = Instant.now();
+        List<SentAlert> records = alerts.stream()
+                .filter(alert -> alert.key() != null)
+                .map(alert -> new SentAlert(alert.key(), alert.userId(), now))
+                .toList();
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SentAlert.class).insert(records).execute();
+        } catch (BulkOperationException e) {
+            // Another run recorded some of them first; the rest were still inserted
+            logger.debug("{} alerts were already recorded as sent", e.getErrors().size());
         }
     }
 
-    // Method to fetch user email from the database
+    // Users who have a preference document with email turned off
+    private Set<String> findEmailDisabled(Set<String> userIds) {
+        Set<String> disabled = new HashSet<>();
+        for (NotificationPreference preference : notificationPreferenceRepository.findByUserIdIn(userIds)) {
+            if (!preference.isEmailEnabled()) {
+                disabled.add(preference.getUserId());
+            }
+        }
+        return disabled;
+    }
+
+    private boolean isEmailEnabled(String userId) {
+        return notificationPreferenceRepository.findByUserId(userId)
+                .map(NotificationPreference::isEmailEnabled)
+                .orElse(true);
+    }
+
+    private static NotificationPreference defaultPreference(String userId) {
+        NotificationPreference preference = new NotificationPreference();
+        preference.setUserId(userId);
+        preference.setEmailEnabled(true);
+        return preference;
+    }
+
+    // Method to fetch user email from the cache or the database
     private String getUserEmail(String userId) {
+        String cached = emailCache.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
         User user = userRepository.findByUserId(userId); // Fetch user by userId
-        if (user != null) {
+        if (user != null && user.getEmail() != null) {
+            emailCache.put(userId, user.getEmail());
             return user.getEmail(); // Return the user's email
         }
         return null; // Return null if user not found
     }
-}
\ No newline at end of file
+
+    // Emails of the given users; unknown users are left out
+    private Map<String, String> getUserEmails(Set<String> userIds) {
+        Map<String, String> emails = new HashMap<>(emailCache.getAllPresent(userIds));
+        List<String> missing = userIds.stream().filter(id -> id != null && !emails.containsKey(id)).toList();
+        if (missing.isEmpty()) {
+            return emails;
+        }
+
+        Query query = new Query(Criteria.where("_id").in(missing));
+        query.fields().include("email");
+        for (User user : mongoTemplate.find(query, User.class)) {
+            if (user.getEmail() != null) {
+                emails.put(user.getUserId(), user.getEmail());
+                emailCache.put(user.getUserId(), user.getEmail());
+            }
+        }
+        return emails;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.OutboxEvent;
+import com.example.finance_tracker.Entity.Transaction;
+import com.example.finance_tracker.Utility.Money;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Applies outbox events (budget and goal updates) off the request thread.
+// Events are claimed in batches from a LeasedQueue, so several nodes can dispatch at once and a crashed
+// node's claims are picked up again once the lease runs out. Delivery is at-least-once; applying is
+// idempotent (see IdempotentIncrement), so a redelivered event is counted only once.
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private static final String DEAD_LETTER_COLLECTION = "transaction_outbox_dead_letters";
+
+    private final MongoTemplate mongoTemplate;
+    private final BudgetService budgetService;
+    private final GoalService goalService;
+    private final LeasedQueue<OutboxEvent> queue;
+    private final ExecutorService executor;
+
+    private final int batchSize;
+    private final int workers;
+    // Events whose transaction still does not exist after this long belong to a write that never happened
+    private final Duration orphanGracePeriod = Duration.ofMinutes(1);
+
+    public OutboxDispatcher(MongoTemplate mongoTemplate, BudgetService budgetService, GoalService goalService,
+                            @Value("${outbox.batch-size:500}") int batchSize,
+                            @Value("${outbox.max-attempts:8}") int maxAttempts,
+                            @Value("${outbox.lease-seconds:60}") long leaseSeconds,
+                            @Value("${outbox.workers:4}") int workers) {
+        this.mongoTemplate = mongoTemplate;
+        this.budgetService = budgetService;
+        this.goalService = goalService;
+        this.queue = new LeasedQueue<>(mongoTemplate, OutboxEvent.class,
+                OutboxEvent.Status.PENDING, OutboxEvent.Status.PROCESSING, OutboxEvent.Status.DONE, "processed_at",
+                DEAD_LETTER_COLLECTION, Duration.ofSeconds(leaseSeconds), maxAttempts, 300);
+        this.batchSize = batchSize;
+        this.workers = workers;
+        this.executor = Executors.newFixedThreadPool(workers);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // Hands a batch to every idle worker and returns; the @Scheduled thread is shared with the other pollers
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:500}")
+    public void dispatch() {
+        queue.dispatch(batchSize, workers, executor, this::process);
+    }
+
+    // True while batches are being applied by this node
+    boolean isBusy() {
+        return queue.isBusy();
+    }
+
+    void process(List<OutboxEvent> events) {
+        List<OutboxEvent> ready = dropEventsWithoutTransaction(events);
+
+        // Sum expenses per (user, category) and incomes per user, then apply each total once
+        Map<List<Object>, List<OutboxEvent>> groups = new LinkedHashMap<>();
+        for (OutboxEvent event : ready) {
+            List<Object> key = event.getTransactionType() == Transaction.TransactionType.EXPENSE
+                    ? List.of(event.getUserId(), event.getTransactionType(), String.valueOf(event.getTransactionCategory()))
+                    : List.of(event.getUserId(), event.getTransactionType());
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(event);
+        }
+
+        for (List<OutboxEvent> group : groups.values()) {
+            try {
+                applyGroup(group);
+            } catch (RuntimeException e) {
+                logger.error("Outbox group failed unexpectedly", e);
+            }
+        }
+    }
+
+    private void applyGroup(List<OutboxEvent> group) {
+        OutboxEvent first = group.get(0);
+        // Earlier groups of the batch may have taken a while; renew the lease before applying and skip
+        // any event whose lease ran out and was claimed by another node in the meantime
+        List<OutboxEvent> owned = queue.renewLease(group);
+        if (owned.isEmpty()) {
+            return;
+        }
+        try {
+            if (first.getTransactionType() == Transaction.TransactionType.EXPENSE) {
+                Map<String, BigDecimal> amounts = new LinkedHashMap<>();
+                owned.forEach(event -> amounts.put(event.getId(), event.getAmount()));
+                budgetService.addToSpentAmount(first.getUserId(), String.valueOf(first.getTransactionCategory()), amounts);
+            } else if (first.getTransactionType() == Transaction.TransactionType.INCOME) {
+                Map<String, Money> amounts = new LinkedHashMap<>();
+                owned.forEach(event -> amounts.put(event.getId(), Money.of(event.getAmount())));
+                goalService.addMoneyToUserGoals(first.getUserId(), amounts);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Applying {} outbox events for user {} failed: {}", owned.size(), first.getUserId(), e.getMessage());
+            owned.forEach(event -> queue.markFailed(event, e.getMessage()));
+            return;
+        }
+        // Not retried here: the events are already applied. If this fails they are reclaimed once the lease
+        // runs out, and the replay adds nothing because the budget or goal records the applied event ids.
+        queue.markDone(owned);
+    }
+
+    // The event is written before its transaction. If the transaction never shows up, the write failed
+    // and the event is discarded; if it is just late, the event is retried shortly.
+    private List<OutboxEvent> dropEventsWithoutTransaction(List<OutboxEvent> events) {
+        Query query = new Query(Criteria.where("_id").in(events.stream().map(OutboxEvent::getTransactionId).toList()));
+        query.fields().include("_id");
+        Set<String> existing = new HashSet<>();
+        mongoTemplate.find(query, Transaction.class).forEach(t -> existing.add(t.getTransactionId()));
+
+        List<OutboxEvent> ready = new ArrayList<>();
+        Instant orphanCutoff = Instant.now().minus(orphanGracePeriod);
+        for (OutboxEvent event : events) {
+            if (existing.contains(event.getTransactionId())) {
+                ready.add(event);
+            } else if (event.getCreatedAt().isBefore(orphanCutoff)) {
+                logger.warn("Discarding outbox event {}: transaction {} was never written", event.getId(), event.getTransactionId());
+                queue.markDone(List.of(event));
+            } else {
+                queue.release(event, Instant.now().plusSeconds(1), new Update());
+            }
+        }
+        return ready;
+    }
+}
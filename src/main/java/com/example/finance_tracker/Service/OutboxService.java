@@ -0,0 +1,49 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.OutboxEvent;
+import com.example.finance_tracker.Entity.Transaction;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class OutboxService {
+
+    private final MongoTemplate mongoTemplate;
+
+    public OutboxService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // ✅ Record the side effects of a transaction that is about to be saved.
+    // The transaction ID is assigned here so the event can point at it before the transaction exists.
+    public void enqueue(Transaction transaction) {
+        assignId(transaction);
+        mongoTemplate.insert(OutboxEvent.forTransaction(transaction));
+    }
+
+    // ✅ Same as enqueue, for a whole batch with one insertMany
+    public void enqueueAll(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        transactions.forEach(this::assignId);
+        mongoTemplate.insert(transactions.stream().map(OutboxEvent::forTransaction).toList(), OutboxEvent.class);
+    }
+
+    // ✅ Drop the events of transactions whose insert failed, so their side effects are never applied
+    public void discardAll(List<Transaction> transactions) {
+        mongoTemplate.remove(new Query(Criteria.where("transaction_id")
+                .in(transactions.stream().map(Transaction::getTransactionId).toList())), OutboxEvent.class);
+    }
+
+    private void assignId(Transaction transaction) {
+        if (transaction.getTransactionId() == null) {
+            transaction.setTransactionId(new ObjectId().toHexString());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.Report;
+import com.example.finance_tracker.Entity.Transaction;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Bounded in-process cache of generated reports, invalidated per user whenever one of their transactions changes
+@Component
+public class ReportCache {
+
+    private final Cache<Key, Report> cache;
+
+    // Bumped on every write for a user; a report computed before the write is stored under
+    // the old generation and can never be served afterwards. Superseded reports are not looked for:
+    // nothing can hit them, and they age out with the TTL or give way under the size bound.
+    // A generation is dropped once unused for twice the report TTL. Every report stored under it has
+    // expired by then, so a user who comes back starting from 0 again cannot be served an old report.
+    private final Cache<String, AtomicLong> generations;
+
+    // evictUser calls (Caffeine's evictionCount only covers size/TTL evictions)
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    public ReportCache(@Value("${report.cache.maximum-size:10000}") long maximumSize,
+                       @Value("${report.cache.ttl-minutes:10}") long ttlMinutes) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        this.generations = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(ttlMinutes).multipliedBy(2))
+                .build();
+    }
+
+    // ✅ Return the cached report for these filters, computing it on a miss
+    public Report get(String userId, LocalDateTime startDate, LocalDateTime endDate,
+                      List<Transaction.TransactionCategory> categories, List<String> tags, Supplier<Report> loader) {
+        Key key = new Key(userId, generation(userId).get(), startDate, endDate,
+                categories == null ? null : List.copyOf(categories),
+                tags == null ? null : List.copyOf(tags));
+        return cache.get(key, k -> loader.get());
+    }
+
+    // ✅ Drop every cached report of a user
+    public void evictUser(String userId) {
+        if (userId == null) {
+            return;
+        }
+        generation(userId).incrementAndGet();
+        invalidationCount.incrementAndGet();
+    }
+
+    // ✅ Hit/miss/eviction counters for sizing the cache
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("invalidationCount", invalidationCount.get());
+        result.put("averageLoadPenaltyMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        return result;
+    }
+
+    private AtomicLong generation(String userId) {
+        return generations.get(userId, id -> new AtomicLong());
+    }
+
+    private record Key(String userId, long generation, LocalDateTime startDate, LocalDateTime endDate,
+                       List<Transaction.TransactionCategory> categories, List<String> tags) {
+    }
+}
@@ -0,0 +1,372 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.Report;
+import com.example.finance_tracker.Entity.ReportJob;
+import com.example.finance_tracker.Entity.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoGridFSException;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.GridFSDownloadStream;
+import com.mongodb.client.gridfs.GridFSUploadStream;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPOutputStream;
+
+// Runs large reports and exports in the background, so a multi-year request does not hold a web
+// request thread until the proxy times out. Jobs run on a bounded pool of the node that accepted them,
+// each user has a limited number of jobs in flight, and progress is written to the job document.
+// Finished artifacts go to GridFS; jobs and artifacts are removed ttl after they finish.
+@Service
+public class ReportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+
+    public static final String ARTIFACT_BUCKET = "report_artifacts";
+
+    // Write export progress at most this often
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(1);
+
+    private static final List<ReportJob.Status> ACTIVE = List.of(ReportJob.Status.QUEUED, ReportJob.Status.RUNNING);
+
+    private final MongoTemplate mongoTemplate;
+    private final ReportService reportService;
+    private final ObjectMapper objectMapper;
+    private final GridFSBucket artifacts;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService heartbeats;
+
+    private final int maxActivePerUser;
+    private final Duration ttl;
+    private final Duration staleAfter;
+
+    // Jobs accepted by this node and not finished yet; maintain() keeps the heartbeat of the queued ones fresh,
+    // running jobs send their own from heartbeats while run() works on them
+    private final Set<String> localJobs = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public ReportJobService(MongoTemplate mongoTemplate, ReportService reportService, ObjectMapper objectMapper,
+                            @Value("${report-jobs.workers:2}") int workers,
+                            @Value("${report-jobs.queue-capacity:50}") int queueCapacity,
+                            @Value("${report-jobs.max-active-per-user:2}") int maxActivePerUser,
+                            @Value("${report-jobs.ttl-hours:24}") long ttlHours,
+                            @Value("${report-jobs.stale-minutes:5}") long staleMinutes) {
+        this(mongoTemplate, reportService, objectMapper, GridFSBuckets.create(mongoTemplate.getDb(), ARTIFACT_BUCKET),
+                workers, queueCapacity, maxActivePerUser, Duration.ofHours(ttlHours), Duration.ofMinutes(staleMinutes));
+    }
+
+    ReportJobService(MongoTemplate mongoTemplate, ReportService reportService, ObjectMapper objectMapper,
+                     GridFSBucket artifacts, int workers, int queueCapacity, int maxActivePerUser,
+                     Duration ttl, Duration staleAfter) {
+        this.mongoTemplate = mongoTemplate;
+        this.reportService = reportService;
+        this.objectMapper = objectMapper;
+        this.artifacts = artifacts;
+        this.maxActivePerUser = maxActivePerUser;
+        this.ttl = ttl;
+        this.staleAfter = staleAfter;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "report-job-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Interrupted jobs stop sending heartbeats and are failed by another node's maintain()
+        executor.shutdownNow();
+        heartbeats.shutdownNow();
+    }
+
+    // ✅ Queue a report or export. Throws IllegalStateException when the user already has
+    // max-active-per-user jobs queued or running, RejectedExecutionException when the worker queue is full.
+    public ReportJob submit(ReportJob job) {
+        Instant now = Instant.now();
+        job.setStatus(ReportJob.Status.QUEUED);
+        job.setCreatedAt(now);
+        job.setHeartbeatAt(now);
+        job.setExpiresAt(now.plus(ttl));
+        mongoTemplate.insert(job);
+
+        // Insert first, then count: two concurrent submits may both be turned away, but never both let through
+        long active = mongoTemplate.count(new Query(Criteria.where("user_id").is(job.getUserId()).and("status").in(ACTIVE)),
+                ReportJob.class);
+        if (active > maxActivePerUser) {
+            mongoTemplate.remove(byId(job.getId()), ReportJob.class);
+            throw new IllegalStateException("You already have " + maxActivePerUser + " report jobs in progress.");
+        }
+
+        localJobs.add(job.getId());
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            localJobs.remove(job.getId());
+            mongoTemplate.remove(byId(job.getId()), ReportJob.class);
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<ReportJob> getJob(String jobId) {
+        return Optional.ofNullable(mongoTemplate.findById(jobId, ReportJob.class));
+    }
+
+    // ✅ A user's jobs, newest first
+    public List<ReportJob> getJobs(String userId) {
+        Query query = new Query(Criteria.where("user_id").is(userId))
+                .with(Sort.by(Sort.Direction.DESC, "created_at"))
+                .limit(50);
+        return mongoTemplate.find(query, ReportJob.class);
+    }
+
+    // ✅ Artifact of a DONE job; empty when the job is not done or the artifact has already been cleaned up
+    public Optional<GridFSDownloadStream> openArtifact(ReportJob job) {
+        if (job.getStatus() != ReportJob.Status.DONE || job.getArtifactId() == null) {
+            return Optional.empty();
+        }
+        ObjectId artifactId = new ObjectId(job.getArtifactId());
+        if (artifacts.find(Filters.eq("_id", artifactId)).first() == null) {
+            return Optional.empty();
+        }
+        return Optional.of(artifacts.openDownloadStream(artifactId));
+    }
+
+    // Heartbeat this node's queued jobs, fail jobs whose node went away and delete expired artifacts
+    @Scheduled(fixedDelayString = "${report-jobs.maintenance-interval-ms:60000}")
+    public void maintain() {
+        Instant now = Instant.now();
+        if (!localJobs.isEmpty()) {
+            mongoTemplate.updateMulti(
+                    new Query(Criteria.where("_id").in(new ArrayList<>(localJobs)).and("status").is(ReportJob.Status.QUEUED)),
+                    new Update().set("heartbeat_at", now).set("expires_at", now.plus(ttl)),
+                    ReportJob.class);
+        }
+
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("status").in(ACTIVE).and("heartbeat_at").lt(now.minus(staleAfter))),
+                new Update().set("status", ReportJob.Status.FAILED)
+                        .set("error", "The server running this job stopped. Please submit it again.")
+                        .set("finished_at", now)
+                        .set("expires_at", now.plus(ttl)),
+                ReportJob.class);
+
+        // GridFS has no TTL index of its own
+        List<ObjectId> expired = new ArrayList<>();
+        for (GridFSFile file : artifacts.find(Filters.lt("metadata.expires_at", Date.from(now)))) {
+            expired.add(file.getObjectId());
+        }
+        // Every node runs this sweep, so another one may have deleted a file since it was listed
+        int deleted = 0;
+        for (ObjectId id : expired) {
+            try {
+                artifacts.delete(id);
+                deleted++;
+            } catch (MongoGridFSException e) {
+                logger.debug("Expired report artifact {} was already deleted", id);
+            }
+        }
+        if (deleted > 0) {
+            logger.info("Deleted {} expired report artifacts", deleted);
+        }
+    }
+
+    // Every transition is conditioned on the status it leaves, so a job that maintain() has already failed
+    // as stale is neither started nor reported DONE afterwards
+    void run(ReportJob job) {
+        Instant started = Instant.now();
+        ScheduledFuture<?> heartbeat = null;
+        try {
+            UpdateResult claimed = mongoTemplate.updateFirst(withStatus(job, ReportJob.Status.QUEUED),
+                    new Update().set("status", ReportJob.Status.RUNNING).set("started_at", started).set("heartbeat_at", started),
+                    ReportJob.class);
+            if (claimed.getModifiedCount() == 0) {
+                logger.warn("Report job {} is no longer queued, not running it", job.getId());
+                return;
+            }
+            // The worker is busy inside one long query or upload, so the heartbeat comes from its own thread
+            long interval = Math.max(1000, staleAfter.toMillis() / 3);
+            heartbeat = heartbeats.scheduleAtFixedRate(() -> heartbeat(job), interval, interval, TimeUnit.MILLISECONDS);
+
+            // The artifact outlives the job document by at most the time the job takes
+            Instant expires = Instant.now().plus(ttl);
+            Artifact artifact = switch (job.getType()) {
+                case REPORT -> storeBytes(job, "financial_report.json", "application/json",
+                        objectMapper.writeValueAsBytes(generateReport(job)), expires);
+                case REPORT_CSV -> storeBytes(job, "financial_report.csv", "text/csv",
+                        reportService.generateCsvReport(generateReport(job)), expires);
+                case EXPORT -> storeExport(job, expires);
+            };
+
+            Instant finished = Instant.now();
+            UpdateResult done = mongoTemplate.updateFirst(withStatus(job, ReportJob.Status.RUNNING),
+                    new Update().set("status", ReportJob.Status.DONE)
+                            .set("artifact_id", artifact.id().toHexString())
+                            .set("file_name", artifact.fileName())
+                            .set("content_type", artifact.contentType())
+                            .set("size_bytes", artifact.sizeBytes())
+                            .set("processed_rows", artifact.rows())
+                            .set("finished_at", finished)
+                            .set("expires_at", expires),
+                    ReportJob.class);
+            if (done.getModifiedCount() == 0) {
+                // Failed as stale meanwhile; nobody will download the artifact
+                logger.warn("Report job {} was failed while it ran, discarding its artifact", job.getId());
+                artifacts.delete(artifact.id());
+                return;
+            }
+            logger.info("Report job {} ({}) for user {} finished in {} ms",
+                    job.getId(), job.getType(), job.getUserId(), Duration.between(started, finished).toMillis());
+
+        } catch (Exception e) {
+            logger.error("Report job {} ({}) for user {} failed", job.getId(), job.getType(), job.getUserId(), e);
+            Instant finished = Instant.now();
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(job.getId()).and("status").in(ACTIVE)),
+                    new Update().set("status", ReportJob.Status.FAILED)
+                            .set("error", "The report could not be generated.")
+                            .set("finished_at", finished)
+                            .set("expires_at", finished.plus(ttl)),
+                    ReportJob.class);
+        } finally {
+            if (heartbeat != null) {
+                heartbeat.cancel(false);
+            }
+            localJobs.remove(job.getId());
+        }
+    }
+
+    private void heartbeat(ReportJob job) {
+        try {
+            Instant now = Instant.now();
+            mongoTemplate.updateFirst(withStatus(job, ReportJob.Status.RUNNING),
+                    new Update().set("heartbeat_at", now).set("expires_at", now.plus(ttl)),
+                    ReportJob.class);
+        } catch (RuntimeException e) {
+            // A missed beat is retried on the next tick; scheduleAtFixedRate would stop after a thrown exception
+            logger.warn("Heartbeat of report job {} failed", job.getId(), e);
+        }
+    }
+
+    private Report generateReport(ReportJob job) {
+        return reportService.generateReport(job.getUserId(), job.getStartDate(), job.getEndDate(), job.getCategories(), null);
+    }
+
+    private Artifact storeBytes(ReportJob job, String fileName, String contentType, byte[] bytes, Instant expires) {
+        ObjectId id = artifacts.uploadFromStream(fileName, new ByteArrayInputStream(bytes), uploadOptions(job, contentType, expires));
+        return new Artifact(id, fileName, contentType, bytes.length, 0);
+    }
+
+    // Streams the CSV straight into GridFS; a failed export leaves no partial file behind
+    private Artifact storeExport(ReportJob job, Instant expires) throws IOException {
+        Criteria criteria = Criteria.where("user_id").is(job.getUserId());
+        if (job.getStartDate() != null && job.getEndDate() != null) {
+            criteria = criteria.and("transaction_date").gte(job.getStartDate()).lte(job.getEndDate());
+        }
+        long totalRows = mongoTemplate.count(new Query(criteria), Transaction.class);
+        mongoTemplate.updateFirst(withStatus(job, ReportJob.Status.RUNNING), new Update().set("total_rows", totalRows), ReportJob.class);
+
+        String fileName = job.isGzip() ? "transactions.csv.gz" : "transactions.csv";
+        String contentType = job.isGzip() ? "application/gzip" : "text/csv";
+        GridFSUploadStream upload = artifacts.openUploadStream(fileName, uploadOptions(job, contentType, expires));
+        LongConsumer progress = progress(job);
+        long[] rowsWritten = {0};
+        try {
+            OutputStream out = job.isGzip() ? new GZIPOutputStream(upload) : upload;
+            reportService.writeTransactionsCsv(job.getUserId(), job.getStartDate(), job.getEndDate(), out, rows -> {
+                rowsWritten[0] = rows;
+                progress.accept(rows);
+            });
+            if (out instanceof GZIPOutputStream gzip) {
+                gzip.finish();
+            }
+            upload.close();
+        } catch (IOException | RuntimeException e) {
+            upload.abort();
+            throw e;
+        }
+
+        GridFSFile file = artifacts.find(Filters.eq("_id", upload.getObjectId())).first();
+        return new Artifact(upload.getObjectId(), fileName, contentType, file == null ? 0 : file.getLength(), rowsWritten[0]);
+    }
+
+    // Records rows written (and refreshes the heartbeat), at most once per PROGRESS_INTERVAL
+    private LongConsumer progress(ReportJob job) {
+        long[] lastWrite = {System.nanoTime()};
+        return rows -> {
+            long now = System.nanoTime();
+            if (now - lastWrite[0] < PROGRESS_INTERVAL.toNanos()) {
+                return;
+            }
+            lastWrite[0] = now;
+            mongoTemplate.updateFirst(withStatus(job, ReportJob.Status.RUNNING),
+                    new Update().set("processed_rows", rows).set("heartbeat_at", Instant.now()),
+                    ReportJob.class);
+        };
+    }
+
+    private GridFSUploadOptions uploadOptions(ReportJob job, String contentType, Instant expires) {
+        return new GridFSUploadOptions().metadata(new Document("job_id", job.getId())
+                .append("user_id", job.getUserId())
+                .append("content_type", contentType)
+                .append("expires_at", Date.from(expires)));
+    }
+
+    private static Query byId(String jobId) {
+        return new Query(Criteria.where("_id").is(jobId));
+    }
+
+    private static Query withStatus(ReportJob job, ReportJob.Status status) {
+        return new Query(Criteria.where("_id").is(job.getId()).and("status").is(status));
+    }
+
+    // rows: transactions written, EXPORT only
+    private record Artifact(ObjectId id, String fileName, String contentType, long sizeBytes, long rows) {
+    }
+}
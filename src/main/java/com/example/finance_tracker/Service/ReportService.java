@@ -2,21 +2,43 @@ package com.example.finance_tracker.Service;
 
 import com.example.finance_tracker.Controller.ReportController;
 import com.example.finance_tracker.Entity.Report;
+import com.example.finance_tracker.Entity.ReportSeries;
 import com.example.finance_tracker.Entity.Transaction;
 import com.example.finance_tracker.Repository.TransactionRepository;
+import com.example.finance_tracker.Utility.Money;
+import com.example.finance_tracker.Utility.ReportAccumulator;
+import com.example.finance_tracker.Utility.ReportUtil;
+import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
 
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ReportService {
@@ -24,19 +46,93 @@ public class ReportService {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private TransactionRollupService transactionRollupService;
+
+    @Autowired
+    private ReportCache reportCache;
+
     private static final Logger logger = LoggerFactory.getLogger(ReportService.class);
 
+    // Longest series one request may ask for (e.g. two years of days), counting the current period only
+    private static final int MAX_SERIES_BUCKETS = 1_000;
+
+    // Flush the streamed CSV export every N rows
+    private static final int CSV_FLUSH_EVERY_ROWS = 500;
+
+    // "rollup" reads the daily rollups, "aggregation" runs the totals inside MongoDB,
+    // "memory" loads the transactions and sums them here
+    @Value("${report.engine:rollup}")
+    private String reportEngine;
+
+    // The in-memory engine sums lists longer than this on the fork/join pool
+    @Value("${report.parallel-threshold:" + ReportAccumulator.DEFAULT_PARALLEL_THRESHOLD + "}")
+    private int parallelThreshold;
+
     public Report generateReport(String userId, LocalDateTime startDate, LocalDateTime endDate, List<Transaction.TransactionCategory> categories, List<String> tags) {
-        // Fetch transactions based on filters
+        return reportCache.get(userId, startDate, endDate, categories, tags,
+                () -> computeReport(userId, startDate, endDate, categories, tags));
+    }
 
-        // If categories is null, fetch all categories
-        if (categories == null) {
-            categories = List.of(Transaction.TransactionCategory.values());
+    // Cache stats for the admin endpoint
+    public Map<String, Object> getCacheStats() {
+        return reportCache.stats();
+    }
+
+    private Report computeReport(String userId, LocalDateTime startDate, LocalDateTime endDate, List<Transaction.TransactionCategory> categories, List<String> tags) {
+        if ("memory".equalsIgnoreCase(reportEngine)) {
+            return generateReportInMemory(userId, startDate, endDate, categories, tags);
         }
-        // Convert enum values to strings
-        List<String> categoryStrings = categories.stream()
-                .map(Enum::name) // Convert enum to string
-                .collect(Collectors.toList());
+        if ("aggregation".equalsIgnoreCase(reportEngine)) {
+            return generateReportWithAggregation(userId, startDate, endDate, categories, tags);
+        }
+        return generateReportFromRollups(userId, startDate, endDate, categories, tags);
+    }
+
+    // ✅ Answer from the daily rollups: whole days come from transaction_rollups, and only the
+    // partial days at either end of the range are read from the raw transactions
+    public Report generateReportFromRollups(String userId, LocalDateTime startDate, LocalDateTime endDate, List<Transaction.TransactionCategory> categories, List<String> tags) {
+        // Rollups are not split by tag and need a bounded range
+        if ((tags != null && !tags.isEmpty()) || startDate == null || endDate == null) {
+            return generateReportWithAggregation(userId, startDate, endDate, categories, tags);
+        }
+
+        LocalDate firstFullDay = startDate.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? startDate.toLocalDate()
+                : startDate.toLocalDate().plusDays(1);
+        LocalDate lastFullDay = endDate.toLocalTime().equals(LocalTime.MAX)
+                ? endDate.toLocalDate()
+                : endDate.toLocalDate().minusDays(1);
+
+        if (firstFullDay.isAfter(lastFullDay)) {
+            return generateReportWithAggregation(userId, startDate, endDate, categories, tags);
+        }
+
+        Report report = transactionRollupService.aggregateReport(userId, firstFullDay, lastFullDay, toCategoryStrings(categories));
+
+        // Leading partial day: [startDate, firstFullDay 00:00)
+        LocalDateTime leadingEnd = firstFullDay.atStartOfDay().minusNanos(1);
+        if (!startDate.isAfter(leadingEnd)) {
+            report = ReportUtil.merge(report, generateReportWithAggregation(userId, startDate, leadingEnd, categories, tags));
+        }
+        // Trailing partial day: (lastFullDay 23:59:59.999..., endDate]
+        LocalDateTime trailingStart = lastFullDay.plusDays(1).atStartOfDay();
+        if (!endDate.isBefore(trailingStart)) {
+            report = ReportUtil.merge(report, generateReportWithAggregation(userId, trailingStart, endDate, categories, tags));
+        }
+        return report;
+    }
+
+    // ✅ Let MongoDB compute the totals, only the grouped sums come back over the wire
+    public Report generateReportWithAggregation(String userId, LocalDateTime startDate, LocalDateTime endDate, List<Transaction.TransactionCategory> categories, List<String> tags) {
+        return transactionRepository.aggregateReport(
+                userId, startDate, endDate, toCategoryStrings(categories), tags == null ? List.of() : tags);
+    }
+
+    // ✅ In-JVM path over the loaded transactions, kept as a fallback and as the baseline for benchmarks
+    public Report generateReportInMemory(String userId, LocalDateTime startDate, LocalDateTime endDate, List<Transaction.TransactionCategory> categories, List<String> tags) {
+        // Fetch transactions based on filters
+        List<String> categoryStrings = toCategoryStrings(categories);
         // If tags is null, use an empty list
         if (tags == null) {
             tags = List.of();
@@ -45,32 +141,85 @@ public class ReportService {
         List<Transaction> transactions = transactionRepository.findByUserIdAndTransactionDateBetweenAndTransactionCategoryInAndTagsIn(
                 userId, startDate, endDate, categoryStrings, tags);
 
-        // Calculate total income and expenses
-        BigDecimal totalIncome = transactions.stream()
-                .filter(t -> Transaction.TransactionType.INCOME.equals(t.getTransactionType())) // Compare to enum value
-                .map(t -> new BigDecimal(String.valueOf(t.getTransactionAmount())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalExpenses = transactions.stream()
-                .filter(t -> Transaction.TransactionType.EXPENSE.equals(t.getTransactionType())) // Compare to enum value
-                .map(t -> new BigDecimal(String.valueOf(t.getTransactionAmount())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Group transactions by category
-        Map<Transaction.TransactionCategory, BigDecimal> categoryTotals = transactions.stream()
-                .filter(t -> Transaction.TransactionType.EXPENSE.equals(t.getTransactionType())) // Compare to enum value
-                .collect(Collectors.groupingBy(
-                        Transaction::getTransactionCategory,
-                        Collectors.reducing(BigDecimal.ZERO, t -> new BigDecimal(String.valueOf(t.getTransactionAmount())), BigDecimal::add)
-                ));
-
-        // Build the report
-        Report report = new Report();
-        report.setTotalIncome(totalIncome);
-        report.setTotalExpenses(totalExpenses);
-        report.setCategoryTotals(categoryTotals);
+        // One pass over the list; very large ranges are split across the fork/join pool
+        return ReportAccumulator.parallel(transactions, parallelThreshold).toReport();
+    }
 
-        return report;
+    // ✅ Income, expense and category totals per day, week or month in the user's time zone, from one
+    // aggregation. The range is widened to whole buckets; with compare, the same number of buckets right
+    // before it is read by the same query and returned as previous.
+    public ReportSeries generateSeries(String userId, ReportSeries.Granularity granularity, LocalDate from, LocalDate to,
+                                       ZoneId zone, List<Transaction.TransactionCategory> categories, boolean compare) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        ChronoUnit step = step(granularity);
+        LocalDate first = truncate(from, granularity);
+        LocalDate end = truncate(to, granularity).plus(1, step); // exclusive
+        long count = step.between(first, end);
+        if (count > MAX_SERIES_BUCKETS) {
+            throw new IllegalArgumentException("A series has at most " + MAX_SERIES_BUCKETS + " buckets, this range has " + count + ".");
+        }
+        LocalDate queryStart = compare ? first.minus(count, step) : first;
+
+        // Stored transaction dates are instants, so bucket boundaries are the user's local midnights
+        List<Document> rows = transactionRepository.aggregateSeries(userId,
+                queryStart.atStartOfDay(zone).toInstant(), end.atStartOfDay(zone).toInstant(),
+                granularity.getUnit(), mongoTimeZone(zone), toCategoryStrings(categories));
+
+        Map<LocalDate, ReportAccumulator> totals = new HashMap<>();
+        for (Document row : rows) {
+            Document id = row.get("_id", Document.class);
+            LocalDate bucket = id.getDate("bucket").toInstant().atZone(zone).toLocalDate();
+            ReportUtil.addGroupedRow(totals.computeIfAbsent(bucket, b -> new ReportAccumulator()), id, row.get("total"));
+        }
+
+        return new ReportSeries(granularity, zone.getId(),
+                buckets(first, count, step, totals),
+                compare ? buckets(queryStart, count, step, totals) : null);
+    }
+
+    // count contiguous buckets from start; buckets without transactions get zero totals
+    private List<ReportSeries.Bucket> buckets(LocalDate start, long count, ChronoUnit step, Map<LocalDate, ReportAccumulator> totals) {
+        List<ReportSeries.Bucket> buckets = new ArrayList<>((int) count);
+        for (long i = 0; i < count; i++) {
+            LocalDate bucket = start.plus(i, step);
+            ReportAccumulator accumulator = totals.getOrDefault(bucket, new ReportAccumulator());
+            buckets.add(new ReportSeries.Bucket(bucket, accumulator.toReport()));
+        }
+        return buckets;
+    }
+
+    // First day of the bucket holding date, matching $dateTrunc with startOfWeek monday
+    private static LocalDate truncate(LocalDate date, ReportSeries.Granularity granularity) {
+        return switch (granularity) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    // $dateTrunc takes an Olson id or a "+hh:mm" offset; ZoneOffset.UTC's id is "Z"
+    private static String mongoTimeZone(ZoneId zone) {
+        return ZoneOffset.UTC.equals(zone) ? "+00:00" : zone.getId();
+    }
+
+    private static ChronoUnit step(ReportSeries.Granularity granularity) {
+        return switch (granularity) {
+            case DAY -> ChronoUnit.DAYS;
+            case WEEK -> ChronoUnit.WEEKS;
+            case MONTH -> ChronoUnit.MONTHS;
+        };
+    }
+
+    // If categories is null, fetch all categories, then convert enum values to strings
+    private List<String> toCategoryStrings(List<Transaction.TransactionCategory> categories) {
+        if (categories == null) {
+            categories = List.of(Transaction.TransactionCategory.values());
+        }
+        return categories.stream()
+                .map(Enum::name) // Convert enum to string
+                .collect(Collectors.toList());
     }
 
     public byte[] generateCsvReport(Report report) {
@@ -84,7 +233,7 @@ public class ReportService {
             writer.println(report.getTotalIncome() + "," + report.getTotalExpenses() + ",,");
 
             // Write category-wise totals
-            for (Map.Entry<Transaction.TransactionCategory, BigDecimal> entry : report.getCategoryTotals().entrySet()) {
+            for (Map.Entry<Transaction.TransactionCategory, Money> entry : report.getCategoryTotals().entrySet()) {
                 writer.println(",," + entry.getKey() + "," + entry.getValue());
             }
 
@@ -96,4 +245,68 @@ public class ReportService {
             throw new RuntimeException("Error generating CSV report", e);
         }
     }
+
+    // ✅ Stream a user's raw transactions as CSV straight from the Mongo cursor, all of them or those in
+    // [startDate, endDate] (both or neither must be given).
+    // Only one row is held in memory at a time; output is flushed every few hundred rows
+    // so the client starts receiving data before the query has finished.
+    public void writeTransactionsCsv(String userId, LocalDateTime startDate, LocalDateTime endDate, OutputStream outputStream) throws IOException {
+        writeTransactionsCsv(userId, startDate, endDate, outputStream, rows -> { });
+    }
+
+    // Same, reporting the number of rows written so far each time the output is flushed
+    public void writeTransactionsCsv(String userId, LocalDateTime startDate, LocalDateTime endDate, OutputStream outputStream,
+                                     LongConsumer progress) throws IOException {
+        if ((startDate == null) != (endDate == null)) {
+            throw new IllegalArgumentException("startDate and endDate must be given together");
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+
+        try (Stream<Transaction> transactions = startDate != null
+                ? transactionRepository.streamByUserIdAndTransactionDateInRange(userId, startDate, endDate)
+                : transactionRepository.streamByUserIdOrderByTransactionDateAsc(userId)) {
+
+            // Write CSV header
+            writer.write("Transaction ID,Date,Type,Category,Amount,Description,Tags,Recurring,Recurrence Pattern\n");
+            writer.flush();
+
+            int rows = 0;
+            Iterator<Transaction> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                Transaction t = iterator.next();
+                writer.write(csvRow(t));
+                if (++rows % CSV_FLUSH_EVERY_ROWS == 0) {
+                    writer.flush();
+                    progress.accept(rows);
+                }
+            }
+            writer.flush();
+            progress.accept(rows);
+            logger.info("Exported {} transactions for user {}", rows, userId);
+        }
+    }
+
+    private String csvRow(Transaction t) {
+        return csvField(t.getTransactionId()) + "," +
+                csvField(t.getTransactionDate()) + "," +
+                csvField(t.getTransactionType()) + "," +
+                csvField(t.getTransactionCategory()) + "," +
+                csvField(t.getTransactionAmount() == null ? null : t.getTransactionAmount().toPlainString()) + "," +
+                csvField(t.getTransactionDescription()) + "," +
+                csvField(t.getTags() == null ? null : String.join(";", t.getTags())) + "," +
+                csvField(t.getRecurring()) + "," +
+                csvField(t.getRecurrencePattern()) + "\n";
+    }
+
+    // Quote values that contain separators, quotes or line breaks
+    static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
 }
@@ -0,0 +1,46 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.SchedulerLock;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+// Lease-based locks in MongoDB, so a task scheduled on every replica runs on one of them at a time.
+// A lock whose holder died frees itself when the lease runs out.
+@Service
+public class SchedulerLockService {
+
+    private final MongoTemplate mongoTemplate;
+
+    public SchedulerLockService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // ✅ Take (or extend) the lock for `lease`; false while another owner holds it
+    public boolean tryAcquire(String name, String owner, Duration lease) {
+        Instant now = Instant.now();
+        Query query = new Query(Criteria.where("_id").is(name).orOperator(
+                Criteria.where("locked_until").lt(now),
+                Criteria.where("owner").is(owner)));
+        try {
+            // No match means either a held lock (the insert then fails on _id) or no lock yet (it is created)
+            mongoTemplate.upsert(query, new Update().set("owner", owner).set("locked_until", now.plus(lease)),
+                    SchedulerLock.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    // ✅ Give the lock up early; only its owner can
+    public void release(String name, String owner) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(name).and("owner").is(owner)),
+                new Update().set("locked_until", Instant.now()), SchedulerLock.class);
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.finance_tracker.Service;
 
+import com.example.finance_tracker.Entity.EmailMessage;
+import com.example.finance_tracker.Utility.TokenBucket;
+import com.sendgrid.Client;
 import com.sendgrid.Method;
 import com.sendgrid.Request;
 import com.sendgrid.Response;
@@ -7,39 +10,147 @@ import com.sendgrid.SendGrid;
 import com.sendgrid.helpers.mail.Mail;
 import com.sendgrid.helpers.mail.objects.Content;
 import com.sendgrid.helpers.mail.objects.Email;
+import com.sendgrid.helpers.mail.objects.Personalization;
+import jakarta.annotation.PreDestroy;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
+// SendGrid transport used by the EmailDispatcher.
+// One client with a pooled, keep-alive HTTP connection manager is shared by all workers, and every
+// API call first takes a token from the rate limiter.
 @Service
 public class SendGridEmailService {
 
-    @Value("${sendgrid.api.key}")
-    private String sendGridApiKey;
+    private static final Logger logger = LoggerFactory.getLogger(SendGridEmailService.class);
 
-    // Method to send an email
-    public void sendEmail(String toEmail, String subject, String content) {
-        Email from = new Email("no-reply@financetracker.com"); // Replace with your sender email
-        Email to = new Email("nimashafdop@gmail.com"); // Recipient email
-        Content emailContent = new Content("text/plain", content); // Email content (plain text)
+    // SendGrid allows up to 1000 personalizations per request
+    public static final int MAX_PERSONALIZATIONS = 1000;
 
-        Mail mail = new Mail(from, subject, to, emailContent);
+    // Per-personalization substitutions are limited to 10,000 bytes; longer bodies are sent on their own
+    public static final int MAX_SUBSTITUTION_BYTES = 9_000;
 
-        SendGrid sg = new SendGrid(sendGridApiKey);
-        Request request = new Request();
+    // Placeholder in the shared body that each personalization replaces with its own message
+    private static final String BODY_TAG = "%message_body%";
+
+    public enum Outcome {
+        SENT,      // accepted by the provider
+        RETRY,     // throttled, provider error or network failure
+        REJECTED   // the request itself was refused (4xx); retrying it unchanged will not help
+    }
+
+    public record SendResult(Outcome outcome, int statusCode, String detail) {
+    }
+
+    private final CloseableHttpClient httpClient;
+    private final SendGrid sendGrid;
+    private final TokenBucket rateLimiter;
+    private final String fromEmail;
+
+    @Autowired
+    public SendGridEmailService(@Value("${sendgrid.api.key}") String sendGridApiKey,
+                                @Value("${sendgrid.from:no-reply@financetracker.com}") String fromEmail,
+                                @Value("${sendgrid.host:api.sendgrid.com}") String host,
+                                @Value("${sendgrid.use-http:false}") boolean useHttp,
+                                @Value("${sendgrid.max-connections:16}") int maxConnections,
+                                @Value("${email.rate-limit.per-second:10}") double requestsPerSecond,
+                                @Value("${email.rate-limit.burst:20}") double burst) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(5_000)
+                        .setSocketTimeout(30_000)
+                        .build())
+                .build();
+
+        // useHttp is only for a local stub server standing in for SendGrid
+        this.sendGrid = new SendGrid(sendGridApiKey, new Client(httpClient, useHttp));
+        this.sendGrid.setHost(host);
+        this.rateLimiter = new TokenBucket(requestsPerSecond, burst);
+        this.fromEmail = fromEmail;
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        httpClient.close();
+    }
+
+    // ✅ Send a batch of messages with one API call: one personalization per recipient,
+    // each with its own subject and body
+    public SendResult send(List<EmailMessage> messages) {
+        if (messages.isEmpty() || messages.size() > MAX_PERSONALIZATIONS) {
+            throw new IllegalArgumentException("A request carries 1 to " + MAX_PERSONALIZATIONS + " messages.");
+        }
 
+        Request request = new Request();
+        request.setMethod(Method.POST);
+        request.setEndpoint("mail/send");
         try {
-            request.setMethod(Method.POST);
-            request.setEndpoint("mail/send");
-            request.setBody(mail.build());
-            Response response = sg.api(request);
-
-            // Log the response status and body
-            System.out.println("Email sent! Status Code: " + response.getStatusCode());
-            System.out.println("Response Body: " + response.getBody());
-        } catch (IOException ex) {
-            System.err.println("Failed to send email: " + ex.getMessage());
+            request.setBody(buildMail(messages).build());
+            rateLimiter.acquire();
+            Response response = sendGrid.api(request);
+
+            int status = response.getStatusCode();
+            if (status >= 200 && status < 300) {
+                return new SendResult(Outcome.SENT, status, null);
+            }
+            String detail = "SendGrid returned " + status + ": " + response.getBody();
+            if (status == 429 || status >= 500) {
+                return new SendResult(Outcome.RETRY, status, detail);
+            }
+            return new SendResult(Outcome.REJECTED, status, detail);
+
+        } catch (IOException e) {
+            logger.warn("SendGrid request failed: {}", e.getMessage());
+            return new SendResult(Outcome.RETRY, 0, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new SendResult(Outcome.RETRY, 0, "Interrupted");
+        }
+    }
+
+    // Whether a message fits in a shared multi-personalization request
+    public static boolean isBatchable(EmailMessage message) {
+        return !message.isSolo() && message.getContent() != null
+                && message.getContent().getBytes(StandardCharsets.UTF_8).length <= MAX_SUBSTITUTION_BYTES;
+    }
+
+    private Mail buildMail(List<EmailMessage> messages) {
+        Mail mail = new Mail();
+        mail.setFrom(new Email(fromEmail));
+
+        if (messages.size() == 1) {
+            EmailMessage message = messages.get(0);
+            Personalization personalization = new Personalization();
+            personalization.addTo(new Email(message.getToEmail()));
+            mail.addPersonalization(personalization);
+            mail.setSubject(message.getSubject());
+            mail.addContent(new Content("text/plain", message.getContent()));
+            return mail;
+        }
+
+        // Recipients never see each other: each personalization has a single "to"
+        mail.addContent(new Content("text/plain", BODY_TAG));
+        for (EmailMessage message : messages) {
+            Personalization personalization = new Personalization();
+            personalization.addTo(new Email(message.getToEmail()));
+            personalization.setSubject(message.getSubject());
+            personalization.addSubstitution(BODY_TAG, message.getContent());
+            mail.addPersonalization(personalization);
         }
+        return mail;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,326 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.SpendingStats;
+import com.example.finance_tracker.Entity.Transaction;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Per-(user, category) running count / mean / variance of expenses, used to flag outliers as they arrive
+@Service
+public class SpendingStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpendingStatsService.class);
+
+    // Used instead of the z-score while a category's history has no spread at all
+    private static final double FLAT_HISTORY_FACTOR = 1.5;
+
+    // A rebuild gives up on a row after this many conditional swaps lost to concurrent writes
+    private static final int MAX_SWAP_ATTEMPTS = 5;
+
+    private final MongoTemplate mongoTemplate;
+    private final NotificationService notificationService;
+
+    // Runs startRebuildAll off the request thread, one rebuild at a time
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean rebuildingAll = new AtomicBoolean();
+
+    // Standard deviations above the mean that make an expense unusual
+    @Value("${spending.anomaly.z-threshold:3.0}")
+    private double zThreshold = 3.0;
+
+    // Expenses a category needs before new ones are scored
+    @Value("${spending.anomaly.min-samples:5}")
+    private long minSamples = 5;
+
+    @Autowired
+    public SpendingStatsService(MongoTemplate mongoTemplate, NotificationService notificationService) {
+        this.mongoTemplate = mongoTemplate;
+        this.notificationService = notificationService;
+    }
+
+    // ✅ Add a new expense to its running stats and alert the user straight away if it is an outlier.
+    // The stats are updated atomically on the server; the expense is scored against the values before it.
+    public void recordAndCheck(Transaction transaction) {
+        if (!isTracked(transaction)) {
+            return;
+        }
+        double amount = transaction.getTransactionAmount().doubleValue();
+
+        SpendingStats before = mongoTemplate.findAndModify(keyQuery(transaction), merge(1, amount, 0),
+                FindAndModifyOptions.options().upsert(true).returnNew(false), SpendingStats.class);
+
+        if (isOutlier(before, amount)) {
+            String message = "Unusual spending detected in category: " + transaction.getTransactionCategory() +
+                    ". You spent " + transaction.getTransactionAmount() + ", which is higher than your average spending.";
+            try {
+                notificationService.sendAlert(new NotificationService.Alert(transaction.getUserId(),
+                        "transaction:" + transaction.getTransactionId(), "Unusual Spending Alert", message));
+            } catch (RuntimeException e) {
+                // The transaction is already saved; a failed alert must not fail the request
+                logger.error("Failed to send unusual spending alert for transaction {}", transaction.getTransactionId(), e);
+            }
+        }
+    }
+
+    // ✅ Add an expense to its running stats without scoring it (e.g. the new values of an updated transaction)
+    public void record(Transaction transaction) {
+        if (!isTracked(transaction)) {
+            return;
+        }
+        mongoTemplate.upsert(keyQuery(transaction), merge(1, transaction.getTransactionAmount().doubleValue(), 0),
+                SpendingStats.class);
+    }
+
+    // ✅ Take an expense back out of its running stats (on update or delete)
+    public void remove(Transaction transaction) {
+        if (!isTracked(transaction)) {
+            return;
+        }
+        mongoTemplate.updateFirst(keyQuery(transaction), merge(-1, transaction.getTransactionAmount().doubleValue(), 0),
+                SpendingStats.class);
+    }
+
+    // ✅ Add a batch of expenses: Welford per (user, category) in memory, then one merge per key in a single bulk write
+    public void recordAll(List<Transaction> transactions) {
+        Map<List<Object>, SpendingStats> deltas = new HashMap<>();
+        transactions.stream().filter(this::isTracked).forEach(t -> accumulate(deltas, t));
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SpendingStats.class);
+        for (SpendingStats delta : deltas.values()) {
+            bulk.upsert(keyQuery(delta.getUserId(), delta.getTransactionCategory()),
+                    merge(delta.getCount(), delta.getMean(), delta.getM2()));
+        }
+        bulk.execute();
+    }
+
+    // An expense is an outlier when it is more than zThreshold standard deviations above the mean
+    boolean isOutlier(SpendingStats stats, double amount) {
+        if (stats == null || stats.getCount() < minSamples) {
+            return false;
+        }
+        double standardDeviation = stats.standardDeviation();
+        if (standardDeviation == 0) {
+            return amount > FLAT_HISTORY_FACTOR * stats.getMean();
+        }
+        return (amount - stats.getMean()) / standardDeviation > zThreshold;
+    }
+
+    // ✅ Start rebuildAll in the background; false if this node is already running one
+    public boolean startRebuildAll() {
+        if (!rebuildingAll.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            rebuildExecutor.execute(() -> {
+                try {
+                    rebuildAll();
+                } finally {
+                    rebuildingAll.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rebuildingAll.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    // ✅ Backfill job: recompute every user's stats from their transaction history
+    public void rebuildAll() {
+        List<String> userIds = mongoTemplate.findDistinct(new Query(), "user_id", Transaction.class, String.class);
+        logger.info("Rebuilding spending stats for {} users", userIds.size());
+        for (String userId : userIds) {
+            try {
+                rebuildForUser(userId);
+            } catch (RuntimeException e) {
+                logger.error("Rebuilding spending stats for user {} failed", userId, e);
+            }
+        }
+        logger.info("Spending stats rebuild finished");
+    }
+
+    // ✅ Recompute one user's stats with a single $group while their expenses keep changing. The current rows
+    // (with their write counters) are read first; each is then swapped for the recomputed stats only if no
+    // merge reached it in the meantime, otherwise that category is recomputed and tried again.
+    public void rebuildForUser(String userId) {
+        Map<Transaction.TransactionCategory, SpendingStats> current = new EnumMap<>(Transaction.TransactionCategory.class);
+        mongoTemplate.find(new Query(Criteria.where("user_id").is(userId)), SpendingStats.class)
+                .forEach(row -> current.put(row.getTransactionCategory(), row));
+        Map<Transaction.TransactionCategory, SpendingStats> rebuilt = computeStats(userId, null);
+
+        Set<Transaction.TransactionCategory> categories = EnumSet.noneOf(Transaction.TransactionCategory.class);
+        categories.addAll(current.keySet());
+        categories.addAll(rebuilt.keySet());
+        for (Transaction.TransactionCategory category : categories) {
+            SpendingStats row = current.get(category);
+            SpendingStats target = rebuilt.get(category);
+            int attempts = 1;
+            while (!swap(row, target)) {
+                if (++attempts > MAX_SWAP_ATTEMPTS) {
+                    logger.warn("Spending stats of user {} in {} kept changing during the rebuild; left as they are", userId, category);
+                    break;
+                }
+                row = mongoTemplate.findOne(keyQuery(userId, category), SpendingStats.class);
+                target = computeStats(userId, category).get(category);
+            }
+        }
+    }
+
+    // (count, mean, m2) per category of the user's expenses, or of one category; m2 is recovered from the
+    // population variance. Rows of categories this version does not know are skipped.
+    private Map<Transaction.TransactionCategory, SpendingStats> computeStats(String userId, Transaction.TransactionCategory only) {
+        Criteria criteria = Criteria.where("user_id").is(userId)
+                .and("transaction_type").is(Transaction.TransactionType.EXPENSE.name())
+                .and("transaction_amount").ne(null);
+        criteria = only != null ? criteria.and("transaction_category").is(only.name()) : criteria.and("transaction_category").ne(null);
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.group("transaction_category")
+                        .count().as("count")
+                        .avg(ConvertOperators.valueOf("transaction_amount").convertToDouble()).as("mean")
+                        .stdDevPop(ConvertOperators.valueOf("transaction_amount").convertToDouble()).as("std")
+        );
+
+        Map<Transaction.TransactionCategory, SpendingStats> stats = new EnumMap<>(Transaction.TransactionCategory.class);
+        for (Document row : mongoTemplate.aggregate(aggregation, "transactions", Document.class).getMappedResults()) {
+            Transaction.TransactionCategory category;
+            try {
+                category = Transaction.TransactionCategory.valueOf(row.getString("_id"));
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            long count = ((Number) row.get("count")).longValue();
+            double std = ((Number) row.get("std")).doubleValue();
+            stats.put(category, new SpendingStats(userId, category, count, ((Number) row.get("mean")).doubleValue(), std * std * count));
+        }
+        return stats;
+    }
+
+    // Replace the row with the target stats if its write counter has not moved since it was read.
+    // A missing row is inserted (losing to a concurrent upsert on the unique key), a row with no
+    // expenses left is removed.
+    private boolean swap(SpendingStats row, SpendingStats target) {
+        if (row == null && target == null) {
+            return true;
+        }
+        if (row == null) {
+            try {
+                mongoTemplate.insert(target);
+                return true;
+            } catch (DuplicateKeyException e) {
+                return false;
+            }
+        }
+        // Rows written before the counter existed have no writes field
+        Criteria key = Criteria.where("user_id").is(row.getUserId()).and("transaction_category").is(row.getTransactionCategory());
+        Query unchanged = new Query(row.getWrites() == 0
+                ? key.and("writes").in(Arrays.asList(0L, null))
+                : key.and("writes").is(row.getWrites()));
+        if (target == null) {
+            return mongoTemplate.remove(unchanged, SpendingStats.class).getDeletedCount() == 1;
+        }
+        return mongoTemplate.updateFirst(unchanged,
+                new Update().set("count", target.getCount())
+                        .set("mean", target.getMean())
+                        .set("m2", target.getM2())
+                        .set("updated_at", Instant.now()),
+                SpendingStats.class).getMatchedCount() == 1;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdown();
+    }
+
+    // Only expenses with a category and an amount are tracked
+    private boolean isTracked(Transaction transaction) {
+        return transaction.getTransactionType() == Transaction.TransactionType.EXPENSE
+                && transaction.getTransactionCategory() != null
+                && transaction.getTransactionAmount() != null;
+    }
+
+    private Query keyQuery(Transaction transaction) {
+        return keyQuery(transaction.getUserId(), transaction.getTransactionCategory());
+    }
+
+    private Query keyQuery(String userId, Transaction.TransactionCategory category) {
+        return new Query(Criteria.where("user_id").is(userId).and("transaction_category").is(category));
+    }
+
+    // Welford's update for one expense on an in-memory (count, mean, m2)
+    private void accumulate(Map<List<Object>, SpendingStats> deltas, Transaction t) {
+        SpendingStats stats = deltas.computeIfAbsent(List.of(t.getUserId(), t.getTransactionCategory()),
+                k -> new SpendingStats(t.getUserId(), t.getTransactionCategory(), 0, 0, 0));
+        double amount = t.getTransactionAmount().doubleValue();
+        long count = stats.getCount() + 1;
+        double delta = amount - stats.getMean();
+        double mean = stats.getMean() + delta / count;
+        stats.setCount(count);
+        stats.setMean(mean);
+        stats.setM2(stats.getM2() + delta * (amount - mean));
+    }
+
+    // Pipeline update combining the stored (count, mean, m2) with (n, mean, m2) of new samples
+    // (Chan et al. parallel form of Welford). n = 1 adds one expense, n = -1 takes one back out.
+    // Running on the server keeps concurrent writers from overwriting each other.
+    private AggregationUpdate merge(long n, double mean, double m2) {
+        Document prior = new Document("_n", new Document("$ifNull", List.of("$count", 0L)))
+                .append("_mean", new Document("$ifNull", List.of("$mean", 0.0)))
+                .append("_m2", new Document("$ifNull", List.of("$m2", 0.0)));
+        Document count = new Document("count", new Document("$max", List.of(0L, new Document("$add", List.of("$_n", n)))))
+                .append("writes", new Document("$add", List.of(new Document("$ifNull", List.of("$writes", 0L)), 1L)));
+
+        Document delta = new Document("$subtract", List.of(mean, "$_mean"));
+        Document empty = new Document("$lte", List.of("$count", 0));
+        Document newMean = new Document("$add", List.of("$_mean",
+                new Document("$divide", List.of(new Document("$multiply", List.of(delta, n)), "$count"))));
+        Document newM2 = new Document("$max", List.of(0.0, new Document("$add", List.of("$_m2", m2,
+                new Document("$divide", List.of(new Document("$multiply", List.of(delta, delta, "$_n", n)), "$count"))))));
+        Document moments = new Document("mean", new Document("$cond", List.of(empty, 0.0, newMean)))
+                .append("m2", new Document("$cond", List.of(empty, 0.0, newM2)))
+                .append("updated_at", new Date());
+
+        return AggregationUpdate.from(List.of(
+                stage("$set", prior),
+                stage("$set", count),
+                stage("$set", moments),
+                stage("$unset", List.of("_n", "_mean", "_m2"))));
+    }
+
+    private static AggregationOperation stage(String operator, Object value) {
+        return context -> new Document(operator, value);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.TokenRevocation;
+import com.example.finance_tracker.Utility.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Invalidates the tokens of users who were changed or deleted.
+// Checks are answered from memory; other instances pick up a revocation on their next poll,
+// so a revoked token stays usable for at most one poll interval there.
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    // Re-read a little before the last poll so rows written by slower clocks are not missed
+    private static final Duration POLL_OVERLAP = Duration.ofSeconds(30);
+
+    private final MongoTemplate mongoTemplate;
+    private final Duration tokenLifetime;
+
+    // userId -> tokens issued before this instant are rejected
+    private final Map<String, Instant> revocations = new ConcurrentHashMap<>();
+
+    private volatile Instant lastPoll = Instant.EPOCH;
+
+    @Autowired
+    public TokenRevocationService(MongoTemplate mongoTemplate, JwtUtil jwtUtil) {
+        this.mongoTemplate = mongoTemplate;
+        this.tokenLifetime = Duration.ofMillis(jwtUtil.getExpirationTime());
+    }
+
+    // ✅ Reject every token of this user issued until now
+    public void revokeUser(String userId) {
+        if (userId == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        revocations.put(userId, now);
+        mongoTemplate.save(new TokenRevocation(userId, now, now.plus(tokenLifetime)));
+        logger.info("Revoked tokens of user {}", userId);
+    }
+
+    // ✅ True when the token was issued before the user's last revocation
+    public boolean isRevoked(String userId, Date issuedAt) {
+        Instant revokedAt = revocations.get(userId);
+        if (revokedAt == null) {
+            return false;
+        }
+        // iat has second precision; a token issued in the same second as the revocation is kept
+        return issuedAt == null || issuedAt.toInstant().isBefore(revokedAt.truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    // Pull revocations written by any instance and forget the ones whose tokens have all expired
+    @Scheduled(fixedDelayString = "${auth.revocation.poll-interval-ms:5000}")
+    public void refresh() {
+        Instant pollStart = Instant.now();
+        Query query = new Query(Criteria.where("revoked_at").gt(lastPoll.minus(POLL_OVERLAP)))
+                .with(Sort.by(Sort.Direction.ASC, "revoked_at"));
+        List<TokenRevocation> changed = mongoTemplate.find(query, TokenRevocation.class);
+        for (TokenRevocation revocation : changed) {
+            revocations.merge(revocation.getId(), revocation.getRevokedAt(),
+                    (current, polled) -> polled.isAfter(current) ? polled : current);
+        }
+        Instant oldestLiveToken = pollStart.minus(tokenLifetime);
+        revocations.values().removeIf(revokedAt -> revokedAt.isBefore(oldestLiveToken));
+        lastPoll = pollStart;
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.Report;
+import com.example.finance_tracker.Entity.Transaction;
+import com.example.finance_tracker.Entity.TransactionRollup;
+import com.example.finance_tracker.Utility.Money;
+import com.example.finance_tracker.Utility.ReportUtil;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+@Service
+public class TransactionRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionRollupService.class);
+
+    // A rebuild gives up on a row after this many conditional swaps lost to concurrent writes
+    private static final int MAX_SWAP_ATTEMPTS = 5;
+
+    private final MongoTemplate mongoTemplate;
+
+    // Runs startRebuildAll off the request thread, one rebuild at a time
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean rebuildingAll = new AtomicBoolean();
+
+    @Autowired
+    public TransactionRollupService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // ✅ Add a saved transaction to its daily rollup
+    public void record(Transaction transaction) {
+        if (!isRollable(transaction)) {
+            return;
+        }
+        apply(transaction, transaction.getTransactionAmount(), 1);
+    }
+
+    // ✅ Take a transaction back out of its daily rollup (on update or delete)
+    public void remove(Transaction transaction) {
+        if (!isRollable(transaction)) {
+            return;
+        }
+        apply(transaction, transaction.getTransactionAmount().negate(), -1);
+    }
+
+    // ✅ Add a batch of saved transactions, summing per rollup key first and upserting each key once
+    public void recordAll(List<Transaction> transactions) {
+        Map<List<Object>, TransactionRollup> deltas = new HashMap<>();
+        transactions.stream().filter(this::isRollable).forEach(t -> accumulate(deltas, t));
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TransactionRollup.class);
+        for (TransactionRollup delta : deltas.values()) {
+            Query query = new Query(keyCriteria(delta.getUserId(), delta.getDay(), delta.getTransactionCategory(),
+                    delta.getTransactionType(), delta.isTagged()));
+            Update update = new Update()
+                    .inc("total", Money.toDecimal128(delta.getTotal()))
+                    .inc("count", delta.getCount())
+                    .inc("writes", 1);
+            bulk.upsert(query, update);
+        }
+        bulk.execute();
+    }
+
+    // Legacy rows without a date or amount never made it into a rollup
+    private boolean isRollable(Transaction transaction) {
+        return transaction.getTransactionDate() != null && transaction.getTransactionAmount() != null;
+    }
+
+    // Upsert the rollup row and $inc it, so concurrent writers never overwrite each other
+    private void apply(Transaction transaction, BigDecimal amount, long count) {
+        Query query = new Query(keyCriteria(
+                transaction.getUserId(),
+                transaction.getTransactionDate().toLocalDate(),
+                transaction.getTransactionCategory(),
+                transaction.getTransactionType(),
+                transaction.getTags() != null));
+
+        Update update = new Update()
+                .inc("total", Money.toDecimal128(amount))
+                .inc("count", count)
+                .inc("writes", 1);
+
+        mongoTemplate.upsert(query, update, TransactionRollup.class);
+    }
+
+    private Criteria keyCriteria(TransactionRollup rollup) {
+        return keyCriteria(rollup.getUserId(), rollup.getDay(), rollup.getTransactionCategory(),
+                rollup.getTransactionType(), rollup.isTagged());
+    }
+
+    private Criteria keyCriteria(String userId, LocalDate day, Transaction.TransactionCategory category,
+                                 Transaction.TransactionType type, boolean tagged) {
+        return Criteria.where("user_id").is(userId)
+                .and("day").is(day)
+                .and("transaction_category").is(category)
+                .and("transaction_type").is(type)
+                .and("tagged").is(tagged);
+    }
+
+    // ✅ Sum whole days [firstDay, lastDay] for untagged transactions, mirroring the report filter with no tags
+    public Report aggregateReport(String userId, LocalDate firstDay, LocalDate lastDay, List<String> categories) {
+        Criteria criteria = Criteria.where("user_id").is(userId)
+                .and("day").gte(firstDay).lte(lastDay)
+                .and("transaction_category").in(categories)
+                .and("tagged").is(false);
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.group("transaction_type", "transaction_category").sum("total").as("total"));
+
+        List<Document> rows = mongoTemplate.aggregate(aggregation, TransactionRollup.class, Document.class)
+                .getMappedResults();
+        return ReportUtil.fromGroupedRows(rows);
+    }
+
+    // Add one transaction to an in-memory map of rollups keyed like the collection's unique index
+    private void accumulate(Map<List<Object>, TransactionRollup> rollups, Transaction t) {
+        LocalDate day = t.getTransactionDate().toLocalDate();
+        boolean tagged = t.getTags() != null;
+        TransactionRollup rollup = rollups.computeIfAbsent(
+                key(t.getUserId(), day, t.getTransactionCategory(), t.getTransactionType(), tagged),
+                k -> new TransactionRollup(t.getUserId(), day, t.getTransactionCategory(), t.getTransactionType(),
+                        tagged, BigDecimal.ZERO, 0));
+        rollup.setTotal(rollup.getTotal().add(t.getTransactionAmount()));
+        rollup.setCount(rollup.getCount() + 1);
+    }
+
+    private static List<Object> key(String userId, LocalDate day, Transaction.TransactionCategory category,
+                                    Transaction.TransactionType type, boolean tagged) {
+        return List.of(userId, day, String.valueOf(category), String.valueOf(type), tagged);
+    }
+
+    private static List<Object> key(TransactionRollup rollup) {
+        return key(rollup.getUserId(), rollup.getDay(), rollup.getTransactionCategory(), rollup.getTransactionType(),
+                rollup.isTagged());
+    }
+
+    // ✅ Start rebuildAll in the background; false if this node is already running one
+    public boolean startRebuildAll() {
+        if (!rebuildingAll.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            rebuildExecutor.execute(() -> {
+                try {
+                    rebuildAll();
+                } finally {
+                    rebuildingAll.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rebuildingAll.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    // ✅ Backfill job: recompute every user's rollups from the raw transactions
+    public void rebuildAll() {
+        List<String> userIds = mongoTemplate.findDistinct(new Query(), "user_id", Transaction.class, String.class);
+        logger.info("Rebuilding transaction rollups for {} users", userIds.size());
+        for (String userId : userIds) {
+            try {
+                rebuildForUser(userId);
+            } catch (RuntimeException e) {
+                logger.error("Rebuilding transaction rollups for user {} failed", userId, e);
+            }
+        }
+        logger.info("Transaction rollup rebuild finished");
+    }
+
+    // ✅ Recompute one user's rollups while their transactions keep changing. The current rows (with their
+    // write counters) are read first, then the transactions are streamed so memory only holds the daily
+    // totals. Each row is then swapped for its new totals only if no $inc reached it in the meantime;
+    // otherwise that one day is read again and recomputed. Rows are never missing while this runs.
+    public void rebuildForUser(String userId) {
+        Map<List<Object>, TransactionRollup> current = new HashMap<>();
+        mongoTemplate.find(new Query(Criteria.where("user_id").is(userId)), TransactionRollup.class)
+                .forEach(row -> current.put(key(row), row));
+
+        Map<List<Object>, TransactionRollup> rebuilt = new HashMap<>();
+        Query query = new Query(Criteria.where("user_id").is(userId));
+        try (Stream<Transaction> transactions = mongoTemplate.stream(query, Transaction.class)) {
+            transactions
+                    .filter(this::isRollable)
+                    .forEach(t -> accumulate(rebuilt, t));
+        }
+
+        Set<List<Object>> keys = new HashSet<>(current.keySet());
+        keys.addAll(rebuilt.keySet());
+        for (List<Object> key : keys) {
+            TransactionRollup row = current.get(key);
+            TransactionRollup target = rebuilt.get(key);
+            TransactionRollup probe = row != null ? row : target;
+            int attempts = 1;
+            while (!swap(row, target)) {
+                if (++attempts > MAX_SWAP_ATTEMPTS) {
+                    logger.warn("Rollup {} of user {} kept changing during the rebuild; left as it is", key, userId);
+                    break;
+                }
+                row = mongoTemplate.findOne(new Query(keyCriteria(probe)), TransactionRollup.class);
+                target = recomputeDay(probe);
+            }
+        }
+    }
+
+    // Replace the row with the target totals if its write counter has not moved since it was read.
+    // A missing row is inserted (losing to a concurrent upsert on the unique key), a row with no
+    // transactions left is removed.
+    private boolean swap(TransactionRollup row, TransactionRollup target) {
+        if (row == null && target == null) {
+            return true;
+        }
+        if (row == null) {
+            try {
+                mongoTemplate.insert(target);
+                return true;
+            } catch (DuplicateKeyException e) {
+                return false;
+            }
+        }
+        Query unchanged = new Query(unchangedSince(row));
+        if (target == null) {
+            return mongoTemplate.remove(unchanged, TransactionRollup.class).getDeletedCount() == 1;
+        }
+        return mongoTemplate.updateFirst(unchanged,
+                new Update().set("total", Money.toDecimal128(target.getTotal())).set("count", target.getCount()),
+                TransactionRollup.class).getMatchedCount() == 1;
+    }
+
+    private Criteria unchangedSince(TransactionRollup row) {
+        // Rows written before the counter existed have no writes field
+        return row.getWrites() == 0
+                ? keyCriteria(row).and("writes").in(Arrays.asList(0L, null))
+                : keyCriteria(row).and("writes").is(row.getWrites());
+    }
+
+    // Totals of one rollup key straight from the transactions; null when it has none
+    private TransactionRollup recomputeDay(TransactionRollup key) {
+        Criteria criteria = Criteria.where("user_id").is(key.getUserId())
+                .and("transaction_date").gte(key.getDay().atStartOfDay()).lt(key.getDay().plusDays(1).atStartOfDay())
+                .and("transaction_category").is(key.getTransactionCategory())
+                .and("transaction_type").is(key.getTransactionType());
+        criteria = key.isTagged() ? criteria.and("tags").ne(null) : criteria.and("tags").is(null);
+
+        Map<List<Object>, TransactionRollup> day = new HashMap<>();
+        mongoTemplate.find(new Query(criteria), Transaction.class).stream()
+                .filter(this::isRollable)
+                .forEach(t -> accumulate(day, t));
+        return day.get(key(key));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdown();
+    }
+}
@@ -3,38 +3,59 @@ package com.example.finance_tracker.Service;
 import com.example.finance_tracker.Entity.Transaction;
 import com.example.finance_tracker.Repository.TransactionRepository;
 import com.example.finance_tracker.Entity.Report;
+import com.example.finance_tracker.Entity.TransactionBatchResult;
+import com.example.finance_tracker.Entity.TransactionPage;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
-import com.example.finance_tracker.Entity.Budget;
-import com.example.finance_tracker.Entity.Goal.Goal;
-import com.example.finance_tracker.Entity.Goal.GoalStatus;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
 public class TransactionService {
 
     private final TransactionRepository transactionRepository;
-    private final BudgetService budgetService;
-    private final GoalService goalService;
+    private final OutboxService outboxService;
+    private final TransactionRollupService transactionRollupService;
+    private final ReportCache reportCache;
+    private final SpendingStatsService spendingStatsService;
 
     @Autowired
-    public TransactionService(TransactionRepository transactionRepository, BudgetService budgetService, GoalService goalService) {
+    public TransactionService(TransactionRepository transactionRepository, OutboxService outboxService,
+                              TransactionRollupService transactionRollupService, ReportCache reportCache,
+                              SpendingStatsService spendingStatsService) {
         this.transactionRepository = transactionRepository;
-        this.budgetService = budgetService;
-        this.goalService = goalService;
+        this.outboxService = outboxService;
+        this.transactionRollupService = transactionRollupService;
+        this.reportCache = reportCache;
+        this.spendingStatsService = spendingStatsService;
     }
 
     // ✅ logging to track important events
     private static final Logger logger = LoggerFactory.getLogger(TransactionService.class); // new change
 
+    // Upper bound for one batch import request
+    private static final int MAX_BATCH_SIZE = 10_000;
+
+    // Upper bound for one page of a paginated listing
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    // Date part of a page cursor whose last row has no transaction date
+    private static final String UNDATED_CURSOR = "-";
+
     // ✅ Create a new transaction with error handling
     // ✅ Ensures required fields are present.
     public Transaction createTransaction(Transaction transaction) {
@@ -44,61 +65,99 @@ public class TransactionService {
         if (transaction.getRecurring() == null) {
             transaction.setRecurring(false); // Default to false if not provided
         }
-        // Save the transaction
-        Transaction createdTransaction = transactionRepository.save(transaction);
+        // Ids are assigned by the server: a client id could point at another user's transaction
+        transaction.setTransactionId(null);
+        // Record the budget/goal side effects first; the OutboxDispatcher applies them asynchronously
+        outboxService.enqueue(transaction);
+
+        // Insert, never save: a new transaction must not replace an existing one
+        Transaction createdTransaction = transactionRepository.insert(transaction);
+
+        // Keep the daily report rollups in step and drop the user's cached reports
+        transactionRollupService.record(createdTransaction);
+        reportCache.evictUser(createdTransaction.getUserId());
+
+        // Score the expense against the user's running stats and alert right away if it is unusual
+        spendingStatsService.recordAndCheck(createdTransaction);
 
-        // If the transaction is an expense, update the corresponding budget
-        if (transaction.getTransactionType() == Transaction.TransactionType.EXPENSE) {
-            updateBudgetForExpense(createdTransaction);
-        }
-        // If the transaction is an income, update the user's goals
-        if (transaction.getTransactionType() == Transaction.TransactionType.INCOME) {
-            updateGoalsForIncome(createdTransaction);
-        }
         return createdTransaction;
     }
 
-    // Helper method to update the budget when an expense is created
-    private void updateBudgetForExpense(Transaction expenseTransaction) {
-        // Find the budget for the user and category
-        List<Budget> budgets = budgetService.getBudgetsByUserId(expenseTransaction.getUserId());
+    // ✅ Create many transactions with a single unordered insert; budget/goal side effects go through the outbox,
+    // where the dispatcher sums them per (user, category) before applying them.
+    // Invalid, unauthorized or unwritable items are reported individually and do not stop the rest of the batch.
+    public List<TransactionBatchResult> createTransactions(List<Transaction> transactions, Predicate<String> canWriteForUser) {
+        if (transactions == null || transactions.isEmpty()) {
+            throw new IllegalArgumentException("At least one transaction is required.");
+        }
+        if (transactions.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("A batch can contain at most " + MAX_BATCH_SIZE + " transactions.");
+        }
+        logger.info("Creating batch of {} transactions", transactions.size());
+
+        TransactionBatchResult[] results = new TransactionBatchResult[transactions.size()];
+        List<Transaction> validTransactions = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+        Map<String, Boolean> permissions = new HashMap<>();
 
-        // Find the budget that matches the transaction category
-        Optional<Budget> matchingBudget = budgets.stream()
-                .filter(budget -> budget.getBudgetCategory().equals(expenseTransaction.getTransactionCategory().toString()))
-                .findFirst();
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            try {
+                validateTransaction(transaction);
+                if (!permissions.computeIfAbsent(transaction.getUserId(), canWriteForUser::test)) {
+                    throw new IllegalArgumentException("You are not authorized to create a transaction for another user.");
+                }
+                if (transaction.getRecurring() == null) {
+                    transaction.setRecurring(false); // Default to false if not provided
+                }
+                transaction.setTransactionId(null); // Assigned by the server, as in createTransaction
+                validTransactions.add(transaction);
+                validIndexes.add(i);
+            } catch (IllegalArgumentException e) {
+                results[i] = TransactionBatchResult.failed(i, e.getMessage());
+            }
+        }
 
-        if (matchingBudget.isPresent()) {
-            Budget budget = matchingBudget.get();
-            // Update the currentSpentAmount by adding the expense amount
-            BigDecimal newSpentAmount = budget.getCurrentSpentAmount().add(expenseTransaction.getTransactionAmount());
-            budget.setCurrentSpentAmount(newSpentAmount);
+        if (!validTransactions.isEmpty()) {
+            outboxService.enqueueAll(validTransactions);
 
-            // Save the updated budget
-            budgetService.createOrUpdateBudget(budget);
+            // One unordered insertMany for the whole batch: a failed row does not stop the ones after it
+            Map<Integer, String> writeErrors = transactionRepository.insertUnordered(validTransactions);
+            List<Transaction> createdTransactions = new ArrayList<>();
+            List<Transaction> failedTransactions = new ArrayList<>();
+            for (int i = 0; i < validTransactions.size(); i++) {
+                int index = validIndexes.get(i);
+                Transaction transaction = validTransactions.get(i);
+                if (writeErrors.containsKey(i)) {
+                    logger.warn("Batch item {} could not be inserted: {}", index, writeErrors.get(i));
+                    results[index] = TransactionBatchResult.failed(index, "The transaction could not be saved.");
+                    failedTransactions.add(transaction);
+                } else {
+                    results[index] = TransactionBatchResult.created(index, transaction.getTransactionId());
+                    createdTransactions.add(transaction);
+                }
+            }
+            // Side effects only for the rows that were written
+            if (!failedTransactions.isEmpty()) {
+                outboxService.discardAll(failedTransactions);
+            }
+            if (!createdTransactions.isEmpty()) {
+                applyBatchSideEffects(createdTransactions);
+            }
         }
+        return List.of(results);
     }
 
-    // Helper method to update the goals when an income is created
-    private void updateGoalsForIncome(Transaction incomeTransaction) {
-        // Get all goals for the user
-        List<Goal> userGoals = goalService.getUserGoals(incomeTransaction.getUserId());
-
-        // Add the income amount to the savedAmount of each goal
-        for (Goal goal : userGoals) {
-            double newSavedAmount = goal.getSavedAmount() + incomeTransaction.getTransactionAmount().doubleValue();
-            goal.setSavedAmount(newSavedAmount);
-
-            // Update the goal status if necessary
-            if (newSavedAmount >= goal.getTargetAmount()) {
-                goal.setStatus(GoalStatus.COMPLETED);
-            } else {
-                goal.setStatus(GoalStatus.IN_PROGRESS);
-            }
+    // Rollups, spending stats and cached reports are updated once per batch.
+    // Imported expenses feed the stats but are not alerted on; the nightly check covers them.
+    private void applyBatchSideEffects(List<Transaction> createdTransactions) {
+        transactionRollupService.recordAll(createdTransactions);
+        spendingStatsService.recordAll(createdTransactions);
 
-            // Save the updated goal
-            goalService.updateGoal(goal.getId(), goal);
-        }
+        createdTransactions.stream()
+                .map(Transaction::getUserId)
+                .distinct()
+                .forEach(reportCache::evictUser);
     }
 
     // ✅ Get all transactions by admin
@@ -132,12 +191,60 @@ public class TransactionService {
         return transactionRepository.findByUserIdAndTransactionCategory(userId, category);
     }
 
+    // ✅ Get one keyset page of a user's transactions (newest first), optionally filtered by category.
+    // The cursor is the opaque "next" token of the previous page, or null for the first page.
+    public TransactionPage getTransactionsPage(String userId, Transaction.TransactionCategory category, int limit, String cursor) {
+        if (!StringUtils.hasText(userId)) {
+            throw new IllegalArgumentException("User ID is required.");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+
+        LocalDateTime afterDate = null;
+        String afterId = null;
+        if (StringUtils.hasText(cursor)) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 2);
+                // "-" marks a page that ended on an undated transaction
+                if (!UNDATED_CURSOR.equals(parts[0])) {
+                    afterDate = LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(parts[0])), ZoneId.systemDefault());
+                }
+                afterId = parts[1];
+                if (!ObjectId.isValid(afterId)) {
+                    throw new IllegalArgumentException("Invalid cursor.");
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+        }
+
+        // Fetch one extra row to know whether another page exists
+        List<Transaction> rows = transactionRepository.findPageByUserId(userId, category, afterDate, afterId, limit + 1);
+        if (rows.size() <= limit) {
+            return new TransactionPage(rows, null);
+        }
+
+        List<Transaction> items = rows.subList(0, limit);
+        Transaction last = items.get(limit - 1);
+        String lastDate = last.getTransactionDate() == null ? UNDATED_CURSOR
+                : String.valueOf(last.getTransactionDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        String next = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((lastDate + ":" + last.getTransactionId()).getBytes(StandardCharsets.UTF_8));
+        return new TransactionPage(new ArrayList<>(items), next);
+    }
+
     // ✅ update a transaction
     public Transaction updateTransaction(String transactionId, Transaction updatedTransaction) {
         validateTransaction(updatedTransaction);  // Validate input
 
         return transactionRepository.findById(transactionId)
                 .map(existingTransaction -> {
+                    // Take the old values out of the rollups before they are overwritten
+                    transactionRollupService.remove(existingTransaction);
+                    spendingStatsService.remove(existingTransaction);
+                    String previousUserId = existingTransaction.getUserId();
+
                     existingTransaction.setUserId(updatedTransaction.getUserId());
                     existingTransaction.setTransactionType(updatedTransaction.getTransactionType());
                     existingTransaction.setTransactionCategory(updatedTransaction.getTransactionCategory());
@@ -147,17 +254,24 @@ public class TransactionService {
                     existingTransaction.setRecurrencePattern(updatedTransaction.getRecurrencePattern());
                     existingTransaction.setTransactionAmount(updatedTransaction.getTransactionAmount());
                     existingTransaction.setTransactionDescription(updatedTransaction.getTransactionDescription());
-                    return transactionRepository.save(existingTransaction);
+                    Transaction savedTransaction = transactionRepository.save(existingTransaction);
+                    transactionRollupService.record(savedTransaction);
+                    spendingStatsService.record(savedTransaction);
+                    reportCache.evictUser(previousUserId);
+                    reportCache.evictUser(savedTransaction.getUserId());
+                    return savedTransaction;
                 })
                 .orElseThrow(() -> new RuntimeException("Transaction not found with ID: " + transactionId));
     }
 
     // ✅ delete a transaction
     public void deleteTransaction(String transactionId) {
-        if (!transactionRepository.existsById(transactionId)) {
-            throw new RuntimeException("Transaction not found with ID: " + transactionId);
-        }
+        Transaction transaction = transactionRepository.findById(transactionId)
+                .orElseThrow(() -> new RuntimeException("Transaction not found with ID: " + transactionId));
         transactionRepository.deleteById(transactionId);
+        transactionRollupService.remove(transaction);
+        spendingStatsService.remove(transaction);
+        reportCache.evictUser(transaction.getUserId());
     }
 
     // ✅ validate a transaction with error handling
@@ -3,6 +3,7 @@ package com.example.finance_tracker.Service;
 import com.example.finance_tracker.Entity.Transaction;
 import com.example.finance_tracker.Entity.User;
 import com.example.finance_tracker.Repository.UserRepository;
+import com.example.finance_tracker.Utility.AuthenticatedUser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -12,6 +13,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Objects;
 
 @Service
 public class UserService{
@@ -22,6 +24,9 @@ public class UserService{
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     // ✅ create user with error handling
     public User createUser(User user) {
 
@@ -60,6 +65,10 @@ public class UserService{
         User existingUser = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
+        // Tokens carry the username and role, so a change to either invalidates the user's tokens
+        boolean claimsChanged = !Objects.equals(existingUser.getUsername(), userData.getUsername())
+                || !Objects.equals(existingUser.getRole(), userData.getRole());
+
         existingUser.setUsername(userData.getUsername());
         existingUser.setEmail(userData.getEmail());
         existingUser.setFirstName(userData.getFirstName());
@@ -67,7 +76,11 @@ public class UserService{
         existingUser.setRole(userData.getRole());
         existingUser.setCurrency(userData.getCurrency());
 
-        return userRepository.save(existingUser);
+        User savedUser = userRepository.save(existingUser);
+        if (claimsChanged) {
+            tokenRevocationService.revokeUser(userId);
+        }
+        return savedUser;
     };
 
     // ✅ delete a user
@@ -77,11 +90,34 @@ public class UserService{
         }
 
         userRepository.deleteById(userId);
+        tokenRevocationService.revokeUser(userId);
         return ResponseEntity.ok("User with ID " + userId + " deleted successfully.");
     }
 
+    // ✅ The signed-in user as carried by the token, or null for tokens without uid/role claims
+    public AuthenticatedUser getAuthenticatedUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return principal;
+        }
+        return null;
+    }
+
+    // ✅ Check the ADMIN role from the request's authorities, without loading the user
+    public boolean isAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ADMIN".equals(authority.getAuthority()));
+    }
+
     // ✅ My method to check if the current user's username is the same as username of the request body
     public boolean isAuthUser(String userid){
+        // Answered from the token claims when present
+        AuthenticatedUser principal = getAuthenticatedUser();
+        if (principal != null) {
+            return principal.isAdmin() || principal.getUserId().equals(userid);
+        }
+
         User user = getUserById(userid);
 
         //get token's username
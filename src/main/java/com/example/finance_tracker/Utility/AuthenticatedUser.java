@@ -0,0 +1,52 @@
+package com.example.finance_tracker.Utility;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.List;
+
+// Principal built from the JWT claims, so ownership and role checks need no user lookup.
+// getName() is the username, which keeps Authentication.getName() working as before.
+public class AuthenticatedUser implements Principal {
+
+    private final String userId;
+    private final String username;
+    private final String role;
+
+    public AuthenticatedUser(String userId, String username, String role) {
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public boolean isAdmin() {
+        return "ADMIN".equals(role);
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return role == null ? List.of() : List.of(new SimpleGrantedAuthority(role));
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
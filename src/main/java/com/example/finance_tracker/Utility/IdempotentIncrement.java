@@ -0,0 +1,58 @@
+package com.example.finance_tracker.Utility;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+// Pipeline-update stages that add the amounts of a set of outbox events to a numeric field exactly once.
+// The ids of applied events are kept on the updated document itself (applied_events: [{ id, at }]) and
+// checked by the same update, so replaying an event after a failed acknowledgement or a lost lease adds
+// nothing. Entries older than RETENTION are pruned on the next update; an outbox event is never still
+// being retried that long after it was first applied.
+public final class IdempotentIncrement {
+
+    public static final String APPLIED_FIELD = "applied_events";
+
+    private static final Duration RETENTION = Duration.ofDays(1);
+
+    // Scratch field holding the events this update still has to apply; removed by the last stage
+    private static final String PENDING_FIELD = "_pending_events";
+
+    private IdempotentIncrement() {
+    }
+
+    // field += sum of the amounts whose event id is not yet in applied_events; the ids are then recorded
+    public static List<AggregationOperation> stages(String field, Map<String, BigDecimal> amountsByEventId) {
+        Instant now = Instant.now();
+        List<Document> events = amountsByEventId.entrySet().stream()
+                .map(e -> new Document("id", e.getKey()).append("amount", Money.toDecimal128(e.getValue())))
+                .toList();
+        Document applied = new Document("$ifNull", List.of("$" + APPLIED_FIELD, List.of()));
+        Document appliedIds = new Document("$ifNull", List.of("$" + APPLIED_FIELD + ".id", List.of()));
+
+        AggregationOperation selectPending = context -> new Document("$set", new Document(PENDING_FIELD,
+                new Document("$filter", new Document("input", new Document("$literal", events))
+                        .append("cond", new Document("$not", List.of(new Document("$in", List.of("$$this.id", appliedIds))))))));
+
+        // $toDecimal also accepts the doubles and strings of documents written before Decimal128 storage
+        AggregationOperation apply = context -> new Document("$set", new Document(field,
+                new Document("$add", List.of(
+                        new Document("$toDecimal", new Document("$ifNull", List.of("$" + field, 0))),
+                        new Document("$sum", "$" + PENDING_FIELD + ".amount"))))
+                .append(APPLIED_FIELD, new Document("$concatArrays", List.of(
+                        new Document("$filter", new Document("input", applied)
+                                .append("cond", new Document("$gte", List.of("$$this.at", Date.from(now.minus(RETENTION)))))),
+                        new Document("$map", new Document("input", "$" + PENDING_FIELD)
+                                .append("in", new Document("id", "$$this.id").append("at", Date.from(now))))))));
+
+        AggregationOperation dropPending = context -> new Document("$unset", PENDING_FIELD);
+
+        return List.of(selectPending, apply, dropPending);
+    }
+}
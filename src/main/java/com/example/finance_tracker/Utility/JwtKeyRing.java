@@ -0,0 +1,329 @@
+package com.example.finance_tracker.Utility;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// JWT signing and verification keys, identified by the "kid" token header.
+//
+// Keys come from jwt.secret (a fixed HS256 key from configuration) and/or the keystore file at
+// jwt.keystore.path, which is created on first start. Every node pointed at the same file (or a copy
+// of it) accepts the same tokens. A node holding only public keys (ES256 mode) can verify but not sign.
+//
+// With jwt.rotation.enabled (on one node only), a new key is added every jwt.rotation.interval-hours.
+// It is published to the file before it starts signing (jwt.rotation.activation-delay-seconds), so
+// other nodes have reloaded it by then, and the previous key keeps verifying for jwt.rotation.grace-hours.
+@Component
+public class JwtKeyRing {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private static final String CONFIG_KID = "config";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SignatureAlgorithm algorithm;
+    private final Path keystorePath;
+    private final boolean rotationEnabled;
+    private final Duration rotationInterval;
+    private final Duration grace;
+    private final Duration activationDelay;
+
+    // Key from jwt.secret, never rotated or written to the keystore
+    private final KeyEntry configKey;
+
+    // Immutable snapshot, replaced on reload and rotation
+    private volatile List<KeyEntry> keys;
+
+    private volatile FileTime keystoreModified;
+
+    @Autowired
+    public JwtKeyRing(@Value("${jwt.algorithm:HS256}") String algorithm,
+                      @Value("${jwt.secret:}") String secret,
+                      @Value("${jwt.keystore.path:}") String keystorePath,
+                      @Value("${jwt.rotation.enabled:false}") boolean rotationEnabled,
+                      @Value("${jwt.rotation.interval-hours:720}") long rotationIntervalHours,
+                      @Value("${jwt.rotation.grace-hours:168}") long graceHours,
+                      @Value("${jwt.rotation.activation-delay-seconds:300}") long activationDelaySeconds) {
+        this.algorithm = SignatureAlgorithm.forName(algorithm);
+        if (this.algorithm != SignatureAlgorithm.HS256 && this.algorithm != SignatureAlgorithm.ES256) {
+            throw new IllegalArgumentException("jwt.algorithm must be HS256 or ES256");
+        }
+        this.keystorePath = StringUtils.hasText(keystorePath) ? Path.of(keystorePath) : null;
+        this.rotationEnabled = rotationEnabled;
+        this.rotationInterval = Duration.ofHours(rotationIntervalHours);
+        this.grace = Duration.ofHours(graceHours);
+        this.activationDelay = Duration.ofSeconds(activationDelaySeconds);
+
+        this.configKey = StringUtils.hasText(secret)
+                ? new KeyEntry(CONFIG_KID, SignatureAlgorithm.HS256, Keys.hmacShaKeyFor(Base64.getDecoder().decode(secret)),
+                        null, Instant.EPOCH, Instant.EPOCH, null)
+                : null;
+
+        if (this.keystorePath != null) {
+            if (Files.exists(this.keystorePath)) {
+                this.keys = withConfigKey(readKeystore());
+            } else {
+                this.keys = withConfigKey(List.of(newKey(Instant.now())));
+                writeKeystore();
+                logger.info("Created JWT keystore {}", this.keystorePath);
+            }
+        } else if (configKey != null) {
+            this.keys = List.of(configKey);
+        } else {
+            // Old behaviour: tokens do not survive a restart and only this node can verify them
+            logger.warn("Neither jwt.secret nor jwt.keystore.path is set; using a temporary signing key");
+            this.keys = List.of(newKey(Instant.now()));
+        }
+    }
+
+    // Throwaway ring with one fresh key, for tests and tools
+    public static JwtKeyRing ephemeral(String algorithm) {
+        return new JwtKeyRing(algorithm, "", "", false, 720, 168, 300);
+    }
+
+    // ✅ The key new tokens are signed with: the most recently activated key this node holds a private part of
+    public KeyEntry signingKey() {
+        Instant now = Instant.now();
+        return keys.stream()
+                .filter(key -> key.signingKey() != null && key.isUsable(now) && !key.activeFrom().isAfter(now))
+                .max(Comparator.comparing(KeyEntry::activeFrom))
+                .orElseThrow(() -> new IllegalStateException("No JWT signing key is available on this node"));
+    }
+
+    // ✅ The key that verifies a token with this kid, or null if it is unknown or past its grace window.
+    // Tokens without a kid were issued before the key ring and are checked against the current signing key.
+    public Key verificationKey(String kid) {
+        Instant now = Instant.now();
+        if (kid == null) {
+            return keys.stream()
+                    .filter(key -> key.isUsable(now) && !key.activeFrom().isAfter(now))
+                    .max(Comparator.comparing(KeyEntry::activeFrom))
+                    .map(KeyEntry::verificationKey)
+                    .orElse(null);
+        }
+        return keys.stream()
+                .filter(key -> key.kid().equals(kid) && key.isUsable(now))
+                .map(KeyEntry::verificationKey)
+                .findFirst()
+                .orElse(null);
+    }
+
+    // ✅ Public keys as a JWK set, so other services can verify tokens without any secret (ES256 only)
+    public List<Map<String, Object>> publicJwks() {
+        Instant now = Instant.now();
+        List<Map<String, Object>> jwks = new ArrayList<>();
+        for (KeyEntry key : keys) {
+            if (key.isUsable(now) && key.verificationKey() instanceof ECPublicKey publicKey) {
+                Map<String, Object> jwk = new LinkedHashMap<>();
+                jwk.put("kty", "EC");
+                jwk.put("crv", "P-256");
+                jwk.put("kid", key.kid());
+                jwk.put("use", "sig");
+                jwk.put("alg", key.algorithm().getValue());
+                jwk.put("x", coordinate(publicKey.getW().getAffineX()));
+                jwk.put("y", coordinate(publicKey.getW().getAffineY()));
+                jwks.add(jwk);
+            }
+        }
+        return jwks;
+    }
+
+    // Pick up keys written by the rotating node, then rotate here if this node is the one doing it
+    @Scheduled(fixedDelayString = "${jwt.rotation.check-interval-ms:60000}")
+    public synchronized void refresh() {
+        if (keystorePath == null) {
+            return;
+        }
+        try {
+            FileTime modified = Files.exists(keystorePath) ? Files.getLastModifiedTime(keystorePath) : null;
+            if (modified != null && !modified.equals(keystoreModified)) {
+                keys = withConfigKey(readKeystore());
+            }
+            if (rotationEnabled) {
+                rotateIfDue(Instant.now());
+            }
+        } catch (RuntimeException e) {
+            // Keep serving with the keys already loaded
+            logger.error("Failed to refresh JWT keys from {}", keystorePath, e);
+        }
+    }
+
+    // Add the next key once the newest one is older than the rotation interval, and drop expired keys
+    synchronized void rotateIfDue(Instant now) {
+        List<KeyEntry> fileKeys = keys.stream().filter(key -> key != configKey).toList();
+        KeyEntry newest = fileKeys.stream().max(Comparator.comparing(KeyEntry::createdAt)).orElse(null);
+
+        List<KeyEntry> next = new ArrayList<>();
+        boolean changed = false;
+        if (newest == null || !newest.createdAt().plus(rotationInterval).isAfter(now)) {
+            KeyEntry created = newKey(now.plus(activationDelay));
+            Instant retireAt = created.activeFrom().plus(grace);
+            for (KeyEntry key : fileKeys) {
+                next.add(key.retireAt() == null ? key.retiringAt(retireAt) : key);
+            }
+            next.add(created);
+            changed = true;
+            logger.info("Rotated JWT signing key; {} signs from {}", created.kid(), created.activeFrom());
+        } else {
+            next.addAll(fileKeys);
+        }
+
+        int before = next.size();
+        next.removeIf(key -> !key.isUsable(now));
+        changed |= next.size() != before;
+
+        if (changed) {
+            keys = withConfigKey(next);
+            writeKeystore();
+        }
+    }
+
+    private KeyEntry newKey(Instant activeFrom) {
+        String kid = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+        if (algorithm == SignatureAlgorithm.ES256) {
+            KeyPair pair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+            return new KeyEntry(kid, algorithm, pair.getPrivate(), pair.getPublic(), now, activeFrom, null);
+        }
+        return new KeyEntry(kid, algorithm, Keys.secretKeyFor(SignatureAlgorithm.HS256), null, now, activeFrom, null);
+    }
+
+    private List<KeyEntry> withConfigKey(List<KeyEntry> fileKeys) {
+        List<KeyEntry> all = new ArrayList<>(fileKeys);
+        if (configKey != null) {
+            all.add(configKey);
+        }
+        return List.copyOf(all);
+    }
+
+    private List<KeyEntry> readKeystore() {
+        try {
+            keystoreModified = Files.getLastModifiedTime(keystorePath);
+            List<StoredKey> stored = objectMapper.readValue(keystorePath.toFile(), new TypeReference<List<StoredKey>>() {
+            });
+            List<KeyEntry> loaded = new ArrayList<>();
+            for (StoredKey key : stored) {
+                loaded.add(key.toEntry());
+            }
+            logger.info("Loaded {} JWT keys from {}", loaded.size(), keystorePath);
+            return loaded;
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot read JWT keystore " + keystorePath, e);
+        }
+    }
+
+    // Written to a temporary file and moved into place, so readers never see a half-written keystore
+    private void writeKeystore() {
+        List<StoredKey> stored = keys.stream().filter(key -> key != configKey).map(StoredKey::from).toList();
+        try {
+            Path parent = keystorePath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, ".jwt-keys", ".tmp");
+            try {
+                Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException e) {
+                // Non-POSIX file system
+            }
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), stored);
+            Files.move(temp, keystorePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            keystoreModified = Files.getLastModifiedTime(keystorePath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write JWT keystore " + keystorePath, e);
+        }
+    }
+
+    // Unsigned big-endian coordinate, left-padded to the 32 bytes of a P-256 field element
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] padded = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, padded, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+    }
+
+    // One key of the ring. signingKey is the HMAC secret or the EC private key (null on verify-only nodes);
+    // verificationKey is the HMAC secret or the EC public key.
+    public record KeyEntry(String kid, SignatureAlgorithm algorithm, Key signingKey, Key publicKey,
+                           Instant createdAt, Instant activeFrom, Instant retireAt) {
+
+        public Key verificationKey() {
+            return publicKey != null ? publicKey : signingKey;
+        }
+
+        boolean isUsable(Instant now) {
+            return retireAt == null || retireAt.isAfter(now);
+        }
+
+        KeyEntry retiringAt(Instant at) {
+            return new KeyEntry(kid, algorithm, signingKey, publicKey, createdAt, activeFrom, at);
+        }
+    }
+
+    // Keystore file format; keys are base64 (raw HMAC secret, PKCS#8 private key, X.509 public key)
+    record StoredKey(String kid, String alg, String secret, String privateKey, String publicKey,
+                     long createdAt, long activeFrom, Long retireAt) {
+
+        static StoredKey from(KeyEntry key) {
+            Base64.Encoder base64 = Base64.getEncoder();
+            boolean hmac = key.algorithm() == SignatureAlgorithm.HS256;
+            return new StoredKey(key.kid(), key.algorithm().getValue(),
+                    hmac && key.signingKey() != null ? base64.encodeToString(key.signingKey().getEncoded()) : null,
+                    !hmac && key.signingKey() != null ? base64.encodeToString(key.signingKey().getEncoded()) : null,
+                    key.publicKey() != null ? base64.encodeToString(key.publicKey().getEncoded()) : null,
+                    key.createdAt().toEpochMilli(), key.activeFrom().toEpochMilli(),
+                    key.retireAt() != null ? key.retireAt().toEpochMilli() : null);
+        }
+
+        KeyEntry toEntry() throws GeneralSecurityException {
+            SignatureAlgorithm algorithm = SignatureAlgorithm.forName(alg);
+            Base64.Decoder base64 = Base64.getDecoder();
+            Key signing = null;
+            Key verifying = null;
+            if (algorithm == SignatureAlgorithm.HS256) {
+                signing = Keys.hmacShaKeyFor(base64.decode(secret));
+            } else {
+                KeyFactory factory = KeyFactory.getInstance("EC");
+                if (privateKey != null) {
+                    signing = factory.generatePrivate(new PKCS8EncodedKeySpec(base64.decode(privateKey)));
+                }
+                verifying = factory.generatePublic(new X509EncodedKeySpec(base64.decode(publicKey)));
+            }
+            return new KeyEntry(kid, algorithm, signing, verifying, Instant.ofEpochMilli(createdAt),
+                    Instant.ofEpochMilli(activeFrom), retireAt != null ? Instant.ofEpochMilli(retireAt) : null);
+        }
+    }
+}
@@ -2,7 +2,14 @@ package com.example.finance_tracker.Utility;
 
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
+import com.example.finance_tracker.Entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
@@ -12,27 +19,79 @@ import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.List;
 
-import static javax.crypto.Cipher.SECRET_KEY;
-
 @Component
 public class JwtUtil {
 
-    private final SecretKey SECRET_KEY = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    // Persistent, rotatable signing keys; tokens name their key in the "kid" header
+    private final JwtKeyRing keyRing;
     private final long EXPIRATION_TIME = 1000 * 60 * 60 * 24 * 7; // 1 hour
 
+    // Verified claims keyed by the SHA-256 of the token; each entry expires when its token does,
+    // so repeat requests with the same token skip the signature check and JSON parsing.
+    // The verifying key is kept with them and looked up again on every hit, so retiring a key
+    // stops its cached tokens at once.
+    private final Cache<String, VerifiedClaims> claimsCache;
+
+    public JwtUtil(JwtKeyRing keyRing, @Value("${jwt.claims-cache.maximum-size:10000}") long claimsCacheSize) {
+        this.keyRing = keyRing;
+        this.claimsCache = Caffeine.newBuilder()
+                .maximumSize(claimsCacheSize)
+                .expireAfter(new Expiry<String, VerifiedClaims>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedClaims verified, long currentTime) {
+                        return Math.max(0, verified.claims().getExpiration().getTime() - System.currentTimeMillis()) * 1_000_000;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedClaims verified, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedClaims verified, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    // ✅ Token carrying the user's id and role, so requests can be authorized without loading the user
+    public String generateToken(User user) {
+        JwtKeyRing.KeyEntry key = keyRing.signingKey();
+        return Jwts.builder()
+                .setHeaderParam("kid", key.kid())
+                .signWith(key.signingKey(), key.algorithm())
+                .setSubject(user.getUsername())
+                .claim("uid", user.getUserId())
+                .claim("role", user.getRole())
+                .claim("roles", Collections.singletonList(user.getRole()))
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
+                .compact();
+    }
+
     public String generateToken(String username, List<String> roles) {
+        JwtKeyRing.KeyEntry key = keyRing.signingKey();
         return Jwts.builder()
+                .setHeaderParam("kid", key.kid())
+                .signWith(key.signingKey(), key.algorithm())
                 .setSubject(username)
                 .claim("roles", roles)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(SignatureAlgorithm.HS256, SECRET_KEY)
                 .compact();
     }
+    public long getExpirationTime() {
+        return EXPIRATION_TIME;
+    }
+
     public String extractUsername(String token) {
         return getClaims(token).getSubject();
     }
@@ -51,10 +110,60 @@ public class JwtUtil {
         return getClaims(token).getExpiration().before(new Date());
     }
 
-    private Claims getClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(SECRET_KEY)
+    // ✅ Verify the token once and return its claims; throws a JwtException if it is invalid or expired.
+    // The parser already rejects expired tokens, so callers need no separate expiry check.
+    public Claims getClaims(String token) {
+        String key = hash(token);
+        VerifiedClaims cached = claimsCache.getIfPresent(key);
+        if (cached != null && cached.claims().getExpiration().after(new Date())
+                && cached.key().equals(keyRing.verificationKey(cached.kid()))) {
+            return cached.claims();
+        }
+
+        VerifiedClaims verified = verify(token);
+        // Only tokens with an expiry are cached, so every entry has an end of life
+        if (verified.claims().getExpiration() != null) {
+            claimsCache.put(key, verified);
+        }
+        return verified.claims();
+    }
+
+    // Full signature check and parse, bypassing the cache
+    Claims parseClaims(String token) {
+        return verify(token).claims();
+    }
+
+    private VerifiedClaims verify(String token) {
+        String[] kid = new String[1];
+        Key[] key = new Key[1];
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        kid[0] = header.getKeyId();
+                        key[0] = keyRing.verificationKey(kid[0]);
+                        if (key[0] == null) {
+                            throw new SignatureException("Unknown or retired signing key: " + kid[0]);
+                        }
+                        return key[0];
+                    }
+                })
+                .build()
                 .parseClaimsJws(token)
                 .getBody();
+        return new VerifiedClaims(claims, kid[0], key[0]);
+    }
+
+    // kid is null for tokens issued before the key ring; those resolve to the current signing key
+    private record VerifiedClaims(Claims claims, String kid, Key key) {
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
@@ -0,0 +1,195 @@
+package com.example.finance_tracker.Utility;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.bson.types.Decimal128;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+
+// Fixed-point amount: a long count of minor units (cents) plus a currency. Sums are exact long additions,
+// so repeated deposits never drift the way doubles do, and hot loops add primitives instead of BigDecimals.
+// Amounts with more decimals than the currency has are rounded half-even to the minor unit.
+// Stored in MongoDB as Decimal128 (see MongoConversionConfig) and written to JSON as a plain number,
+// so documents and API payloads look the same as with BigDecimal/double.
+@JsonSerialize(using = Money.Serializer.class)
+@JsonDeserialize(using = Money.Deserializer.class)
+public final class Money implements Comparable<Money> {
+
+    // Stored amounts carry no currency; they are read back in this one
+    public static final Currency DEFAULT_CURRENCY = Currency.getInstance("USD");
+
+    public static final Money ZERO = new Money(0, DEFAULT_CURRENCY);
+
+    // Currencies with more decimals than this are not supported
+    private static final int MAX_FRACTION_DIGITS = 4;
+
+    private final long minorUnits;
+    private final Currency currency;
+
+    private Money(long minorUnits, Currency currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return ofMinor(minorUnits, DEFAULT_CURRENCY);
+    }
+
+    public static Money ofMinor(long minorUnits, Currency currency) {
+        return new Money(minorUnits, Objects.requireNonNull(currency));
+    }
+
+    public static Money of(BigDecimal amount) {
+        return of(amount, DEFAULT_CURRENCY);
+    }
+
+    public static Money of(BigDecimal amount, Currency currency) {
+        return new Money(toMinorUnits(amount, currency), Objects.requireNonNull(currency));
+    }
+
+    public static Money of(String amount) {
+        return of(new BigDecimal(amount));
+    }
+
+    // Minor units of an amount in the default currency; the primitive path used when summing many amounts
+    public static long toMinorUnits(BigDecimal amount) {
+        return toMinorUnits(amount, DEFAULT_CURRENCY);
+    }
+
+    public static long toMinorUnits(BigDecimal amount, Currency currency) {
+        int digits = fractionDigits(currency);
+        // Common case: already at the currency's scale and small enough for a long
+        if (amount.scale() == digits && amount.precision() <= 18) {
+            return amount.unscaledValue().longValue();
+        }
+        return amount.setScale(digits, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    // BigDecimal of a minor-unit total, e.g. 12345 -> 123.45
+    public static BigDecimal toBigDecimal(long minorUnits, Currency currency) {
+        return BigDecimal.valueOf(minorUnits, fractionDigits(currency));
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(minorUnits, currency);
+    }
+
+    // Decimal128 <-> Money for the MongoDB converters
+    public static Money fromDecimal128(Decimal128 value) {
+        return of(value.bigDecimalValue());
+    }
+
+    public Decimal128 toDecimal128() {
+        return new Decimal128(toBigDecimal());
+    }
+
+    // Decimal128 of any BigDecimal. new Decimal128 throws for more than 34 significant digits, so those are
+    // rounded half-even first, as MongoDB does; values outside Decimal128's exponent range still throw.
+    public static Decimal128 toDecimal128(BigDecimal amount) {
+        return new Decimal128(amount.round(MathContext.DECIMAL128));
+    }
+
+    public Money plus(Money other) {
+        checkCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        checkCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    // This amount as a percentage of whole, e.g. saved.percentOf(target)
+    public double percentOf(Money whole) {
+        checkCurrency(whole);
+        return whole.minorUnits == 0 ? 0 : (double) minorUnits * 100 / whole.minorUnits;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        checkCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money money && minorUnits == money.minorUnits && currency.equals(money.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits) * 31 + currency.hashCode();
+    }
+
+    // Plain amount, e.g. "123.45", as BigDecimal printed it before
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    private void checkCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " and " + other.currency);
+        }
+    }
+
+    private static int fractionDigits(Currency currency) {
+        int digits = currency.getDefaultFractionDigits();
+        // Pseudo-currencies report -1; treat them like cents
+        return digits < 0 || digits > MAX_FRACTION_DIGITS ? 2 : digits;
+    }
+
+    public static class Serializer extends JsonSerializer<Money> {
+        @Override
+        public void serialize(Money value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeNumber(value.toBigDecimal());
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<Money> {
+        @Override
+        public Money deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                // getDecimalValue parses the literal text, so 0.1 stays exactly 0.1
+                return Money.of(p.getDecimalValue());
+            }
+            if (token == JsonToken.VALUE_STRING) {
+                try {
+                    return Money.of(p.getText().trim());
+                } catch (NumberFormatException e) {
+                    return (Money) ctxt.handleWeirdStringValue(Money.class, p.getText(), "not a valid amount");
+                }
+            }
+            return (Money) ctxt.handleUnexpectedToken(Money.class, p);
+        }
+    }
+}
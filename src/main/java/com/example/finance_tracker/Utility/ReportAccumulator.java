@@ -0,0 +1,168 @@
+package com.example.finance_tracker.Utility;
+
+import com.example.finance_tracker.Entity.Report;
+import com.example.finance_tracker.Entity.Transaction;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Report totals in one pass: income, expenses and per-category expenses kept as long minor units,
+// per-category sums in an array indexed by TransactionCategory ordinal. Nothing is boxed or allocated
+// per transaction. Amounts finer than a cent are summed exactly on the side and each total is rounded
+// once, in toReport(), like the aggregation and rollup engines do. Two accumulators over disjoint parts
+// of the data combine into the total of both, which is what the fork/join path relies on.
+// Not thread-safe; each fork/join task works on its own instance.
+public final class ReportAccumulator {
+
+    // Below this many transactions a fork/join split costs more than it saves
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 50_000;
+
+    private static final Transaction.TransactionCategory[] CATEGORIES = Transaction.TransactionCategory.values();
+
+    // Decimals of the default currency; amounts with more are not summed as long minor units
+    private static final int MINOR_DIGITS = Money.DEFAULT_CURRENCY.getDefaultFractionDigits();
+
+    private long totalIncome;
+    private long totalExpenses;
+    private final long[] categoryTotals = new long[CATEGORIES.length];
+    // A category appears in the report once it has an expense, even if its total is zero
+    private final boolean[] categorySeen = new boolean[CATEGORIES.length];
+
+    // Exact sums of the amounts with more decimals than a cent; null until the first one
+    private BigDecimal incomeFraction;
+    private BigDecimal expensesFraction;
+    private final BigDecimal[] categoryFractions = new BigDecimal[CATEGORIES.length];
+
+    // Sum a list on the calling thread
+    public static ReportAccumulator of(List<Transaction> transactions) {
+        ReportAccumulator accumulator = new ReportAccumulator();
+        for (Transaction transaction : transactions) {
+            accumulator.add(transaction);
+        }
+        return accumulator;
+    }
+
+    // Sum a list, splitting it across the common fork/join pool when it has more than threshold transactions
+    public static ReportAccumulator parallel(List<Transaction> transactions, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be at least 1");
+        }
+        if (transactions.size() <= threshold) {
+            return of(transactions);
+        }
+        return ForkJoinPool.commonPool().invoke(new SumTask(transactions, 0, transactions.size(), threshold));
+    }
+
+    // Transactions without an amount are skipped, and an expense without a category only counts towards the total
+    public void add(Transaction transaction) {
+        BigDecimal amount = transaction.getTransactionAmount();
+        if (amount == null) {
+            return;
+        }
+        if (amount.scale() <= MINOR_DIGITS || amount.stripTrailingZeros().scale() <= MINOR_DIGITS) {
+            add(transaction.getTransactionType(), transaction.getTransactionCategory(), Money.toMinorUnits(amount));
+        } else {
+            addExact(transaction.getTransactionType(), transaction.getTransactionCategory(), amount);
+        }
+    }
+
+    // Rounding these per transaction would drift: a thousand 0.005 expenses are 5.00, not 0.00
+    private void addExact(Transaction.TransactionType type, Transaction.TransactionCategory category, BigDecimal amount) {
+        if (type == Transaction.TransactionType.INCOME) {
+            incomeFraction = plus(incomeFraction, amount);
+        } else if (type == Transaction.TransactionType.EXPENSE) {
+            expensesFraction = plus(expensesFraction, amount);
+            if (category != null) {
+                categoryFractions[category.ordinal()] = plus(categoryFractions[category.ordinal()], amount);
+                categorySeen[category.ordinal()] = true;
+            }
+        }
+    }
+
+    public void add(Transaction.TransactionType type, Transaction.TransactionCategory category, long minorUnits) {
+        if (type == Transaction.TransactionType.INCOME) {
+            totalIncome += minorUnits;
+        } else if (type == Transaction.TransactionType.EXPENSE) {
+            totalExpenses += minorUnits;
+            if (category != null) {
+                categoryTotals[category.ordinal()] += minorUnits;
+                categorySeen[category.ordinal()] = true;
+            }
+        }
+    }
+
+    // Add other's totals into this accumulator
+    public ReportAccumulator combine(ReportAccumulator other) {
+        totalIncome += other.totalIncome;
+        totalExpenses += other.totalExpenses;
+        incomeFraction = plus(incomeFraction, other.incomeFraction);
+        expensesFraction = plus(expensesFraction, other.expensesFraction);
+        for (int i = 0; i < categoryTotals.length; i++) {
+            categoryTotals[i] += other.categoryTotals[i];
+            categorySeen[i] |= other.categorySeen[i];
+            categoryFractions[i] = plus(categoryFractions[i], other.categoryFractions[i]);
+        }
+        return this;
+    }
+
+    public Report toReport() {
+        Map<Transaction.TransactionCategory, Money> totals = new EnumMap<>(Transaction.TransactionCategory.class);
+        for (int i = 0; i < categoryTotals.length; i++) {
+            if (categorySeen[i]) {
+                totals.put(CATEGORIES[i], total(categoryTotals[i], categoryFractions[i]));
+            }
+        }
+
+        Report report = new Report();
+        report.setTotalIncome(total(totalIncome, incomeFraction));
+        report.setTotalExpenses(total(totalExpenses, expensesFraction));
+        report.setCategoryTotals(totals);
+        return report;
+    }
+
+    // The only rounding step for totals that had sub-cent amounts
+    private static Money total(long minorUnits, BigDecimal fraction) {
+        if (fraction == null) {
+            return Money.ofMinor(minorUnits);
+        }
+        return Money.of(Money.toBigDecimal(minorUnits, Money.DEFAULT_CURRENCY).add(fraction));
+    }
+
+    private static BigDecimal plus(BigDecimal sum, BigDecimal amount) {
+        if (amount == null) {
+            return sum;
+        }
+        return sum == null ? amount : sum.add(amount);
+    }
+
+    // Halves the range until it is at most threshold long, then sums it sequentially
+    private static class SumTask extends RecursiveTask<ReportAccumulator> {
+        private final List<Transaction> transactions;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        SumTask(List<Transaction> transactions, int from, int to, int threshold) {
+            this.transactions = transactions;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected ReportAccumulator compute() {
+            if (to - from <= threshold) {
+                return of(transactions.subList(from, to));
+            }
+            int middle = (from + to) >>> 1;
+            SumTask left = new SumTask(transactions, from, middle, threshold);
+            left.fork();
+            ReportAccumulator right = new SumTask(transactions, middle, to, threshold).compute();
+            return left.join().combine(right);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.finance_tracker.Utility;
+
+import com.example.finance_tracker.Entity.Report;
+import com.example.finance_tracker.Entity.Transaction;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Helpers shared by the report engines that group on (transaction_type, transaction_category)
+public final class ReportUtil {
+
+    private ReportUtil() {
+    }
+
+    // Build a Report from $group rows shaped { _id: { transaction_type, transaction_category }, total }
+    public static Report fromGroupedRows(List<Document> rows) {
+        ReportAccumulator accumulator = new ReportAccumulator();
+        for (Document row : rows) {
+            addGroupedRow(accumulator, row.get("_id", Document.class), row.get("total"));
+        }
+        return accumulator.toReport();
+    }
+
+    // Add one group's total keyed by { transaction_type, transaction_category }. Rows without a type, or whose
+    // type or category is not (or no longer) one of the enum constants, are skipped rather than failing the report.
+    public static void addGroupedRow(ReportAccumulator accumulator, Document id, Object total) {
+        Transaction.TransactionType type = enumOrNull(Transaction.TransactionType.class, id.getString("transaction_type"));
+        String categoryName = id.getString("transaction_category");
+        Transaction.TransactionCategory category = enumOrNull(Transaction.TransactionCategory.class, categoryName);
+        if (type == null || (categoryName != null && category == null)) {
+            return;
+        }
+        accumulator.add(type, category, Money.toMinorUnits(toBigDecimal(total)));
+    }
+
+    private static <E extends Enum<E>> E enumOrNull(Class<E> type, String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Add two partial reports together (e.g. rollup days plus the partial days at the edges)
+    public static Report merge(Report left, Report right) {
+        Map<Transaction.TransactionCategory, Money> categoryTotals = new EnumMap<>(Transaction.TransactionCategory.class);
+        categoryTotals.putAll(left.getCategoryTotals());
+        right.getCategoryTotals().forEach((category, total) -> categoryTotals.merge(category, total, Money::plus));
+
+        Report report = new Report();
+        report.setTotalIncome(left.getTotalIncome().plus(right.getTotalIncome()));
+        report.setTotalExpenses(left.getTotalExpenses().plus(right.getTotalExpenses()));
+        report.setCategoryTotals(categoryTotals);
+        return report;
+    }
+
+    public static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof Decimal128 decimal) {
+            return decimal.bigDecimalValue();
+        }
+        if (value instanceof Number number) {
+            return new BigDecimal(number.toString());
+        }
+        return BigDecimal.ZERO;
+    }
+}
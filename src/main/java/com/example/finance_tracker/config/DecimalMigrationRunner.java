@@ -0,0 +1,50 @@
+package com.example.finance_tracker.config;
+
+import com.example.finance_tracker.Service.DecimalMigrationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+// Runs the Decimal128 money migration at startup when asked to:
+//   --migration.decimal128.mode=migrate   convert, then verify
+//   --migration.decimal128.mode=verify    only compare the totals
+// Safe to run on a live system and to repeat; an interrupted run continues from its checkpoint.
+@Component
+public class DecimalMigrationRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(DecimalMigrationRunner.class);
+
+    private final DecimalMigrationService decimalMigrationService;
+    private final String mode;
+
+    public DecimalMigrationRunner(DecimalMigrationService decimalMigrationService,
+                                  @Value("${migration.decimal128.mode:none}") String mode) {
+        this.decimalMigrationService = decimalMigrationService;
+        this.mode = mode;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        switch (mode) {
+            case "none" -> {
+                return;
+            }
+            case "migrate" -> logger.info("Decimal128 migration converted {} documents", decimalMigrationService.migrate());
+            case "verify" -> { }
+            default -> throw new IllegalArgumentException("Unknown migration.decimal128.mode: " + mode);
+        }
+
+        for (DecimalMigrationService.FieldCheck check : decimalMigrationService.verify()) {
+            if (check.isMigrated()) {
+                logger.info("{}.{}: {} documents, total {} - OK", check.collection(), check.field(), check.documents(), check.decimalTotal());
+            } else {
+                logger.warn("{}.{}: {} documents, {} not Decimal128, stored total {} vs Decimal128 total {}",
+                        check.collection(), check.field(), check.documents(), check.notDecimal(),
+                        check.valueTotal(), check.decimalTotal());
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.finance_tracker.config;
+
+import com.example.finance_tracker.Utility.Money;
+import org.bson.types.Decimal128;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Stores every BigDecimal (transaction amounts, budget amounts, ...) as Decimal128 instead of Spring Data's
+// default string, so MongoDB can compare, range-scan, index and $sum them. Query parameters go through the
+// same converter, so derived queries like findByUserIdAndTransactionAmountBetween compare numerically.
+// Documents written before this change still hold strings until DecimalMigrationService has rewritten them;
+// they are read back correctly either way. Money is stored the same way; goals saved before Money
+// existed hold doubles, which are read back rounded to the cent.
+@Configuration
+public class MongoConversionConfig {
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(
+                BigDecimalToDecimal128.INSTANCE, Decimal128ToBigDecimal.INSTANCE,
+                MoneyToDecimal128.INSTANCE, Decimal128ToMoney.INSTANCE,
+                DoubleToMoney.INSTANCE, IntegerToMoney.INSTANCE, LongToMoney.INSTANCE, StringToMoney.INSTANCE));
+    }
+
+    @WritingConverter
+    enum BigDecimalToDecimal128 implements Converter<BigDecimal, Decimal128> {
+        INSTANCE;
+
+        @Override
+        public Decimal128 convert(BigDecimal source) {
+            return Money.toDecimal128(source);
+        }
+    }
+
+    @ReadingConverter
+    enum Decimal128ToBigDecimal implements Converter<Decimal128, BigDecimal> {
+        INSTANCE;
+
+        @Override
+        public BigDecimal convert(Decimal128 source) {
+            return source.bigDecimalValue();
+        }
+    }
+
+    @WritingConverter
+    enum MoneyToDecimal128 implements Converter<Money, Decimal128> {
+        INSTANCE;
+
+        @Override
+        public Decimal128 convert(Money source) {
+            return source.toDecimal128();
+        }
+    }
+
+    @ReadingConverter
+    enum Decimal128ToMoney implements Converter<Decimal128, Money> {
+        INSTANCE;
+
+        @Override
+        public Money convert(Decimal128 source) {
+            return Money.fromDecimal128(source);
+        }
+    }
+
+    // BigDecimal.valueOf uses the shortest decimal form of the double, so 0.1 reads back as exactly 0.10
+    @ReadingConverter
+    enum DoubleToMoney implements Converter<Double, Money> {
+        INSTANCE;
+
+        @Override
+        public Money convert(Double source) {
+            return Money.of(BigDecimal.valueOf(source));
+        }
+    }
+
+    @ReadingConverter
+    enum IntegerToMoney implements Converter<Integer, Money> {
+        INSTANCE;
+
+        @Override
+        public Money convert(Integer source) {
+            return Money.of(BigDecimal.valueOf(source));
+        }
+    }
+
+    @ReadingConverter
+    enum LongToMoney implements Converter<Long, Money> {
+        INSTANCE;
+
+        @Override
+        public Money convert(Long source) {
+            return Money.of(BigDecimal.valueOf(source));
+        }
+    }
+
+    @ReadingConverter
+    enum StringToMoney implements Converter<String, Money> {
+        INSTANCE;
+
+        @Override
+        public Money convert(String source) {
+            return Money.of(source);
+        }
+    }
+}
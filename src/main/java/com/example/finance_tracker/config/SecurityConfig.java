@@ -1,6 +1,7 @@
 package com.example.finance_tracker.config;
 import com.example.finance_tracker.filter.JwtAuthenticationFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -38,8 +39,10 @@ public class SecurityConfig {
         return authConfig.getAuthenticationManager();
     }
 
+    // Cost factor of new hashes; existing hashes are upgraded on the user's next login (see AuthService).
+    // BcryptCostBenchmarkTest prints the time per hash for each cost on the target hardware.
     @Bean
-    public PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.bcrypt.strength:10}") int strength){
+        return new BCryptPasswordEncoder(strength);
     }
 }
@@ -93,6 +93,7 @@ public class TransactionControllerIntegrationTest {
         Authentication authentication = mock(Authentication.class);
         when(authentication.getName()).thenReturn("admin");
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(userService.isAdmin()).thenReturn(true); // Role comes from the token claims
 
         // Perform the GET request
         mockMvc.perform(MockMvcRequestBuilders.get("/api/transactions")
@@ -111,8 +112,7 @@ public class TransactionControllerIntegrationTest {
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
         // Mock the behavior of UserService
-        User nonAdminUser = new User("user@example.com", "John", "password123", "Doe", "user123", "USER", "USD");
-        when(userService.getUserByUsername("user123")).thenReturn(nonAdminUser); // Return a non-admin user
+        when(userService.isAdmin()).thenReturn(false); // Token carries a non-admin role
 
         // Perform the GET request
         mockMvc.perform(MockMvcRequestBuilders.get("/api/transactions")
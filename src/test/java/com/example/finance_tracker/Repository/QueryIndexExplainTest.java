@@ -0,0 +1,221 @@
+package com.example.finance_tracker.Repository;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs explain() for every repository query shape against a local MongoDB and fails on a COLLSCAN.
+// The indexes are created by MongoIndexConfig when the context starts.
+// Run with: ./mvnw test -Dtest=QueryIndexExplainTest -Dexplain=true
+@SpringBootTest
+@EnabledIfSystemProperty(named = "explain", matches = "true")
+class QueryIndexExplainTest {
+
+    private static final String USER_ID = "explain-user";
+    private static final Date START = new Date(System.currentTimeMillis() - 365L * 24 * 3600 * 1000);
+    private static final Date END = new Date();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // TransactionRepository
+
+    @Test
+    void findByUserId() {
+        assertUsesIndex("transactions", new Document("user_id", USER_ID), null);
+    }
+
+    @Test
+    void findByTransactionType() {
+        assertUsesIndex("transactions", new Document("transaction_type", "EXPENSE"), null);
+    }
+
+    @Test
+    void findByTransactionCategory() {
+        assertUsesIndex("transactions", new Document("transaction_category", "FOOD"), null);
+    }
+
+    @Test
+    void findByRecurringTrue() {
+        assertUsesIndex("transactions", new Document("recurring", true), null);
+    }
+
+    @Test
+    void findByUserIdAndTransactionDateBetween() {
+        assertUsesIndex("transactions", new Document("user_id", USER_ID)
+                .append("transaction_date", new Document("$gt", START).append("$lt", END)), null);
+    }
+
+    @Test
+    void findByUserIdAndTransactionAmountBetween() {
+        assertUsesIndex("transactions", new Document("user_id", USER_ID)
+                .append("transaction_amount", new Document("$gt", new Decimal128(BigDecimal.ONE))
+                        .append("$lt", new Decimal128(BigDecimal.TEN))), null);
+    }
+
+    @Test
+    void findByUserIdAndTransactionCategory() {
+        assertUsesIndex("transactions", new Document("user_id", USER_ID).append("transaction_category", "FOOD"), null);
+    }
+
+    @Test
+    void reportQuery() {
+        assertUsesIndex("transactions", reportFilter(), null);
+    }
+
+    @Test
+    void reportAggregation() {
+        Document explain = mongoTemplate.getCollection("transactions").aggregate(List.of(
+                new Document("$match", reportFilter()),
+                new Document("$group", new Document("_id", new Document("transaction_type", "$transaction_type")
+                        .append("transaction_category", "$transaction_category"))
+                        .append("total", new Document("$sum", new Document("$toDecimal", "$transaction_amount"))))
+        )).explain();
+        assertNoCollscan("transactions aggregation", explain);
+    }
+
+    @Test
+    void reportSeriesAggregation() {
+        Document explain = mongoTemplate.getCollection("transactions").aggregate(List.of(
+                new Document("$match", new Document("user_id", USER_ID)
+                        .append("transaction_date", new Document("$gte", START).append("$lt", END))
+                        .append("$or", List.of(
+                                new Document("transaction_category", new Document("$in", List.of("FOOD"))),
+                                new Document("transaction_category", new Document("$exists", false))))),
+                new Document("$group", new Document("_id", new Document("bucket", new Document("$dateTrunc",
+                        new Document("date", "$transaction_date").append("unit", "month")
+                                .append("timezone", "Europe/Berlin").append("startOfWeek", "monday")))
+                        .append("transaction_type", "$transaction_type")
+                        .append("transaction_category", "$transaction_category"))
+                        .append("total", new Document("$sum", new Document("$toDecimal", "$transaction_amount"))))
+        )).explain();
+        assertNoCollscan("transactions series aggregation", explain);
+    }
+
+    @Test
+    void streamByUserIdOrderByTransactionDate() {
+        assertUsesIndex("transactions", new Document("user_id", USER_ID)
+                .append("transaction_date", new Document("$gt", START).append("$lt", END)),
+                new Document("transaction_date", 1));
+    }
+
+    @Test
+    void keysetPage() {
+        assertUsesIndex("transactions", new Document("user_id", USER_ID)
+                        .append("$or", List.of(
+                                new Document("transaction_date", new Document("$lt", END)),
+                                new Document("transaction_date", END).append("_id", new Document("$lt", new ObjectId())))),
+                new Document("transaction_date", -1).append("_id", -1));
+    }
+
+    @Test
+    void keysetPageByCategory() {
+        assertUsesIndex("transactions", new Document("user_id", USER_ID).append("transaction_category", "FOOD"),
+                new Document("transaction_date", -1).append("_id", -1));
+    }
+
+    // BudgetRepository / BudgetService
+
+    @Test
+    void budgetsByUserId() {
+        assertUsesIndex("budgets", new Document("user_id", USER_ID), null);
+    }
+
+    @Test
+    void budgetByUserIdAndCategory() {
+        assertUsesIndex("budgets", new Document("user_id", USER_ID).append("budget_category", "FOOD"), null);
+    }
+
+    // GoalRepository / GoalService
+
+    @Test
+    void goalsByUserId() {
+        assertUsesIndex("goals", new Document("userId", USER_ID), null);
+    }
+
+    @Test
+    void goalDeadlineScan() {
+        assertUsesIndex("goals", new Document("userId", new Document("$in", List.of(USER_ID, "other-user")))
+                .append("status", new Document("$in", List.of("NOT_STARTED", "IN_PROGRESS", "ACHIEVED")))
+                .append("endDate", new Document("$gte", END).append("$lte", new Date(END.getTime() + 7L * 24 * 3600 * 1000))), null);
+    }
+
+    // UserRepository
+
+    @Test
+    void userByEmail() {
+        assertUsesIndex("users", new Document("email", "someone@example.com"), null);
+    }
+
+    @Test
+    void userByUsername() {
+        assertUsesIndex("users", new Document("username", "someone"), null);
+    }
+
+    @Test
+    void userByUserId() {
+        assertUsesIndex("users", new Document("_id", new ObjectId()), null);
+    }
+
+    // Rollups and outbox
+
+    @Test
+    void rollupReport() {
+        assertUsesIndex("transaction_rollups", new Document("user_id", USER_ID)
+                .append("day", new Document("$gte", START).append("$lte", END))
+                .append("transaction_category", new Document("$in", List.of("FOOD", "TRANSPORT")))
+                .append("tagged", false), null);
+    }
+
+    @Test
+    void notificationShardClaim() {
+        assertUsesIndex("job_shards", new Document("job", "notifications").append("$or", List.of(
+                new Document("status", "PENDING"),
+                new Document("status", "RUNNING").append("locked_until", new Document("$lt", END)))), null);
+    }
+
+    @Test
+    void outboxClaim() {
+        assertUsesIndex("transaction_outbox", new Document("$or", List.of(
+                new Document("status", "PENDING").append("next_attempt_at", new Document("$lte", END)),
+                new Document("status", "PROCESSING").append("locked_until", new Document("$lt", END)))), null);
+    }
+
+    private Document reportFilter() {
+        List<String> categories = List.of("FOOD", "TRANSPORT", "ENTERTAINMENT", "SALARY");
+        return new Document("user_id", USER_ID)
+                .append("transaction_date", new Document("$gte", START).append("$lte", END))
+                .append("$and", List.of(
+                        new Document("$or", List.of(
+                                new Document("transaction_category", new Document("$in", categories)),
+                                new Document("transaction_category", new Document("$exists", false)))),
+                        new Document("$or", List.of(
+                                new Document("tags", new Document("$in", List.of())),
+                                new Document("tags", new Document("$exists", false))))));
+    }
+
+    private void assertUsesIndex(String collection, Bson filter, Bson sort) {
+        var find = mongoTemplate.getCollection(collection).find(filter);
+        if (sort != null) {
+            find = find.sort(sort);
+        }
+        assertNoCollscan(collection + " " + filter, find.explain());
+    }
+
+    private void assertNoCollscan(String shape, Document explain) {
+        String json = explain.toJson();
+        assertFalse(json.contains("\"COLLSCAN\""), () -> "COLLSCAN for " + shape + ": " + json);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.User;
+import com.example.finance_tracker.Repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    // Low costs keep the test fast; the service is configured for cost 5
+    private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(5);
+
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        authService = new AuthService(userRepository, encoder, mongoTemplate, 5, 2, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        authService.shutdown();
+    }
+
+    @Test
+    void testAuthenticate_OneLookupNoRehash() throws Exception {
+        User user = user(encoder.encode("secret"));
+        when(userRepository.findByUsername("john")).thenReturn(Optional.of(user));
+
+        User authenticated = authService.authenticate("john", "secret").get();
+
+        assertSame(user, authenticated);
+        verify(userRepository, times(1)).findByUsername("john");
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void testAuthenticate_WrongPassword() {
+        when(userRepository.findByUsername("john")).thenReturn(Optional.of(user(encoder.encode("secret"))));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> authService.authenticate("john", "wrong").get());
+        assertInstanceOf(BadCredentialsException.class, e.getCause());
+        assertEquals("Invalid Password", e.getCause().getMessage());
+    }
+
+    @Test
+    void testAuthenticate_UnknownUserSkipsBcrypt() {
+        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> authService.authenticate("ghost", "secret").get());
+        assertEquals("Incorrect username", e.getCause().getMessage());
+    }
+
+    @Test
+    void testAuthenticate_RehashesWhenCostChanged() throws Exception {
+        String oldHash = new BCryptPasswordEncoder(4).encode("secret");
+        User user = user(oldHash);
+        when(userRepository.findByUsername("john")).thenReturn(Optional.of(user));
+
+        authService.authenticate("john", "secret").get();
+
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(Update.class), eq(User.class));
+        assertTrue(user.getPassword().startsWith("$2a$05$"));
+        assertTrue(encoder.matches("secret", user.getPassword()));
+    }
+
+    private User user(String hash) {
+        User user = new User("john@example.com", "John", hash, "Doe", "john", "USER", "USD");
+        user.setUserId("user1");
+        return user;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.finance_tracker.Service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+// Time of one password check per bcrypt cost, for choosing security.bcrypt.strength on the target hardware.
+// Each step up doubles the cost; login throughput per bcrypt thread is roughly 1000 / (ms per check).
+// Run with: ./mvnw test -Dtest=BcryptCostBenchmarkTest -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BcryptCostBenchmarkTest {
+
+    private static final int ITERATIONS = 5;
+
+    @Test
+    void timePerCost() {
+        for (int strength = 8; strength <= 14; strength++) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+            String hash = encoder.encode("correct horse battery staple");
+            encoder.matches("correct horse battery staple", hash); // warm up
+
+            long startNanos = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                encoder.matches("correct horse battery staple", hash);
+            }
+            double millis = (System.nanoTime() - startNanos) / 1e6 / ITERATIONS;
+            System.out.printf("bcrypt cost %d: %.1f ms per check, ~%.0f logins/s per thread%n",
+                    strength, millis, 1000 / millis);
+        }
+    }
+}
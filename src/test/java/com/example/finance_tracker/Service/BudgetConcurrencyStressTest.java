@@ -0,0 +1,109 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.Budget;
+import com.example.finance_tracker.Entity.Goal.Goal;
+import com.example.finance_tracker.Entity.Goal.GoalStatus;
+import com.example.finance_tracker.Entity.Transaction;
+import com.example.finance_tracker.Repository.BudgetRepository;
+import com.example.finance_tracker.Repository.GoalRepository;
+import com.example.finance_tracker.Repository.TransactionRepository;
+import com.example.finance_tracker.Utility.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Fires thousands of parallel transactions against a local MongoDB and checks that no budget/goal update is lost.
+// Run with: ./mvnw test -Dtest=BudgetConcurrencyStressTest -Dstress=true
+@SpringBootTest
+@EnabledIfSystemProperty(named = "stress", matches = "true")
+class BudgetConcurrencyStressTest {
+
+    private static final int TRANSACTIONS = 2000;
+    private static final int THREADS = 64;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    private String userId;
+    private Budget budget;
+    private Goal goal;
+
+    @BeforeEach
+    void setUp() {
+        userId = "stress-" + UUID.randomUUID();
+        budget = budgetRepository.save(new Budget(userId, "FOOD", BigDecimal.valueOf(1_000_000), BigDecimal.ZERO,
+                LocalDate.now().minusDays(1), LocalDate.now().plusDays(30)));
+        goal = goalRepository.save(new Goal(userId, "Stress goal", GoalStatus.NOT_STARTED, Money.of("1000000"), Money.ZERO,
+                LocalDate.now(), LocalDate.now().plusDays(30)));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionRepository.deleteAll(transactionRepository.findByUserId(userId));
+        budgetRepository.deleteById(budget.getId());
+        goalRepository.deleteById(goal.getId());
+    }
+
+    @Test
+    void parallelExpensesAndIncomesAreCountedExactly() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            Transaction.TransactionType type = i % 2 == 0 ? Transaction.TransactionType.EXPENSE : Transaction.TransactionType.INCOME;
+            Transaction.TransactionCategory category = type == Transaction.TransactionType.EXPENSE
+                    ? Transaction.TransactionCategory.FOOD : Transaction.TransactionCategory.SALARY;
+            Transaction transaction = new Transaction(userId, type, category, LocalDateTime.now(), new BigDecimal("1.25"), "stress " + i);
+            futures.add(executor.submit(() -> transactionService.createTransaction(transaction)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Budget and goal updates are applied asynchronously; dispatch() only hands batches to the outbox
+        // workers, so keep topping them up until both totals are in (or the attempts run out)
+        BigDecimal expectedTotal = new BigDecimal("1.25").multiply(BigDecimal.valueOf(TRANSACTIONS / 2));
+        Budget storedBudget = budgetRepository.findById(budget.getId()).orElseThrow();
+        Goal storedGoal = goalRepository.findById(goal.getId()).orElseThrow();
+        for (int i = 0; i < 3000 && (outboxDispatcher.isBusy()
+                || expectedTotal.compareTo(storedBudget.getCurrentSpentAmount()) != 0
+                || !Money.of(expectedTotal).equals(storedGoal.getSavedAmount())); i++) {
+            outboxDispatcher.dispatch();
+            Thread.sleep(10);
+            storedBudget = budgetRepository.findById(budget.getId()).orElseThrow();
+            storedGoal = goalRepository.findById(goal.getId()).orElseThrow();
+        }
+
+        assertEquals(0, expectedTotal.compareTo(storedBudget.getCurrentSpentAmount()),
+                "spent amount was " + storedBudget.getCurrentSpentAmount());
+        assertEquals(Money.of(expectedTotal), storedGoal.getSavedAmount());
+        assertEquals(GoalStatus.IN_PROGRESS, storedGoal.getStatus());
+    }
+}
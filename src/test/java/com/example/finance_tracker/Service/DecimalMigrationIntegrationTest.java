@@ -0,0 +1,84 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.JobWatermark;
+import com.example.finance_tracker.Entity.Transaction;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Seeds string-encoded amounts (as written before the Decimal128 converters) into a local MongoDB,
+// migrates them and checks totals, range queries and that a second run is a no-op.
+// Run with: ./mvnw test -Dtest=DecimalMigrationIntegrationTest -Dstress=true
+@SpringBootTest
+@EnabledIfSystemProperty(named = "stress", matches = "true")
+class DecimalMigrationIntegrationTest {
+
+    private static final String USER_ID = "decimal-migration-user";
+    private static final int TRANSACTIONS = 5000;
+
+    @Autowired
+    private DecimalMigrationService decimalMigrationService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        mongoTemplate.remove(new Query(Criteria.where("user_id").is(USER_ID)), Transaction.class);
+    }
+
+    @Test
+    void migratesLegacyStringsAndKeepsTotals() {
+        List<Document> legacy = new ArrayList<>();
+        BigDecimal expected = BigDecimal.ZERO;
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            // "9.5" > "10.00" as strings, which broke range queries before
+            String amount = new BigDecimal(i % 200).add(new BigDecimal("0.25")).toPlainString();
+            expected = expected.add(new BigDecimal(amount));
+            legacy.add(new Document("user_id", USER_ID)
+                    .append("transaction_type", "EXPENSE")
+                    .append("transaction_category", "FOOD")
+                    .append("transaction_date", new Date())
+                    .append("transaction_amount", amount));
+        }
+        mongoTemplate.getCollection("transactions").insertMany(legacy);
+
+        // Start from the beginning of the collection whatever earlier runs did
+        mongoTemplate.remove(new Query(Criteria.where("_id").is("decimal128_migration:transactions")), JobWatermark.class);
+
+        long start = System.nanoTime();
+        decimalMigrationService.migrate();
+        System.out.printf("Migrated in %.2fs%n", (System.nanoTime() - start) / 1e9);
+
+        for (DecimalMigrationService.FieldCheck check : decimalMigrationService.verify()) {
+            assertTrue(check.isMigrated(), check.toString());
+        }
+        Document total = mongoTemplate.getCollection("transactions").aggregate(List.of(
+                new Document("$match", new Document("user_id", USER_ID)),
+                new Document("$group", new Document("_id", null).append("total", new Document("$sum", "$transaction_amount")))
+        )).first();
+        assertEquals(0, expected.compareTo(((Decimal128) total.get("total")).bigDecimalValue()));
+
+        List<Transaction> between = mongoTemplate.find(new Query(Criteria.where("user_id").is(USER_ID)
+                .and("transaction_amount").gt(new BigDecimal("9")).lt(new BigDecimal("11"))), Transaction.class);
+        assertTrue(between.stream().allMatch(t -> t.getTransactionAmount().compareTo(new BigDecimal("9")) > 0
+                && t.getTransactionAmount().compareTo(new BigDecimal("11")) < 0));
+        assertEquals(TRANSACTIONS / 200 * 2, between.size());
+
+        assertEquals(0, decimalMigrationService.migrate());
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.EmailMessage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Queues thousands of emails against a local MongoDB and drains them through a stub SendGrid server,
+// reporting throughput and checking that provider failures are retried rather than lost.
+// Run with: ./mvnw test -Dtest=EmailDispatcherStressTest -Dstress=true
+@SpringBootTest
+@EnabledIfSystemProperty(named = "stress", matches = "true")
+class EmailDispatcherStressTest {
+
+    private static final int EMAILS = 20_000;
+
+    private static StubSendGridServer stub;
+
+    @Autowired
+    private EmailQueueService emailQueueService;
+
+    @Autowired
+    private EmailDispatcher emailDispatcher;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @DynamicPropertySource
+    static void sendGridStub(DynamicPropertyRegistry registry) {
+        try {
+            stub = new StubSendGridServer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        registry.add("sendgrid.host", stub::host);
+        registry.add("sendgrid.use-http", () -> "true");
+        registry.add("email.rate-limit.per-second", () -> "1000");
+        registry.add("email.max-backoff-seconds", () -> "0");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.remove(new Query(), EmailMessage.class);
+        mongoTemplate.remove(new Query(), "email_dead_letters");
+        stub.requests().clear();
+    }
+
+    @Test
+    void drainsTheQueueInBatches() throws InterruptedException {
+        emailQueueService.enqueueAll(messages(EMAILS));
+
+        long start = System.nanoTime();
+        // dispatch() only hands batches to the workers; keep topping them up until the queue is empty
+        for (int i = 0; i < 6000 && count(EmailMessage.Status.SENT) < EMAILS; i++) {
+            emailDispatcher.dispatch();
+            Thread.sleep(10);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        assertEquals(EMAILS, count(EmailMessage.Status.SENT));
+        System.out.printf("Sent %d emails in %d requests, %.2fs (%.0f emails/s)%n",
+                EMAILS, stub.requests().size(), seconds, EMAILS / seconds);
+        assertTrue(stub.requests().size() <= EMAILS / SendGridEmailService.MAX_PERSONALIZATIONS + 4);
+    }
+
+    @Test
+    void retriesProviderErrorsAndIsolatesRejectedMessages() throws Exception {
+        // Two server errors, then a rejected batch that has to be split up
+        stub.respondWith(500, 503, 400);
+        emailQueueService.enqueueAll(messages(3000));
+
+        for (int round = 0; round < 20 && count(EmailMessage.Status.SENT) < 3000; round++) {
+            emailDispatcher.dispatch();
+            Thread.sleep(1100);
+        }
+
+        assertEquals(3000, count(EmailMessage.Status.SENT));
+        assertEquals(0, mongoTemplate.count(new Query(), "email_dead_letters"));
+        assertTrue(mongoTemplate.exists(new Query(Criteria.where("solo").is(true)), EmailMessage.class));
+    }
+
+    private long count(EmailMessage.Status status) {
+        return mongoTemplate.count(new Query(Criteria.where("status").is(status)), EmailMessage.class);
+    }
+
+    private static List<EmailMessage> messages(int count) {
+        List<EmailMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(new EmailMessage("user" + i + "@example.com", "Alert " + i, "Body " + i));
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.EmailMessage;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class EmailDispatcherTest {
+
+    private static final String CLAIM = "node-a:claim-1";
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private SendGridEmailService sendGridEmailService;
+
+    private EmailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new EmailDispatcher(mongoTemplate, sendGridEmailService, 2000, 1000, 3, 900, 120, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void sentBatchIsMarkedSentUnderTheClaim() {
+        List<EmailMessage> messages = List.of(message("m1", 0), message("m2", 0));
+        stillOwned(messages);
+        when(sendGridEmailService.send(anyList())).thenReturn(result(SendGridEmailService.Outcome.SENT));
+
+        dispatcher.process(messages);
+
+        // One multi-personalization request for both
+        verify(sendGridEmailService).send(messages);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateMulti(query.capture(), update.capture(), eq(EmailMessage.class));
+        assertEquals(CLAIM, query.getValue().getQueryObject().get("claimed_by"));
+        assertEquals("SENT", set(update.getValue()).get("status").toString());
+    }
+
+    @Test
+    void failedSendIsRetriedWithExponentialBackoff() {
+        List<EmailMessage> messages = List.of(message("m1", 0), message("m2", 1));
+        stillOwned(messages);
+        when(sendGridEmailService.send(anyList())).thenReturn(result(SendGridEmailService.Outcome.RETRY));
+
+        Instant before = Instant.now();
+        dispatcher.process(messages);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateFirst(query.capture(), update.capture(), eq(EmailMessage.class));
+        query.getAllValues().forEach(q -> assertEquals(CLAIM, q.getQueryObject().get("claimed_by")));
+
+        Document first = set(update.getAllValues().get(0));
+        assertEquals("PENDING", first.get("status").toString());
+        assertEquals(1, first.get("attempts"));
+        assertEquals("provider said no", first.get("last_error"));
+        assertBackoff(before, 2, first);
+        Document second = set(update.getAllValues().get(1));
+        assertEquals(2, second.get("attempts"));
+        assertBackoff(before, 4, second);
+        verify(mongoTemplate, never()).save(any(), anyString());
+    }
+
+    @Test
+    void lastFailedAttemptIsDeadLettered() {
+        EmailMessage message = message("m1", 2);
+        stillOwned(List.of(message));
+        when(sendGridEmailService.send(anyList())).thenThrow(new RuntimeException("connection reset"));
+        when(mongoTemplate.remove(any(Query.class), eq(EmailMessage.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        dispatcher.process(List.of(message));
+
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removed.capture(), eq(EmailMessage.class));
+        assertEquals(CLAIM, removed.getValue().getQueryObject().get("claimed_by"));
+        verify(mongoTemplate).save(message, "email_dead_letters");
+        assertEquals(3, message.getAttempts());
+        assertEquals("connection reset", message.getLastError());
+        assertNull(message.getClaimedBy());
+    }
+
+    @Test
+    void rejectedBatchIsSplitIntoSoloMessagesWithoutCountingAnAttempt() {
+        List<EmailMessage> messages = List.of(message("m1", 0), message("m2", 0));
+        stillOwned(messages);
+        when(sendGridEmailService.send(anyList())).thenReturn(result(SendGridEmailService.Outcome.REJECTED));
+
+        dispatcher.process(messages);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), update.capture(), eq(EmailMessage.class));
+        update.getAllValues().forEach(u -> {
+            assertEquals(true, set(u).get("solo"));
+            assertEquals("PENDING", set(u).get("status").toString());
+            assertNull(set(u).get("attempts"));
+        });
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(EmailMessage.class));
+    }
+
+    @Test
+    void rejectedSoloMessageIsDeadLetteredAtOnce() {
+        EmailMessage message = message("m1", 0);
+        message.setSolo(true);
+        stillOwned(List.of(message));
+        when(sendGridEmailService.send(anyList())).thenReturn(result(SendGridEmailService.Outcome.REJECTED));
+        when(mongoTemplate.remove(any(Query.class), eq(EmailMessage.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        dispatcher.process(List.of(message));
+
+        verify(mongoTemplate).save(message, "email_dead_letters");
+        assertEquals(1, message.getAttempts());
+    }
+
+    @Test
+    void messagesTakenOverByAnotherNodeAreNotSent() {
+        List<EmailMessage> messages = List.of(message("m1", 0));
+        when(mongoTemplate.find(any(Query.class), eq(EmailMessage.class))).thenReturn(List.of());
+
+        dispatcher.process(messages);
+
+        verifyNoInteractions(sendGridEmailService);
+        // Only the lease renewal, conditioned on this node's claim
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(query.capture(), any(Update.class), eq(EmailMessage.class));
+        assertEquals(CLAIM, query.getValue().getQueryObject().get("claimed_by"));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(EmailMessage.class));
+    }
+
+    @Test
+    void deadLetteringIsSkippedWhenTheClaimWasLost() {
+        EmailMessage message = message("m1", 2);
+        stillOwned(List.of(message));
+        when(sendGridEmailService.send(anyList())).thenReturn(result(SendGridEmailService.Outcome.RETRY));
+        when(mongoTemplate.remove(any(Query.class), eq(EmailMessage.class))).thenReturn(DeleteResult.acknowledged(0));
+
+        dispatcher.process(List.of(message));
+
+        verify(mongoTemplate, never()).save(any(), anyString());
+    }
+
+    @Test
+    void dispatchReturnsWhileSendsAreStillInFlight() throws InterruptedException {
+        List<EmailMessage> messages = List.of(message("m1", 0));
+        stillOwned(messages);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(sendGridEmailService.send(anyList())).thenAnswer(invocation -> {
+            sending.countDown();
+            // Stands in for a send waiting on the provider's rate limit
+            release.await();
+            return result(SendGridEmailService.Outcome.SENT);
+        });
+
+        try {
+            dispatcher.dispatch();
+            assertTrue(sending.await(5, TimeUnit.SECONDS));
+            // The scheduler thread got control back while the only worker is still sending, and a second
+            // run does not claim a batch nobody could work on
+            assertTrue(dispatcher.isBusy());
+            dispatcher.dispatch();
+        } finally {
+            release.countDown();
+        }
+        for (int i = 0; i < 100 && dispatcher.isBusy(); i++) {
+            Thread.sleep(20);
+        }
+
+        assertFalse(dispatcher.isBusy());
+        verify(sendGridEmailService, times(1)).send(anyList());
+    }
+
+    private EmailMessage message(String id, int attempts) {
+        EmailMessage message = new EmailMessage(id + "@example.com", "Finance Tracker alerts", "Your goal is due soon.");
+        message.setId(id);
+        message.setStatus(EmailMessage.Status.SENDING);
+        message.setAttempts(attempts);
+        message.setClaimedBy(CLAIM);
+        return message;
+    }
+
+    private void stillOwned(List<EmailMessage> messages) {
+        when(mongoTemplate.find(any(Query.class), eq(EmailMessage.class))).thenReturn(messages);
+    }
+
+    private static SendGridEmailService.SendResult result(SendGridEmailService.Outcome outcome) {
+        return new SendGridEmailService.SendResult(outcome, outcome == SendGridEmailService.Outcome.SENT ? 202 : 400,
+                "provider said no");
+    }
+
+    private static void assertBackoff(Instant before, long seconds, Document released) {
+        Instant nextAttempt = (Instant) released.get("next_attempt_at");
+        assertFalse(nextAttempt.isBefore(before.plusSeconds(seconds)));
+        assertTrue(nextAttempt.isBefore(Instant.now().plusSeconds(seconds + 1)));
+    }
+
+    private static Document set(Update update) {
+        return update.getUpdateObject().get("$set", Document.class);
+    }
+}
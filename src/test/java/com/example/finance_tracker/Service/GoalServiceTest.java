@@ -3,6 +3,7 @@ package com.example.finance_tracker.Service;
 import com.example.finance_tracker.Entity.Goal.Goal;
 import com.example.finance_tracker.Entity.Goal.GoalStatus;
 import com.example.finance_tracker.Repository.GoalRepository;
+import com.example.finance_tracker.Utility.Money;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,6 +11,10 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
 
 import java.util.List;
 import java.util.Optional;
@@ -23,6 +28,9 @@ class GoalServiceTest {
     @Mock
     private GoalRepository goalRepository;
 
+    @Mock
+    private MongoTemplate mongoTemplate;
+
     @InjectMocks
     private GoalService goalService;
 
@@ -33,8 +41,8 @@ class GoalServiceTest {
         testGoal = new Goal();
         testGoal.setId("1");
         testGoal.setGoalName("Buy a Car");
-        testGoal.setTargetAmount(10000);
-        testGoal.setSavedAmount(0);
+        testGoal.setTargetAmount(Money.of("10000"));
+        testGoal.setSavedAmount(Money.of("0"));
         testGoal.setStatus(GoalStatus.NOT_STARTED);
     }
 
@@ -86,8 +94,8 @@ class GoalServiceTest {
     void testUpdateGoal() {
         Goal updatedGoal = new Goal();
         updatedGoal.setGoalName("Buy a House");
-        updatedGoal.setTargetAmount(50000);
-        updatedGoal.setSavedAmount(10000);
+        updatedGoal.setTargetAmount(Money.of("50000"));
+        updatedGoal.setSavedAmount(Money.of("10000"));
         updatedGoal.setStatus(GoalStatus.IN_PROGRESS);
 
         when(goalRepository.findById("1")).thenReturn(Optional.of(testGoal));
@@ -96,12 +104,45 @@ class GoalServiceTest {
         Goal result = goalService.updateGoal("1", updatedGoal);
 
         assertEquals("Buy a House", result.getGoalName());
-        assertEquals(50000, result.getTargetAmount());
-        assertEquals(10000, result.getSavedAmount());
+        assertEquals(Money.of("50000"), result.getTargetAmount());
+        assertEquals(Money.of("10000"), result.getSavedAmount());
         assertEquals(GoalStatus.IN_PROGRESS, result.getStatus());
         verify(goalRepository, times(1)).save(any(Goal.class));
     }
 
+    @Test
+    void testCreateGoal_WithoutTargetIsRejected() {
+        testGoal.setTargetAmount(null);
+
+        assertThrows(IllegalArgumentException.class, () -> goalService.createGoal(testGoal));
+        verify(goalRepository, never()).save(any(Goal.class));
+    }
+
+    @Test
+    void testUpdateGoal_WithoutSavedAmountKeepsTheStoredOne() {
+        testGoal.setSavedAmount(Money.of("2500"));
+        Goal updatedGoal = new Goal();
+        updatedGoal.setGoalName("Buy a Car");
+        updatedGoal.setTargetAmount(Money.of("12000"));
+        updatedGoal.setStatus(GoalStatus.IN_PROGRESS);
+
+        when(goalRepository.findById("1")).thenReturn(Optional.of(testGoal));
+        when(goalRepository.save(any(Goal.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Goal result = goalService.updateGoal("1", updatedGoal);
+
+        assertEquals(Money.of("2500"), result.getSavedAmount());
+        assertEquals(Money.of("12000"), result.getTargetAmount());
+    }
+
+    @Test
+    void testUpdateGoal_WithoutTargetIsRejected() {
+        when(goalRepository.findById("1")).thenReturn(Optional.of(testGoal));
+
+        assertThrows(IllegalArgumentException.class, () -> goalService.updateGoal("1", new Goal()));
+        verify(goalRepository, never()).save(any(Goal.class));
+    }
+
     @Test
     void testDeleteGoal() {
         doNothing().when(goalRepository).deleteById("1");
@@ -122,7 +163,7 @@ class GoalServiceTest {
 
     @Test
     void testGoalCompletionPercentage_NotReached() {
-        testGoal.setSavedAmount(2000);
+        testGoal.setSavedAmount(Money.of("2000"));
         when(goalRepository.findById("1")).thenReturn(Optional.of(testGoal));
 
         String result = goalService.goalCompletionPercentage("1");
@@ -132,7 +173,7 @@ class GoalServiceTest {
 
     @Test
     void testGoalCompletionPercentage_Completed() {
-        testGoal.setSavedAmount(12000);
+        testGoal.setSavedAmount(Money.of("12000"));
         when(goalRepository.findById("1")).thenReturn(Optional.of(testGoal));
 
         String result = goalService.goalCompletionPercentage("1");
@@ -140,18 +181,46 @@ class GoalServiceTest {
         assertEquals("100% (Extra saved: 2000.00)", result);
     }
 
+    @Test
+    void testGoalCompletionPercentage_MissingAmountsCountAsZero() {
+        testGoal.setSavedAmount(null);
+        when(goalRepository.findById("1")).thenReturn(Optional.of(testGoal));
+
+        String result = goalService.goalCompletionPercentage("1");
+
+        assertEquals("0% (Remaining: 10000.00)", result);
+    }
+
     @Test
     void testAddMoneyToGoal() {
+        Goal request = new Goal();
+        request.setId("1");
+        request.setSavedAmount(Money.of("5000"));
+
         Goal goalWithSavings = new Goal();
         goalWithSavings.setId("1");
-        goalWithSavings.setSavedAmount(5000);
+        goalWithSavings.setSavedAmount(Money.of("5000"));
+        goalWithSavings.setStatus(GoalStatus.IN_PROGRESS);
 
-        when(goalRepository.findById("1")).thenReturn(Optional.of(testGoal));
-        when(goalRepository.save(any(Goal.class))).thenReturn(goalWithSavings);
+        when(mongoTemplate.findAndModify(any(Query.class), any(AggregationUpdate.class),
+                any(FindAndModifyOptions.class), eq(Goal.class))).thenReturn(goalWithSavings);
 
-        Goal updatedGoal = goalService.addMoneyToGoal(goalWithSavings);
+        Goal updatedGoal = goalService.addMoneyToGoal(request);
 
-        assertEquals(5000, updatedGoal.getSavedAmount());
-        verify(goalRepository, times(1)).save(any(Goal.class));
+        assertEquals(Money.of("5000"), updatedGoal.getSavedAmount());
+        assertEquals(GoalStatus.IN_PROGRESS, updatedGoal.getStatus());
+        verify(goalRepository, never()).save(any(Goal.class));
+    }
+
+    @Test
+    void testAddMoneyToGoal_NotFound() {
+        Goal request = new Goal();
+        request.setId("2");
+        request.setSavedAmount(Money.of("100"));
+
+        when(mongoTemplate.findAndModify(any(Query.class), any(AggregationUpdate.class),
+                any(FindAndModifyOptions.class), eq(Goal.class))).thenReturn(null);
+
+        assertNull(goalService.addMoneyToGoal(request));
     }
 }
@@ -0,0 +1,178 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.EmailMessage;
+import com.example.finance_tracker.Entity.Goal.Goal;
+import com.example.finance_tracker.Entity.Goal.GoalStatus;
+import com.example.finance_tracker.Entity.JobRun;
+import com.example.finance_tracker.Entity.JobShard;
+import com.example.finance_tracker.Entity.SentAlert;
+import com.example.finance_tracker.Entity.User;
+import com.example.finance_tracker.FinanceTrackerApplication;
+import com.example.finance_tracker.Utility.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Starts three application instances against one local MongoDB and fires the daily job on all of them at once.
+// Checks that every user gets exactly one digest and that a shard left by a "crashed" node is resumed.
+// Run with: ./mvnw test -Dtest=NotificationSchedulerClusterTest -Dstress=true
+@EnabledIfSystemProperty(named = "stress", matches = "true")
+class NotificationSchedulerClusterTest {
+
+    private static final int NODES = 3;
+    private static final int USERS = 600;
+    private static final String EMAIL_DOMAIN = "@cluster-test.example.com";
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    private MongoTemplate mongoTemplate;
+    private final List<String> userIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(new SpringApplicationBuilder(FinanceTrackerApplication.class)
+                    .properties("server.port=0",
+                            "notifications.shards=12",
+                            "notifications.user-page-size=100",
+                            "notifications.shard-poll-interval-ms=3600000",
+                            "email.poll-interval-ms=3600000")
+                    .run());
+        }
+        mongoTemplate = nodes.get(0).getBean(MongoTemplate.class);
+        cleanUp();
+
+        LocalDate dueDate = LocalDate.now().plusDays(2);
+        for (int i = 0; i < USERS; i++) {
+            User user = mongoTemplate.insert(new User("user" + i + EMAIL_DOMAIN, "Cluster", "x", "Test",
+                    "cluster-user-" + i, "USER", "USD"));
+            userIds.add(user.getUserId());
+            mongoTemplate.insert(new Goal(user.getUserId(), "Goal " + i, GoalStatus.IN_PROGRESS, Money.of("1000"), Money.of("100"),
+                    LocalDate.now().minusMonths(1), dueDate));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanUp();
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void everyUserGetsOneDigestWhenAllNodesFire() throws Exception {
+        ExecutorService cron = Executors.newFixedThreadPool(NODES);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (ConfigurableApplicationContext node : nodes) {
+            futures.add(cron.submit(() -> node.getBean(NotificationScheduler.class).checkForNotifications()));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        // Nodes that lost the start lock may have found no run yet; the poll picks the rest up
+        for (ConfigurableApplicationContext node : nodes) {
+            node.getBean(NotificationScheduler.class).resumeShards();
+        }
+        awaitIdle();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        cron.shutdown();
+
+        Map<String, Long> perRecipient = queuedEmails().stream()
+                .collect(Collectors.groupingBy(EmailMessage::getToEmail, Collectors.counting()));
+        assertEquals(USERS, perRecipient.size());
+        assertTrue(perRecipient.values().stream().allMatch(count -> count == 1), "duplicate digests: " + perRecipient);
+
+        List<JobShard> shards = shards();
+        assertTrue(shards.stream().allMatch(shard -> shard.getStatus() == JobShard.Status.DONE));
+        Map<String, Long> shardsPerNode = shards.stream().collect(Collectors.groupingBy(
+                shard -> shard.getOwner().substring(0, shard.getOwner().indexOf(':')), Collectors.counting()));
+        System.out.printf("%d users over %d shards in %.2fs, shards per node: %s%n", USERS, shards.size(), seconds, shardsPerNode.values());
+        assertEquals(JobRun.Status.FINISHED, mongoTemplate.findById(runId(), JobRun.class).getStatus());
+    }
+
+    @Test
+    void abandonedShardIsResumedFromItsCheckpoint() {
+        NotificationScheduler first = nodes.get(0).getBean(NotificationScheduler.class);
+        first.startRun(LocalDate.now());
+
+        // Shard 0 was leased by a node that died after its first page: lease expired, checkpoint kept
+        String rangeEnd = mongoTemplate.findById(runId() + ":0", JobShard.class).getRangeEnd();
+        List<String> shardUsers = userIds.stream().filter(id -> id.compareTo(rangeEnd) <= 0).sorted().toList();
+        String checkpoint = shardUsers.get(shardUsers.size() / 2);
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(runId() + ":0")),
+                new Update().set("status", JobShard.Status.RUNNING)
+                        .set("owner", "dead-node:lease")
+                        .set("locked_until", Instant.now().minusSeconds(1))
+                        .set("checkpoint", checkpoint),
+                JobShard.class);
+
+        nodes.get(1).getBean(NotificationScheduler.class).resumeShards();
+        awaitIdle();
+
+        Function<String, String> email = id -> mongoTemplate.findById(id, User.class).getEmail();
+        List<String> recipients = queuedEmails().stream().map(EmailMessage::getToEmail).toList();
+        assertEquals(USERS - shardUsers.indexOf(checkpoint) - 1, recipients.size());
+        assertFalse(recipients.contains(email.apply(shardUsers.get(0))));
+        assertTrue(recipients.contains(email.apply(shardUsers.get(shardUsers.size() - 1))));
+        assertTrue(shards().stream().allMatch(shard -> shard.getStatus() == JobShard.Status.DONE));
+    }
+
+    // The scheduler hands shards to its workers and returns; wait until every node has drained them
+    private void awaitIdle() {
+        long deadline = System.nanoTime() + Duration.ofMinutes(2).toNanos();
+        while (nodes.stream().anyMatch(node -> node.getBean(NotificationScheduler.class).isBusy())) {
+            assertTrue(System.nanoTime() < deadline, "shards still running after 2 minutes");
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private List<EmailMessage> queuedEmails() {
+        return mongoTemplate.find(new Query(Criteria.where("to_email").regex(EMAIL_DOMAIN.replace(".", "\\.") + "$")),
+                EmailMessage.class);
+    }
+
+    private List<JobShard> shards() {
+        return mongoTemplate.find(new Query(Criteria.where("run_id").is(runId())), JobShard.class);
+    }
+
+    private String runId() {
+        return "notifications:" + LocalDate.now();
+    }
+
+    private void cleanUp() {
+        List<String> users = mongoTemplate.find(new Query(Criteria.where("email").regex(EMAIL_DOMAIN.replace(".", "\\.") + "$")), User.class)
+                .stream().map(User::getUserId).toList();
+        mongoTemplate.remove(new Query(Criteria.where("userId").in(users)), Goal.class);
+        mongoTemplate.remove(new Query(Criteria.where("user_id").in(users)), SentAlert.class);
+        mongoTemplate.remove(new Query(Criteria.where("_id").in(users)), User.class);
+        mongoTemplate.remove(new Query(Criteria.where("to_email").regex(EMAIL_DOMAIN.replace(".", "\\.") + "$")), EmailMessage.class);
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(runId())), JobRun.class);
+        mongoTemplate.remove(new Query(Criteria.where("run_id").is(runId())), JobShard.class);
+        userIds.clear();
+    }
+}
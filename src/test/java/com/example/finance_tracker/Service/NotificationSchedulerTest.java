@@ -0,0 +1,284 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.Goal.Goal;
+import com.example.finance_tracker.Entity.Goal.GoalStatus;
+import com.example.finance_tracker.Entity.JobRun;
+import com.example.finance_tracker.Entity.JobShard;
+import com.example.finance_tracker.Entity.JobWatermark;
+import com.example.finance_tracker.Entity.Transaction;
+import com.example.finance_tracker.Entity.User;
+import com.example.finance_tracker.Repository.GoalRepository;
+import com.example.finance_tracker.Utility.Money;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationSchedulerTest {
+
+    @Mock
+    private GoalRepository goalRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private SchedulerLockService schedulerLockService;
+
+    @Mock
+    private JobShardService jobShardService;
+
+    @InjectMocks
+    private NotificationScheduler notificationScheduler;
+
+    @Test
+    void testProcessUsers_OneAggregationPerChunk() {
+        Transaction usual = transaction("user1", new BigDecimal("100"));
+        Transaction unusual = transaction("user1", new BigDecimal("400"));
+
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class))).thenReturn(List.of(usual, unusual));
+        Document row = new Document("_id", new Document("user_id", "user1").append("transaction_category", "FOOD"))
+                .append("average", new Decimal128(new BigDecimal("200")));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("transactions"), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(row), new Document()));
+        when(goalRepository.streamByUserIdInAndEndDateBetweenAndStatusIn(any(), any(), any(), any())).thenReturn(Stream.empty());
+
+        notificationScheduler.processUsers(List.of("user1"), run());
+
+        // Only the 400 expense is above 1.5x the 200 average
+        ArgumentCaptor<List<NotificationService.Alert>> alerts = ArgumentCaptor.forClass(List.class);
+        verify(notificationService, times(1)).sendDigests(alerts.capture());
+        assertEquals(1, alerts.getValue().size());
+        assertEquals("user1", alerts.getValue().get(0).userId());
+        assertEquals("transaction:" + unusual.getTransactionId(), alerts.getValue().get(0).key());
+        verify(mongoTemplate, times(1)).aggregate(any(Aggregation.class), eq("transactions"), eq(Document.class));
+    }
+
+    @Test
+    void testProcessUsers_NoUsers() {
+        notificationScheduler.processUsers(List.of(), run());
+
+        verifyNoInteractions(mongoTemplate, goalRepository, notificationService);
+    }
+
+    @Test
+    void testProcessUsers_OnlyOpenGoalsInTheWindow() {
+        LocalDate today = LocalDate.now();
+        Goal goal = new Goal("user1", "Holiday", GoalStatus.IN_PROGRESS, Money.of("1000"), Money.of("400"), today.minusMonths(3), today.plusDays(3));
+        goal.setId("goal1");
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class))).thenReturn(List.of());
+        when(goalRepository.streamByUserIdInAndEndDateBetweenAndStatusIn(any(), any(), any(), any())).thenReturn(Stream.of(goal));
+
+        notificationScheduler.processUsers(List.of("user1"), run());
+
+        // Past-due goals are outside the window; completed goals are not asked for
+        ArgumentCaptor<Collection<GoalStatus>> statuses = ArgumentCaptor.forClass(Collection.class);
+        verify(goalRepository).streamByUserIdInAndEndDateBetweenAndStatusIn(eq(List.of("user1")), eq(today),
+                eq(today.plusDays(7)), statuses.capture());
+        assertFalse(statuses.getValue().contains(GoalStatus.COMPLETED));
+        verify(goalRepository, never()).findAll();
+
+        ArgumentCaptor<List<NotificationService.Alert>> alerts = ArgumentCaptor.forClass(List.class);
+        verify(notificationService).sendDigests(alerts.capture());
+        assertEquals(1, alerts.getValue().size());
+        assertEquals("goal_deadline:goal1:" + today.plusDays(3), alerts.getValue().get(0).key());
+        assertTrue(alerts.getValue().get(0).message().contains("is due in 3 days"));
+    }
+
+    @Test
+    void testRunShard_CheckpointsEachPageAndFinishesTheRun() {
+        JobRun run = run();
+        JobShard shard = shard(run, 0);
+        List<User> page = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            page.add(user());
+        }
+        when(jobShardService.getRun(run.getId())).thenReturn(run);
+        when(mongoTemplate.find(any(Query.class), eq(User.class))).thenReturn(page);
+        when(jobShardService.checkpoint(eq(shard), eq("owner"), anyString(), anyLong(), any())).thenReturn(true);
+        when(jobShardService.complete(shard, "owner")).thenReturn(true);
+        when(jobShardService.finishRunIfComplete(run.getId())).thenReturn(run);
+
+        notificationScheduler.runShard(shard, "owner", Duration.ofMinutes(5));
+
+        // Single shard: every user of the page belongs to it
+        verify(jobShardService).checkpoint(shard, "owner", page.get(4).getUserId(), 5, Duration.ofMinutes(5));
+        verify(mongoTemplate).upsert(any(Query.class), any(UpdateDefinition.class), eq(JobWatermark.class));
+    }
+
+    @Test
+    void testRunShard_StopsWhenTheLeaseIsLost() {
+        JobRun run = run();
+        JobShard shard = shard(run, 0);
+        when(jobShardService.getRun(run.getId())).thenReturn(run);
+        when(mongoTemplate.find(any(Query.class), eq(User.class))).thenReturn(List.of(user()));
+        when(jobShardService.checkpoint(eq(shard), eq("owner"), anyString(), anyLong(), any())).thenReturn(false);
+
+        notificationScheduler.runShard(shard, "owner", Duration.ofMinutes(5));
+
+        verify(jobShardService, never()).complete(any(), anyString());
+    }
+
+    @Test
+    void testProcessShards_ReturnsWithoutWaitingForTheWorkers() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger claims = new AtomicInteger();
+        when(jobShardService.claim(eq("notifications"), anyString(), any())).thenAnswer(invocation -> {
+            claims.incrementAndGet();
+            release.await();
+            return null;
+        });
+        notificationScheduler.start();
+        try {
+            notificationScheduler.processShards();
+            notificationScheduler.processShards();
+
+            // Both workers are still blocked, yet the scheduler thread got control back, and the
+            // second call did not start more workers than configured
+            assertTrue(notificationScheduler.isBusy());
+            release.countDown();
+            for (int i = 0; i < 100 && notificationScheduler.isBusy(); i++) {
+                Thread.sleep(20);
+            }
+            assertFalse(notificationScheduler.isBusy());
+            assertEquals(2, claims.get());
+        } finally {
+            release.countDown();
+            notificationScheduler.shutdown();
+        }
+    }
+
+    @Test
+    void testStartRun_OnlyTheLockHolderCreatesTheRun() {
+        when(schedulerLockService.tryAcquire(eq("notifications"), anyString(), any())).thenReturn(false);
+
+        notificationScheduler.startRun(LocalDate.of(2026, 10, 18));
+
+        verifyNoInteractions(jobShardService);
+    }
+
+    @Test
+    void testStartRun_WindowStartsAtTheWatermark() {
+        String watermark = new ObjectId().toHexString();
+        when(schedulerLockService.tryAcquire(eq("notifications"), anyString(), any())).thenReturn(true);
+        when(mongoTemplate.findById("unusual_spending", JobWatermark.class))
+                .thenReturn(new JobWatermark("unusual_spending", watermark, Instant.now()));
+
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("users"), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+        notificationScheduler.startRun(LocalDate.of(2026, 10, 18));
+
+        // No users yet: a single open-ended shard. The window stops short of now so that transactions
+        // whose client-side id is older than their commit are left for the next run.
+        ArgumentCaptor<String> toId = ArgumentCaptor.forClass(String.class);
+        verify(jobShardService).startRun(eq("notifications"), eq("notifications:2026-10-18"), eq(watermark), toId.capture(), eq(List.of()));
+        Instant windowEnd = new ObjectId(toId.getValue()).getDate().toInstant();
+        assertTrue(windowEnd.isBefore(Instant.now().minusSeconds(590)));
+        verify(schedulerLockService).release(eq("notifications"), anyString());
+    }
+
+    @Test
+    void testShardBoundaries_SplitTheSampledIdsEvenly() {
+        List<Document> sample = new ArrayList<>();
+        for (int i = 0; i < 1600; i++) {
+            sample.add(new Document("_id", new ObjectId()));
+        }
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("users"), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(sample, new Document()));
+
+        List<String> boundaries = notificationScheduler.shardBoundaries(16);
+
+        assertEquals(15, boundaries.size());
+        assertEquals(boundaries.stream().sorted().distinct().toList(), boundaries);
+        List<String> ids = sample.stream().map(row -> row.getObjectId("_id").toHexString()).sorted().toList();
+        assertEquals(ids.get(100), boundaries.get(0));
+        assertEquals(ids.get(1500), boundaries.get(14));
+    }
+
+    @Test
+    void testRunShard_ReadsOnlyTheShardsRange() {
+        JobRun run = run();
+        JobShard shard = shard(run, 1);
+        shard.setRangeStart(new ObjectId().toHexString());
+        shard.setRangeEnd(new ObjectId().toHexString());
+        when(jobShardService.getRun(run.getId())).thenReturn(run);
+        when(mongoTemplate.find(any(Query.class), eq(User.class))).thenReturn(List.of());
+
+        notificationScheduler.runShard(shard, "owner", Duration.ofMinutes(5));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(User.class));
+        Document range = query.getValue().getQueryObject().get("_id", Document.class);
+        assertEquals(shard.getRangeStart(), range.get("$gt"));
+        assertEquals(shard.getRangeEnd(), range.get("$lte"));
+    }
+
+    private JobRun run() {
+        JobRun run = new JobRun();
+        run.setId("notifications:2026-10-18");
+        run.setFromId(new ObjectId(new Date(System.currentTimeMillis() - 86_400_000L)).toHexString());
+        run.setToId(new ObjectId().toHexString());
+        run.setShardCount(1);
+        run.setStatus(JobRun.Status.RUNNING);
+        return run;
+    }
+
+    // Only the _id is read when paging through users
+    private User user() {
+        User user = new User(null, null, null, null, null, null, null);
+        user.setUserId(new ObjectId().toHexString());
+        return user;
+    }
+
+    private JobShard shard(JobRun run, int number) {
+        JobShard shard = new JobShard();
+        shard.setId(run.getId() + ":" + number);
+        shard.setRunId(run.getId());
+        shard.setShard(number);
+        shard.setStatus(JobShard.Status.RUNNING);
+        return shard;
+    }
+
+    private Transaction transaction(String userId, BigDecimal amount) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(new ObjectId().toHexString());
+        transaction.setUserId(userId);
+        transaction.setTransactionType(Transaction.TransactionType.EXPENSE);
+        transaction.setTransactionCategory(Transaction.TransactionCategory.FOOD);
+        transaction.setTransactionDate(LocalDateTime.now());
+        transaction.setTransactionAmount(amount);
+        transaction.setTransactionDescription("Groceries");
+        return transaction;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.EmailMessage;
+import com.example.finance_tracker.Entity.NotificationPreference;
+import com.example.finance_tracker.Entity.SentAlert;
+import com.example.finance_tracker.Entity.User;
+import com.example.finance_tracker.Repository.NotificationPreferenceRepository;
+import com.example.finance_tracker.Repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationServiceTest {
+
+    @Mock
+    private EmailQueueService emailQueueService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private NotificationPreferenceRepository notificationPreferenceRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        notificationService = new NotificationService(emailQueueService, userRepository, notificationPreferenceRepository,
+                mongoTemplate, 100, 10);
+    }
+
+    @Test
+    void testSendEmailNotifications_OneLookupForAllUsers() {
+        List<NotificationService.Notification> notifications = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            notifications.add(new NotificationService.Notification("user" + (i % 3), "Alert", "Message " + i));
+        }
+        when(mongoTemplate.find(any(Query.class), eq(User.class)))
+                .thenReturn(List.of(user("user0", "a@example.com"), user("user1", "b@example.com")));
+
+        notificationService.sendEmailNotifications(notifications);
+
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(User.class));
+        verifyNoInteractions(userRepository);
+        ArgumentCaptor<List<EmailMessage>> queued = ArgumentCaptor.forClass(List.class);
+        verify(emailQueueService, times(1)).enqueueAll(queued.capture());
+        // user2 has no account, so its notifications are dropped
+        assertEquals(667, queued.getValue().size());
+        assertEquals("a@example.com", queued.getValue().get(0).getToEmail());
+        assertEquals("Message 0", queued.getValue().get(0).getContent());
+    }
+
+    @Test
+    void testSendEmailNotifications_CachedEmailsSkipTheDatabase() {
+        when(mongoTemplate.find(any(Query.class), eq(User.class))).thenReturn(List.of(user("user0", "a@example.com")));
+        List<NotificationService.Notification> notifications = List.of(new NotificationService.Notification("user0", "Alert", "Hi"));
+
+        notificationService.sendEmailNotifications(notifications);
+        notificationService.sendEmailNotifications(notifications);
+        notificationService.sendEmailNotification("user0", "Alert", "Hi");
+
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(User.class));
+        verifyNoInteractions(userRepository);
+        verify(emailQueueService).enqueue("a@example.com", "Alert", "Hi");
+    }
+
+    @Test
+    void testSendDigests_OneEmailPerUserSkippingSentAlertsAndOptOuts() {
+        NotificationPreference optOut = new NotificationPreference();
+        optOut.setUserId("user2");
+        optOut.setEmailEnabled(false);
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.find(any(Query.class), eq(SentAlert.class)))
+                .thenReturn(List.of(new SentAlert("goal_deadline:g1:2026-10-20", "user1", null)));
+        when(notificationPreferenceRepository.findByUserIdIn(any())).thenReturn(List.of(optOut));
+        when(mongoTemplate.find(any(Query.class), eq(User.class))).thenReturn(List.of(user("user1", "a@example.com")));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SentAlert.class)).thenReturn(bulk);
+        when(bulk.insert(anyList())).thenReturn(bulk);
+
+        notificationService.sendDigests(List.of(
+                new NotificationService.Alert("user1", "transaction:t1", "Unusual Spending Alert", "You spent 400"),
+                new NotificationService.Alert("user1", "transaction:t2", "Unusual Spending Alert", "You spent 500"),
+                new NotificationService.Alert("user1", "goal_deadline:g1:2026-10-20", "Upcoming Goal Deadline", "Due soon"),
+                new NotificationService.Alert("user2", "transaction:t3", "Unusual Spending Alert", "You spent 900")));
+
+        ArgumentCaptor<List<EmailMessage>> queued = ArgumentCaptor.forClass(List.class);
+        verify(emailQueueService).enqueueAll(queued.capture());
+        assertEquals(1, queued.getValue().size());
+        EmailMessage digest = queued.getValue().get(0);
+        assertEquals("a@example.com", digest.getToEmail());
+        assertTrue(digest.getContent().contains("You spent 400") && digest.getContent().contains("You spent 500"));
+        assertFalse(digest.getContent().contains("Due soon"));
+
+        ArgumentCaptor<List<SentAlert>> recorded = ArgumentCaptor.forClass(List.class);
+        verify(bulk).insert(recorded.capture());
+        assertEquals(List.of("transaction:t1", "transaction:t2"), recorded.getValue().stream().map(SentAlert::getKey).toList());
+    }
+
+    @Test
+    void testSendAlert_SkipsAlertsAlreadySent() {
+        when(mongoTemplate.exists(any(Query.class), eq(SentAlert.class))).thenReturn(true);
+
+        notificationService.sendAlert(new NotificationService.Alert("user1", "transaction:t1", "Unusual Spending Alert", "Hi"));
+
+        verifyNoInteractions(emailQueueService, userRepository);
+    }
+
+    private User user(String userId, String email) {
+        User user = new User(email, "First", "password", "Last", userId, "USER", "USD");
+        user.setUserId(userId);
+        return user;
+    }
+}
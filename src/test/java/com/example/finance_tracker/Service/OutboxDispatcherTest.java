@@ -0,0 +1,200 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.OutboxEvent;
+import com.example.finance_tracker.Entity.Transaction;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class OutboxDispatcherTest {
+
+    private static final String CLAIM = "node-a:claim-1";
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BudgetService budgetService;
+
+    @Mock
+    private GoalService goalService;
+
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new OutboxDispatcher(mongoTemplate, budgetService, goalService, 500, 3, 60, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void appliesEachGroupKeyedByEventIdAndMarksItDone() {
+        List<OutboxEvent> events = List.of(expense("e1", "10.00", 0), expense("e2", "5.50", 0));
+        transactionsExist(events);
+        stillOwned(events);
+
+        dispatcher.process(events);
+
+        verify(budgetService).addToSpentAmount("user1", "FOOD",
+                Map.of("e1", new BigDecimal("10.00"), "e2", new BigDecimal("5.50")));
+        List<Update> updates = outboxUpdateMultis();
+        assertEquals("DONE", set(updates.get(updates.size() - 1)).get("status").toString());
+    }
+
+    @Test
+    void failedApplyIsRetriedWithBackoffOnlyUnderTheClaim() {
+        List<OutboxEvent> events = List.of(expense("e1", "10.00", 0));
+        transactionsExist(events);
+        stillOwned(events);
+        doThrow(new RuntimeException("write conflict")).when(budgetService)
+                .addToSpentAmount(anyString(), anyString(), anyMap());
+
+        dispatcher.process(events);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(OutboxEvent.class));
+        assertEquals(CLAIM, query.getValue().getQueryObject().get("claimed_by"));
+        Document released = set(update.getValue());
+        assertEquals("PENDING", released.get("status").toString());
+        assertEquals(1, released.get("attempts"));
+        assertEquals("write conflict", released.get("last_error"));
+        // Never acknowledged as done
+        outboxUpdateMultis().forEach(u -> assertNull(set(u).get("status")));
+    }
+
+    @Test
+    void failedAcknowledgementDoesNotRequeueAppliedEvents() {
+        List<OutboxEvent> events = List.of(expense("e1", "10.00", 0));
+        transactionsExist(events);
+        stillOwned(events);
+        // The lease renewal succeeds, marking the events done does not
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(OutboxEvent.class)))
+                .thenReturn(null)
+                .thenThrow(new RuntimeException("primary stepped down"));
+
+        dispatcher.process(events);
+
+        verify(budgetService).addToSpentAmount(anyString(), anyString(), anyMap());
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(OutboxEvent.class));
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(OutboxEvent.class));
+    }
+
+    @Test
+    void eventsReclaimedByAnotherNodeAreNotApplied() {
+        List<OutboxEvent> events = List.of(expense("e1", "10.00", 0), income("e2", "20.00"));
+        transactionsExist(events);
+        when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class))).thenReturn(List.of());
+
+        dispatcher.process(events);
+
+        verifyNoInteractions(budgetService, goalService);
+        // Only the two lease renewals, both conditioned on this node's claim
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).updateMulti(query.capture(), any(Update.class), eq(OutboxEvent.class));
+        query.getAllValues().forEach(q -> assertEquals(CLAIM, q.getQueryObject().get("claimed_by")));
+    }
+
+    @Test
+    void lastFailedAttemptIsDeadLetteredOnlyIfTheClaimStillHolds() {
+        OutboxEvent mine = expense("e1", "10.00", 2);
+        List<OutboxEvent> events = List.of(mine);
+        transactionsExist(events);
+        stillOwned(events);
+        doThrow(new RuntimeException("validation failed")).when(budgetService)
+                .addToSpentAmount(anyString(), anyString(), anyMap());
+        when(mongoTemplate.remove(any(Query.class), eq(OutboxEvent.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        dispatcher.process(events);
+
+        verify(mongoTemplate).save(mine, "transaction_outbox_dead_letters");
+        assertEquals(3, mine.getAttempts());
+
+        // Taken over by another node before the failure was recorded: left alone
+        reset(mongoTemplate);
+        OutboxEvent lost = expense("e2", "10.00", 2);
+        transactionsExist(List.of(lost));
+        stillOwned(List.of(lost));
+        when(mongoTemplate.remove(any(Query.class), eq(OutboxEvent.class))).thenReturn(DeleteResult.acknowledged(0));
+
+        dispatcher.process(List.of(lost));
+
+        verify(mongoTemplate, never()).save(any(), anyString());
+    }
+
+    private OutboxEvent expense(String id, String amount, int attempts) {
+        OutboxEvent event = event(id, amount, Transaction.TransactionType.EXPENSE);
+        event.setTransactionCategory(Transaction.TransactionCategory.FOOD);
+        event.setAttempts(attempts);
+        return event;
+    }
+
+    private OutboxEvent income(String id, String amount) {
+        return event(id, amount, Transaction.TransactionType.INCOME);
+    }
+
+    private OutboxEvent event(String id, String amount, Transaction.TransactionType type) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setTransactionId("t-" + id);
+        event.setUserId("user1");
+        event.setTransactionType(type);
+        event.setAmount(new BigDecimal(amount));
+        event.setStatus(OutboxEvent.Status.PROCESSING);
+        event.setClaimedBy(CLAIM);
+        event.setCreatedAt(Instant.now());
+        return event;
+    }
+
+    private void transactionsExist(List<OutboxEvent> events) {
+        List<Transaction> transactions = events.stream().map(event -> {
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId(event.getTransactionId());
+            return transaction;
+        }).toList();
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class))).thenReturn(transactions);
+    }
+
+    private void stillOwned(List<OutboxEvent> events) {
+        when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class))).thenReturn(events);
+    }
+
+    private List<Update> outboxUpdateMultis() {
+        ArgumentCaptor<Update> captor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atLeastOnce()).updateMulti(any(Query.class), captor.capture(), eq(OutboxEvent.class));
+        return captor.getAllValues();
+    }
+
+    private static Document set(Update update) {
+        return update.getUpdateObject().get("$set", Document.class);
+    }
+}
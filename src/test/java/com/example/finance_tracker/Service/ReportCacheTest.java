@@ -0,0 +1,49 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.Report;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportCacheTest {
+
+    private ReportCache reportCache;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @BeforeEach
+    void setUp() {
+        reportCache = new ReportCache(100, 10);
+        start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        end = LocalDateTime.of(2024, 12, 31, 23, 59);
+    }
+
+    @Test
+    void testGet_ReturnsCachedReportOnSecondCall() {
+        AtomicInteger loads = new AtomicInteger();
+
+        Report first = reportCache.get("user123", start, end, null, null, () -> { loads.incrementAndGet(); return new Report(); });
+        Report second = reportCache.get("user123", start, end, null, null, () -> { loads.incrementAndGet(); return new Report(); });
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1L, reportCache.stats().get("hitCount"));
+        assertEquals(1L, reportCache.stats().get("missCount"));
+    }
+
+    @Test
+    void testEvictUser_OnlyDropsThatUsersReports() {
+        Report user1 = reportCache.get("user123", start, end, null, null, Report::new);
+        Report user2 = reportCache.get("user456", start, end, null, null, Report::new);
+
+        reportCache.evictUser("user123");
+
+        assertNotSame(user1, reportCache.get("user123", start, end, null, null, Report::new));
+        assertSame(user2, reportCache.get("user456", start, end, null, null, Report::new));
+        assertEquals(1L, reportCache.stats().get("invalidationCount"));
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.Report;
+import com.example.finance_tracker.Entity.ReportJob;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoGridFSException;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSFindIterable;
+import com.mongodb.client.gridfs.GridFSUploadStream;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportJobServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ReportService reportService;
+
+    @Mock
+    private GridFSBucket artifacts;
+
+    private ReportJobService reportJobService;
+
+    @BeforeEach
+    void setUp() {
+        reportJobService = new ReportJobService(mongoTemplate, reportService, new ObjectMapper(), artifacts,
+                1, 1, 2, Duration.ofHours(24), Duration.ofMinutes(5));
+    }
+
+    @Test
+    void submitTurnsAwayUsersOverTheActiveJobLimit() {
+        when(mongoTemplate.insert(any(ReportJob.class))).thenAnswer(invocation -> {
+            ReportJob job = invocation.getArgument(0);
+            job.setId("job1");
+            return job;
+        });
+        when(mongoTemplate.count(any(Query.class), eq(ReportJob.class))).thenReturn(3L);
+
+        assertThrows(IllegalStateException.class, () -> reportJobService.submit(job(ReportJob.Type.REPORT)));
+
+        verify(mongoTemplate).remove(any(Query.class), eq(ReportJob.class));
+        verifyNoInteractions(reportService, artifacts);
+    }
+
+    @Test
+    void csvReportIsStoredInGridFsAndTheJobMarkedDone() {
+        ReportJob job = job(ReportJob.Type.REPORT_CSV);
+        jobUpdatesMatch(1);
+        Report report = new Report();
+        when(reportService.generateReport(eq("user1"), any(), any(), any(), isNull())).thenReturn(report);
+        when(reportService.generateCsvReport(report)).thenReturn("Total Income,Total Expenses,Category,Amount\n".getBytes());
+        ObjectId artifactId = new ObjectId();
+        when(artifacts.uploadFromStream(eq("financial_report.csv"), any(InputStream.class), any(GridFSUploadOptions.class)))
+                .thenReturn(artifactId);
+
+        reportJobService.run(job);
+
+        List<Document> updates = jobUpdates();
+        assertEquals("RUNNING", updates.get(0).get("status").toString());
+        Document done = updates.get(updates.size() - 1);
+        assertEquals("DONE", done.get("status").toString());
+        assertEquals(artifactId.toHexString(), done.get("artifact_id"));
+        assertEquals("text/csv", done.get("content_type"));
+        assertEquals(44L, done.get("size_bytes"));
+        assertEquals(ReportJob.Status.RUNNING, jobQueries().get(1).get("status"));
+    }
+
+    @Test
+    void jobFailedAsStaleWhileRunningIsNotMarkedDoneAndItsArtifactIsDeleted() {
+        ReportJob job = job(ReportJob.Type.REPORT_CSV);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ReportJob.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null), UpdateResult.acknowledged(0, 0L, null));
+        Report report = new Report();
+        when(reportService.generateReport(eq("user1"), any(), any(), any(), isNull())).thenReturn(report);
+        when(reportService.generateCsvReport(report)).thenReturn("Total Income\n".getBytes());
+        ObjectId artifactId = new ObjectId();
+        when(artifacts.uploadFromStream(anyString(), any(InputStream.class), any(GridFSUploadOptions.class)))
+                .thenReturn(artifactId);
+
+        reportJobService.run(job);
+
+        verify(artifacts).delete(artifactId);
+        // Only the start and the DONE attempt; no FAILED overwrite either
+        assertEquals(2, jobUpdates().size());
+    }
+
+    @Test
+    void jobThatIsNoLongerQueuedIsNotRun() {
+        jobUpdatesMatch(0);
+
+        reportJobService.run(job(ReportJob.Type.REPORT));
+
+        verifyNoInteractions(reportService, artifacts);
+        assertEquals(ReportJob.Status.QUEUED, jobQueries().get(0).get("status"));
+    }
+
+    @Test
+    void runningJobSendsItsOwnHeartbeat() throws Exception {
+        // 3 s stale window: the worker beats every second while it is busy
+        ReportJobService service = new ReportJobService(mongoTemplate, reportService, new ObjectMapper(), artifacts,
+                1, 1, 2, Duration.ofHours(24), Duration.ofSeconds(3));
+        CountDownLatch beat = new CountDownLatch(1);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ReportJob.class))).thenAnswer(invocation -> {
+            Document set = invocation.<Update>getArgument(1).getUpdateObject().get("$set", Document.class);
+            if (set.containsKey("heartbeat_at") && !set.containsKey("status")) {
+                beat.countDown();
+            }
+            return UpdateResult.acknowledged(1, 1L, null);
+        });
+        when(reportService.generateReport(eq("user1"), any(), any(), any(), isNull())).thenAnswer(invocation -> {
+            assertTrue(beat.await(5, TimeUnit.SECONDS), "no heartbeat while the report was generated");
+            return new Report();
+        });
+        when(artifacts.uploadFromStream(anyString(), any(InputStream.class), any(GridFSUploadOptions.class)))
+                .thenReturn(new ObjectId());
+
+        try {
+            service.run(job(ReportJob.Type.REPORT));
+        } finally {
+            service.shutdown();
+        }
+
+        assertTrue(jobUpdates().stream().anyMatch(set -> ReportJob.Status.DONE.equals(set.get("status"))));
+    }
+
+    @Test
+    void failedExportAbortsTheUploadAndMarksTheJobFailed() throws IOException {
+        ReportJob job = job(ReportJob.Type.EXPORT);
+        jobUpdatesMatch(1);
+        GridFSUploadStream upload = mock(GridFSUploadStream.class);
+        when(artifacts.openUploadStream(anyString(), any(GridFSUploadOptions.class))).thenReturn(upload);
+        doThrow(new IOException("cursor closed")).when(reportService)
+                .writeTransactionsCsv(eq("user1"), any(), any(), any(OutputStream.class), any(LongConsumer.class));
+
+        reportJobService.run(job);
+
+        verify(upload).abort();
+        verify(upload, never()).close();
+        Document failed = jobUpdates().get(jobUpdates().size() - 1);
+        assertEquals("FAILED", failed.get("status").toString());
+        assertNotNull(failed.get("expires_at"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void maintenanceFailsStaleJobsAndDeletesExpiredArtifacts() {
+        ObjectId expiredId = new ObjectId();
+        GridFSFile expired = new GridFSFile(new BsonObjectId(expiredId), "transactions.csv", 10, 255 * 1024,
+                new Date(), new Document("expires_at", new Date(0)));
+        GridFSFindIterable found = mock(GridFSFindIterable.class);
+        MongoCursor<GridFSFile> cursor = mock(MongoCursor.class);
+        when(artifacts.find(any(Bson.class))).thenReturn(found);
+        when(found.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn(expired);
+
+        reportJobService.maintain();
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(any(Query.class), update.capture(), eq(ReportJob.class));
+        assertEquals("FAILED", update.getValue().getUpdateObject().get("$set", Document.class).get("status").toString());
+        verify(artifacts).delete(expiredId);
+    }
+
+    @Test
+    void artifactsAlreadyDeletedByAnotherNodeDoNotStopTheSweep() {
+        ObjectId goneId = new ObjectId();
+        ObjectId expiredId = new ObjectId();
+        GridFSFile gone = new GridFSFile(new BsonObjectId(goneId), "transactions.csv", 10, 255 * 1024,
+                new Date(), new Document("expires_at", new Date(0)));
+        GridFSFile expired = new GridFSFile(new BsonObjectId(expiredId), "report.json", 10, 255 * 1024,
+                new Date(), new Document("expires_at", new Date(0)));
+        GridFSFindIterable found = mock(GridFSFindIterable.class);
+        MongoCursor<GridFSFile> cursor = mock(MongoCursor.class);
+        when(artifacts.find(any(Bson.class))).thenReturn(found);
+        when(found.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, true, false);
+        when(cursor.next()).thenReturn(gone, expired);
+        doThrow(new MongoGridFSException("No file found with the id: " + goneId)).when(artifacts).delete(goneId);
+
+        assertDoesNotThrow(() -> reportJobService.maintain());
+
+        verify(artifacts).delete(goneId);
+        verify(artifacts).delete(expiredId);
+    }
+
+    private ReportJob job(ReportJob.Type type) {
+        ReportJob job = new ReportJob("user1", type, LocalDateTime.now().minusYears(3), LocalDateTime.now(), null, false);
+        job.setId("job1");
+        return job;
+    }
+
+    private void jobUpdatesMatch(long matched) {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ReportJob.class)))
+                .thenReturn(UpdateResult.acknowledged(matched, matched, null));
+    }
+
+    // Filters of every update made to the job, in order
+    private List<Document> jobQueries() {
+        ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, atLeastOnce()).updateFirst(captor.capture(), any(Update.class), eq(ReportJob.class));
+        return captor.getAllValues().stream().map(Query::getQueryObject).toList();
+    }
+
+    // $set documents of every update made to the job, in order
+    private List<Document> jobUpdates() {
+        ArgumentCaptor<Update> captor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atLeastOnce()).updateFirst(any(Query.class), captor.capture(), eq(ReportJob.class));
+        return captor.getAllValues().stream()
+                .map(update -> update.getUpdateObject().get("$set", Document.class))
+                .toList();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.Report;
+import com.example.finance_tracker.Entity.Transaction;
+import com.example.finance_tracker.Repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Compares the aggregation report engine with the in-JVM one against a local MongoDB.
+// Run with: ./mvnw test -Dtest=ReportServiceBenchmarkTest -Dbenchmark=true [-Dbenchmark.rows=50000]
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ReportServiceBenchmarkTest {
+
+    private static final int ITERATIONS = 20;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private String userId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @BeforeEach
+    void seed() {
+        userId = "bench-" + UUID.randomUUID();
+        end = LocalDateTime.now();
+        start = end.minusYears(1);
+
+        int rows = Integer.getInteger("benchmark.rows", 20000);
+        Random random = new Random(42);
+        Transaction.TransactionCategory[] categories = Transaction.TransactionCategory.values();
+        List<Transaction> batch = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Transaction t = new Transaction(
+                    userId,
+                    random.nextInt(4) == 0 ? Transaction.TransactionType.INCOME : Transaction.TransactionType.EXPENSE,
+                    categories[random.nextInt(categories.length)],
+                    start.plusMinutes(random.nextInt(525_000)),
+                    BigDecimal.valueOf(random.nextInt(100_000), 2),
+                    "benchmark row " + i);
+            t.setRecurring(false);
+            batch.add(t);
+        }
+        transactionRepository.saveAll(batch);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionRepository.deleteAll(transactionRepository.findByUserId(userId));
+    }
+
+    @Test
+    void aggregationMatchesInMemoryAndReportsLatency() {
+        Report inMemory = reportService.generateReportInMemory(userId, start, end, null, null);
+        Report aggregated = reportService.generateReportWithAggregation(userId, start, end, null, null);
+
+        assertEquals(0, inMemory.getTotalIncome().compareTo(aggregated.getTotalIncome()));
+        assertEquals(0, inMemory.getTotalExpenses().compareTo(aggregated.getTotalExpenses()));
+        assertEquals(inMemory.getCategoryTotals().keySet(), aggregated.getCategoryTotals().keySet());
+        inMemory.getCategoryTotals().forEach((category, total) ->
+                assertEquals(0, total.compareTo(aggregated.getCategoryTotals().get(category))));
+
+        long inMemoryNanos = time(() -> reportService.generateReportInMemory(userId, start, end, null, null));
+        long aggregationNanos = time(() -> reportService.generateReportWithAggregation(userId, start, end, null, null));
+
+        System.out.printf("Report engines, avg of %d runs: in-memory %.2f ms, aggregation %.2f ms%n",
+                ITERATIONS, inMemoryNanos / 1e6, aggregationNanos / 1e6);
+    }
+
+    private long time(Runnable run) {
+        run.run(); // warm up
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            run.run();
+        }
+        return (System.nanoTime() - startNanos) / ITERATIONS;
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.Report;
+import com.example.finance_tracker.Entity.ReportSeries;
+import com.example.finance_tracker.Entity.Transaction;
+import com.example.finance_tracker.Repository.TransactionRepository;
+import com.example.finance_tracker.Utility.Money;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportServiceTest {
+
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionRollupService transactionRollupService;
+
+    @Mock
+    private ReportCache reportCache;
+
+    @InjectMocks
+    private ReportService reportService;
+
+    @Test
+    void monthlySeriesCoversWholeMonthsInTheUsersZoneAndFillsGaps() {
+        Instant from = Instant.parse("2025-12-31T23:00:00Z"); // Jan 1st, Berlin midnight (CET)
+        Instant to = Instant.parse("2026-03-31T22:00:00Z");   // Apr 1st, Berlin midnight (CEST)
+        when(transactionRepository.aggregateSeries(eq("user1"), eq(from), eq(to), eq("month"), eq("Europe/Berlin"), anyList()))
+                .thenReturn(List.of(
+                        row("2026-01-31T23:00:00Z", "EXPENSE", "FOOD", "12.50"),
+                        row("2026-01-31T23:00:00Z", "EXPENSE", "TRANSPORT", "7.25"),
+                        row("2026-01-31T23:00:00Z", "INCOME", "SALARY", "2500")));
+
+        ReportSeries series = reportService.generateSeries("user1", ReportSeries.Granularity.MONTH,
+                LocalDate.of(2026, 1, 15), LocalDate.of(2026, 3, 10), BERLIN, null, false);
+
+        assertEquals("Europe/Berlin", series.getTimeZone());
+        assertNull(series.getPrevious());
+        assertEquals(List.of(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 2, 1), LocalDate.of(2026, 3, 1)),
+                series.getBuckets().stream().map(ReportSeries.Bucket::getStart).toList());
+
+        ReportSeries.Bucket january = series.getBuckets().get(0);
+        assertEquals(Money.ZERO, january.getTotalExpenses());
+        assertTrue(january.getCategoryTotals().isEmpty());
+
+        ReportSeries.Bucket february = series.getBuckets().get(1);
+        assertEquals(Money.of("2500"), february.getTotalIncome());
+        assertEquals(Money.of("19.75"), february.getTotalExpenses());
+        assertEquals(Map.of(Transaction.TransactionCategory.FOOD, Money.of("12.50"),
+                Transaction.TransactionCategory.TRANSPORT, Money.of("7.25")), february.getCategoryTotals());
+    }
+
+    @Test
+    void weeklyComparisonReadsThePreviousPeriodInTheSameQuery() {
+        // Wednesday to Sunday is one Monday-based week; the previous week starts on the 5th
+        when(transactionRepository.aggregateSeries(eq("user1"),
+                eq(Instant.parse("2026-10-05T00:00:00Z")), eq(Instant.parse("2026-10-19T00:00:00Z")),
+                eq("week"), eq("+00:00"), eq(List.of("FOOD"))))
+                .thenReturn(List.of(
+                        row("2026-10-05T00:00:00Z", "EXPENSE", "FOOD", "30"),
+                        row("2026-10-12T00:00:00Z", "EXPENSE", "FOOD", "45.10")));
+
+        ReportSeries series = reportService.generateSeries("user1", ReportSeries.Granularity.WEEK,
+                LocalDate.of(2026, 10, 14), LocalDate.of(2026, 10, 18), ZoneOffset.UTC,
+                List.of(Transaction.TransactionCategory.FOOD), true);
+
+        assertEquals(1, series.getBuckets().size());
+        assertEquals(LocalDate.of(2026, 10, 12), series.getBuckets().get(0).getStart());
+        assertEquals(Money.of("45.10"), series.getBuckets().get(0).getTotalExpenses());
+
+        assertEquals(1, series.getPrevious().size());
+        assertEquals(LocalDate.of(2026, 10, 5), series.getPrevious().get(0).getStart());
+        assertEquals(Money.of("30"), series.getPrevious().get(0).getTotalExpenses());
+        verify(transactionRepository, times(1)).aggregateSeries(any(), any(), any(), any(), any(), anyList());
+    }
+
+    @Test
+    void seriesSkipsRowsWithUnknownTypesOrCategories() {
+        when(transactionRepository.aggregateSeries(eq("user1"), any(), any(), eq("day"), eq("+00:00"), anyList()))
+                .thenReturn(List.of(
+                        row("2026-10-14T00:00:00Z", "EXPENSE", "FOOD", "12.50"),
+                        row("2026-10-14T00:00:00Z", "EXPENSE", "CRYPTO", "99"),
+                        row("2026-10-14T00:00:00Z", "TRANSFER", "FOOD", "40")));
+
+        ReportSeries series = reportService.generateSeries("user1", ReportSeries.Granularity.DAY,
+                LocalDate.of(2026, 10, 14), LocalDate.of(2026, 10, 14), ZoneOffset.UTC, null, false);
+
+        ReportSeries.Bucket day = series.getBuckets().get(0);
+        assertEquals(Money.of("12.50"), day.getTotalExpenses());
+        assertEquals(Map.of(Transaction.TransactionCategory.FOOD, Money.of("12.50")), day.getCategoryTotals());
+    }
+
+    @Test
+    void rejectsReversedAndOversizedRanges() {
+        assertThrows(IllegalArgumentException.class, () -> reportService.generateSeries("user1",
+                ReportSeries.Granularity.DAY, LocalDate.of(2026, 2, 1), LocalDate.of(2026, 1, 1), BERLIN, null, false));
+        assertThrows(IllegalArgumentException.class, () -> reportService.generateSeries("user1",
+                ReportSeries.Granularity.DAY, LocalDate.of(2020, 1, 1), LocalDate.of(2026, 1, 1), BERLIN, null, false));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void rollupReportReadsOnlyTheLeadingPartialDayFromTransactions() {
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 10, 0);
+        LocalDateTime end = LocalDate.of(2026, 1, 5).atTime(LocalTime.MAX);
+        when(transactionRollupService.aggregateReport(eq("user1"), eq(LocalDate.of(2026, 1, 2)), eq(LocalDate.of(2026, 1, 5)), anyList()))
+                .thenReturn(report("100.00", "40.00"));
+        when(transactionRepository.aggregateReport(eq("user1"), eq(start), eq(LocalDate.of(2026, 1, 2).atStartOfDay().minusNanos(1)),
+                anyList(), eq(List.of())))
+                .thenReturn(report("0.00", "5.50"));
+
+        Report report = reportService.generateReportFromRollups("user1", start, end, null, null);
+
+        assertEquals(Money.of("100.00"), report.getTotalIncome());
+        assertEquals(Money.of("45.50"), report.getTotalExpenses());
+        assertEquals(Money.of("45.50"), report.getCategoryTotals().get(Transaction.TransactionCategory.FOOD));
+        // The last day ends at 23:59:59.999999999 and is read from the rollups as a whole
+        verify(transactionRepository, times(1)).aggregateReport(any(), any(), any(), anyList(), anyList());
+    }
+
+    @Test
+    void rollupReportReadsOnlyTheTrailingPartialDayFromTransactions() {
+        LocalDateTime start = LocalDate.of(2026, 1, 1).atStartOfDay();
+        LocalDateTime end = LocalDateTime.of(2026, 1, 5, 12, 0);
+        when(transactionRollupService.aggregateReport(eq("user1"), eq(LocalDate.of(2026, 1, 1)), eq(LocalDate.of(2026, 1, 4)), anyList()))
+                .thenReturn(report("100.00", "40.00"));
+        when(transactionRepository.aggregateReport(eq("user1"), eq(LocalDate.of(2026, 1, 5).atStartOfDay()), eq(end),
+                anyList(), eq(List.of())))
+                .thenReturn(report("20.00", "0.00"));
+
+        Report report = reportService.generateReportFromRollups("user1", start, end, null, null);
+
+        assertEquals(Money.of("120.00"), report.getTotalIncome());
+        assertEquals(Money.of("40.00"), report.getTotalExpenses());
+        verify(transactionRepository, times(1)).aggregateReport(any(), any(), any(), anyList(), anyList());
+    }
+
+    @Test
+    void rollupReportWithoutAWholeDayOrWithTagsUsesTheTransactions() {
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 10, 0);
+        LocalDateTime nextMorning = LocalDateTime.of(2026, 1, 2, 9, 0);
+        when(transactionRepository.aggregateReport(any(), any(), any(), anyList(), anyList())).thenReturn(report("1.00", "2.00"));
+
+        reportService.generateReportFromRollups("user1", start, nextMorning, null, null);
+        reportService.generateReportFromRollups("user1", start, start.plusDays(10), null, List.of("holiday"));
+
+        verify(transactionRepository).aggregateReport(eq("user1"), eq(start), eq(nextMorning), anyList(), eq(List.of()));
+        verify(transactionRepository).aggregateReport(eq("user1"), eq(start), eq(start.plusDays(10)), anyList(), eq(List.of("holiday")));
+        verifyNoInteractions(transactionRollupService);
+    }
+
+    @Test
+    void exportReadsTheRangeInclusivelyAndQuotesFields() throws IOException {
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2026, 1, 31, 23, 59);
+        Transaction transaction = new Transaction("user1", Transaction.TransactionType.EXPENSE, Transaction.TransactionCategory.FOOD,
+                start, new BigDecimal("12.50"), "Dinner, \"fancy\"\nplace");
+        transaction.setTransactionId("t1");
+        transaction.setTags(List.of("friends", "weekend"));
+        when(transactionRepository.streamByUserIdAndTransactionDateInRange("user1", start, end)).thenReturn(Stream.of(transaction));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Long> progress = new ArrayList<>();
+
+        reportService.writeTransactionsCsv("user1", start, end, out, progress::add);
+
+        assertEquals("Transaction ID,Date,Type,Category,Amount,Description,Tags,Recurring,Recurrence Pattern\n" +
+                        "t1,2026-01-01T00:00,EXPENSE,FOOD,12.50,\"Dinner, \"\"fancy\"\"\nplace\",friends;weekend,,\n",
+                out.toString(StandardCharsets.UTF_8));
+        assertEquals(List.of(1L), progress);
+        verify(transactionRepository, never()).streamByUserIdOrderByTransactionDateAsc(any());
+    }
+
+    @Test
+    void exportWithoutRangeStreamsEverythingAndRejectsAHalfRange() throws IOException {
+        when(transactionRepository.streamByUserIdOrderByTransactionDateAsc("user1")).thenReturn(Stream.empty());
+
+        reportService.writeTransactionsCsv("user1", null, null, new ByteArrayOutputStream());
+
+        verify(transactionRepository).streamByUserIdOrderByTransactionDateAsc("user1");
+        assertThrows(IllegalArgumentException.class, () -> reportService.writeTransactionsCsv("user1",
+                LocalDateTime.of(2026, 1, 1, 0, 0), null, new ByteArrayOutputStream()));
+        assertThrows(IllegalArgumentException.class, () -> reportService.writeTransactionsCsv("user1",
+                null, LocalDateTime.of(2026, 1, 1, 0, 0), new ByteArrayOutputStream()));
+        verifyNoMoreInteractions(transactionRepository);
+    }
+
+    @Test
+    void csvFieldQuotesOnlyWhenNeeded() {
+        assertEquals("", ReportService.csvField(null));
+        assertEquals("Groceries", ReportService.csvField("Groceries"));
+        assertEquals("\"a,b\"", ReportService.csvField("a,b"));
+        assertEquals("\"say \"\"hi\"\"\"", ReportService.csvField("say \"hi\""));
+        assertEquals("\"line\r\nbreak\"", ReportService.csvField("line\r\nbreak"));
+        assertEquals("true", ReportService.csvField(Boolean.TRUE));
+    }
+
+    private static Report report(String income, String foodExpenses) {
+        Map<Transaction.TransactionCategory, Money> categories = new EnumMap<>(Transaction.TransactionCategory.class);
+        categories.put(Transaction.TransactionCategory.FOOD, Money.of(foodExpenses));
+        Report report = new Report();
+        report.setTotalIncome(Money.of(income));
+        report.setTotalExpenses(Money.of(foodExpenses));
+        report.setCategoryTotals(categories);
+        return report;
+    }
+
+    private static Document row(String bucket, String type, String category, String total) {
+        return new Document("_id", new Document("bucket", Date.from(Instant.parse(bucket)))
+                .append("transaction_type", type)
+                .append("transaction_category", category))
+                .append("total", new Decimal128(new BigDecimal(total)));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.EmailMessage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SendGridEmailServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private StubSendGridServer stub;
+    private SendGridEmailService sendGridEmailService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new StubSendGridServer();
+        sendGridEmailService = new SendGridEmailService("test-key", "no-reply@financetracker.com",
+                stub.host(), true, 4, 1000, 1000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        sendGridEmailService.shutdown();
+        stub.close();
+    }
+
+    @Test
+    void sendsABatchAsOneRequestWithOnePersonalizationPerRecipient() throws Exception {
+        List<EmailMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            messages.add(new EmailMessage("user" + i + "@example.com", "Subject " + i, "Body " + i));
+        }
+
+        SendGridEmailService.SendResult result = sendGridEmailService.send(messages);
+
+        assertEquals(SendGridEmailService.Outcome.SENT, result.outcome());
+        assertEquals(1, stub.requests().size());
+        JsonNode personalizations = objectMapper.readTree(stub.requests().get(0)).get("personalizations");
+        assertEquals(250, personalizations.size());
+        JsonNode first = personalizations.get(0);
+        assertEquals("user0@example.com", first.get("to").get(0).get("email").asText());
+        assertEquals("Subject 0", first.get("subject").asText());
+        assertEquals("Body 0", first.get("substitutions").get("%message_body%").asText());
+    }
+
+    @Test
+    void sendsASingleMessageToItsOwnRecipient() throws Exception {
+        sendGridEmailService.send(List.of(new EmailMessage("alice@example.com", "Hello", "Body")));
+
+        JsonNode mail = objectMapper.readTree(stub.requests().get(0));
+        assertEquals("alice@example.com", mail.get("personalizations").get(0).get("to").get(0).get("email").asText());
+        assertEquals("Hello", mail.get("subject").asText());
+        assertEquals("Body", mail.get("content").get(0).get("value").asText());
+    }
+
+    @Test
+    void mapsStatusCodesToOutcomes() {
+        stub.respondWith(429, 500, 400);
+        List<EmailMessage> message = List.of(new EmailMessage("alice@example.com", "Hello", "Body"));
+
+        assertEquals(SendGridEmailService.Outcome.RETRY, sendGridEmailService.send(message).outcome());
+        assertEquals(SendGridEmailService.Outcome.RETRY, sendGridEmailService.send(message).outcome());
+        assertEquals(SendGridEmailService.Outcome.REJECTED, sendGridEmailService.send(message).outcome());
+        assertEquals(SendGridEmailService.Outcome.SENT, sendGridEmailService.send(message).outcome());
+    }
+
+    @Test
+    void rejectsOversizedRequests() {
+        List<EmailMessage> messages = new ArrayList<>();
+        for (int i = 0; i <= SendGridEmailService.MAX_PERSONALIZATIONS; i++) {
+            messages.add(new EmailMessage("user" + i + "@example.com", "Subject", "Body"));
+        }
+        assertThrows(IllegalArgumentException.class, () -> sendGridEmailService.send(messages));
+        assertTrue(stub.requests().isEmpty());
+    }
+
+    @Test
+    void longOrSoloMessagesAreNotBatchable() {
+        EmailMessage solo = new EmailMessage("alice@example.com", "Hello", "Body");
+        solo.setSolo(true);
+
+        assertTrue(SendGridEmailService.isBatchable(new EmailMessage("alice@example.com", "Hello", "Body")));
+        assertFalse(SendGridEmailService.isBatchable(solo));
+        assertFalse(SendGridEmailService.isBatchable(new EmailMessage("alice@example.com", "Hello", "x".repeat(10_000))));
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.SpendingStats;
+import com.example.finance_tracker.Entity.Transaction;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SpendingStatsServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @InjectMocks
+    private SpendingStatsService spendingStatsService;
+
+    @Test
+    void testIsOutlier() {
+        // 10 expenses around 100 with a standard deviation of 10
+        SpendingStats stats = new SpendingStats("user1", Transaction.TransactionCategory.FOOD, 10, 100, 900);
+
+        assertFalse(spendingStatsService.isOutlier(stats, 120));
+        assertTrue(spendingStatsService.isOutlier(stats, 140));
+        assertFalse(spendingStatsService.isOutlier(null, 1_000_000));
+    }
+
+    @Test
+    void testIsOutlier_NotEnoughHistoryOrFlatHistory() {
+        SpendingStats young = new SpendingStats("user1", Transaction.TransactionCategory.FOOD, 2, 100, 50);
+        assertFalse(spendingStatsService.isOutlier(young, 10_000));
+
+        SpendingStats flat = new SpendingStats("user1", Transaction.TransactionCategory.FOOD, 10, 100, 0);
+        assertFalse(spendingStatsService.isOutlier(flat, 120));
+        assertTrue(spendingStatsService.isOutlier(flat, 200));
+    }
+
+    @Test
+    void testRecordAndCheck_AlertsOnOutlier() {
+        SpendingStats before = new SpendingStats("user1", Transaction.TransactionCategory.FOOD, 10, 100, 900);
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+                eq(SpendingStats.class))).thenReturn(before);
+
+        spendingStatsService.recordAndCheck(expense(new BigDecimal("500")));
+
+        verify(notificationService, times(1)).sendAlert(argThat(alert -> alert.userId().equals("user1")
+                && alert.subject().equals("Unusual Spending Alert")));
+    }
+
+    @Test
+    void testRecordAndCheck_IgnoresIncome() {
+        Transaction income = expense(new BigDecimal("500"));
+        income.setTransactionType(Transaction.TransactionType.INCOME);
+
+        spendingStatsService.recordAndCheck(income);
+
+        verifyNoInteractions(mongoTemplate, notificationService);
+    }
+
+    @Test
+    void testRebuildForUser_SwapsOnlyUnchangedRowsAndRetriesTheOthers() {
+        SpendingStats food = new SpendingStats("user1", Transaction.TransactionCategory.FOOD, 3, 10, 0);
+        food.setWrites(7);
+        when(mongoTemplate.find(any(Query.class), eq(SpendingStats.class))).thenReturn(List.of(food));
+        // FOOD: 4 expenses with mean 20 and population std 5; an unknown category from a newer version is skipped
+        Document foodRow = new Document("_id", "FOOD").append("count", 4).append("mean", 20.0).append("std", 5.0);
+        Document unknownRow = new Document("_id", "PETS").append("count", 1).append("mean", 9.0).append("std", 0.0);
+        Document foodAgain = new Document("_id", "FOOD").append("count", 5).append("mean", 18.0).append("std", 4.0);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("transactions"), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(foodRow, unknownRow), new Document()),
+                        new AggregationResults<>(List.of(foodAgain), new Document()));
+        // An expense was merged into FOOD after the row was read, so the first swap misses
+        SpendingStats foodNow = new SpendingStats("user1", Transaction.TransactionCategory.FOOD, 5, 18, 80);
+        foodNow.setWrites(8);
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(SpendingStats.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null), UpdateResult.acknowledged(1, 1L, null));
+        when(mongoTemplate.findOne(any(Query.class), eq(SpendingStats.class))).thenReturn(foodNow);
+
+        spendingStatsService.rebuildForUser("user1");
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateFirst(query.capture(), update.capture(), eq(SpendingStats.class));
+        assertEquals(7L, query.getAllValues().get(0).getQueryObject().get("writes"));
+        assertEquals(8L, query.getAllValues().get(1).getQueryObject().get("writes"));
+        Document set = update.getAllValues().get(1).getUpdateObject().get("$set", Document.class);
+        assertEquals(5L, set.get("count"));
+        assertEquals(80.0, (double) set.get("m2"), 1e-9);
+        verify(mongoTemplate, never()).insert(any(SpendingStats.class));
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(SpendingStats.class));
+    }
+
+    private Transaction expense(BigDecimal amount) {
+        return new Transaction("user1", Transaction.TransactionType.EXPENSE, Transaction.TransactionCategory.FOOD,
+                LocalDateTime.now(), amount, "Dinner");
+    }
+}
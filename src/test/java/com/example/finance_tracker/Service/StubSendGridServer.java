@@ -0,0 +1,59 @@
+package com.example.finance_tracker.Service;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+// Local stand-in for the SendGrid API: records every mail/send body and answers with queued status codes
+// (202 once the queue is empty). Point SendGridEmailService at it with host "localhost:<port>" and use-http=true.
+class StubSendGridServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+
+    StubSendGridServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/v3/mail/send", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                requests.add(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            Integer status = statuses.poll();
+            byte[] response = status == null || status < 300 ? new byte[0]
+                    : "{\"errors\":[{\"message\":\"stub error\"}]}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status == null ? 202 : status, response.length == 0 ? -1 : response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+    }
+
+    String host() {
+        return "localhost:" + server.getAddress().getPort();
+    }
+
+    // Answer the next requests with these status codes, in order
+    void respondWith(Integer... codes) {
+        statuses.addAll(List.of(codes));
+    }
+
+    List<String> requests() {
+        return requests;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.Transaction;
+import com.example.finance_tracker.Entity.TransactionRollup;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TransactionRollupServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 14);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private TransactionRollupService transactionRollupService;
+
+    @BeforeEach
+    void setUp() {
+        transactionRollupService = new TransactionRollupService(mongoTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRollupService.shutdown();
+    }
+
+    @Test
+    void recordIncrementsTheTotalAndTheWriteCounter() {
+        transactionRollupService.record(expense("12.50", DAY.atTime(9, 30)));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(any(Query.class), update.capture(), eq(TransactionRollup.class));
+        Document inc = update.getValue().getUpdateObject().get("$inc", Document.class);
+        assertEquals(new Decimal128(new BigDecimal("12.50")), inc.get("total"));
+        assertEquals(1L, inc.get("count"));
+        assertEquals(1, inc.get("writes"));
+    }
+
+    @Test
+    void rebuildSwapsInNewTotalsOnlyWhileTheRowIsUnchanged() {
+        rows(row("50.00", 1, 3));
+        transactions(expense("30.00", DAY.atTime(8, 0)), expense("50.00", DAY.atTime(20, 0)));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(TransactionRollup.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        transactionRollupService.rebuildForUser("user1");
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(TransactionRollup.class));
+        assertEquals(3L, query.getValue().getQueryObject().get("writes"));
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(new Decimal128(new BigDecimal("80.00")), set.get("total"));
+        assertEquals(2L, set.get("count"));
+        // The rows are never removed wholesale
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(TransactionRollup.class));
+    }
+
+    @Test
+    void rebuildRecomputesADayThatWasWrittenMeanwhile() {
+        rows(row("50.00", 1, 3));
+        transactions(expense("30.00", DAY.atTime(8, 0)));
+        // A new expense of 20.00 was recorded after the row was read
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(TransactionRollup.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null), UpdateResult.acknowledged(1, 1L, null));
+        when(mongoTemplate.findOne(any(Query.class), eq(TransactionRollup.class))).thenReturn(row("70.00", 2, 4));
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class)))
+                .thenReturn(List.of(expense("30.00", DAY.atTime(8, 0)), expense("20.00", DAY.atTime(12, 0))));
+
+        transactionRollupService.rebuildForUser("user1");
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateFirst(query.capture(), update.capture(), eq(TransactionRollup.class));
+        assertEquals(4L, query.getAllValues().get(1).getQueryObject().get("writes"));
+        Document set = update.getAllValues().get(1).getUpdateObject().get("$set", Document.class);
+        assertEquals(new Decimal128(new BigDecimal("50.00")), set.get("total"));
+        assertEquals(2L, set.get("count"));
+    }
+
+    @Test
+    void rebuildRemovesEmptiedRowsAndInsertsMissingOnes() {
+        TransactionRollup stale = row("50.00", 1, 0);
+        stale.setDay(DAY.minusDays(1));
+        rows(stale);
+        transactions(expense("30.00", DAY.atTime(8, 0)));
+        when(mongoTemplate.remove(any(Query.class), eq(TransactionRollup.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        transactionRollupService.rebuildForUser("user1");
+
+        // Rows from before the write counter existed match on a missing counter too
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removed.capture(), eq(TransactionRollup.class));
+        assertNotNull(removed.getValue().getQueryObject().get("writes", Document.class).get("$in"));
+        ArgumentCaptor<TransactionRollup> inserted = ArgumentCaptor.forClass(TransactionRollup.class);
+        verify(mongoTemplate).insert(inserted.capture());
+        assertEquals(DAY, inserted.getValue().getDay());
+        assertEquals(0, new BigDecimal("30.00").compareTo(inserted.getValue().getTotal()));
+    }
+
+    @Test
+    void insertLosingToAConcurrentUpsertIsRetriedAsASwap() {
+        rows();
+        transactions(expense("30.00", DAY.atTime(8, 0)));
+        when(mongoTemplate.insert(any(TransactionRollup.class))).thenThrow(new DuplicateKeyException("rollup_key"));
+        when(mongoTemplate.findOne(any(Query.class), eq(TransactionRollup.class))).thenReturn(row("30.00", 1, 1));
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class))).thenReturn(List.of(expense("30.00", DAY.atTime(8, 0))));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(TransactionRollup.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 0L, null));
+
+        transactionRollupService.rebuildForUser("user1");
+
+        verify(mongoTemplate).insert(any(TransactionRollup.class));
+        verify(mongoTemplate).updateFirst(any(Query.class), any(Update.class), eq(TransactionRollup.class));
+    }
+
+    @Test
+    void onlyOneBackgroundRebuildRunsAtATime() throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(mongoTemplate.findDistinct(any(Query.class), eq("user_id"), eq(Transaction.class), eq(String.class)))
+                .thenAnswer(invocation -> {
+                    running.countDown();
+                    release.await();
+                    return List.of();
+                });
+
+        assertTrue(transactionRollupService.startRebuildAll());
+        running.await();
+        assertFalse(transactionRollupService.startRebuildAll());
+
+        release.countDown();
+        boolean restarted = false;
+        for (int i = 0; i < 100 && !restarted; i++) {
+            Thread.sleep(20);
+            restarted = transactionRollupService.startRebuildAll();
+        }
+        assertTrue(restarted);
+    }
+
+    private void rows(TransactionRollup... rows) {
+        when(mongoTemplate.find(any(Query.class), eq(TransactionRollup.class))).thenReturn(List.of(rows));
+    }
+
+    private void transactions(Transaction... transactions) {
+        when(mongoTemplate.stream(any(Query.class), eq(Transaction.class))).thenReturn(Stream.of(transactions));
+    }
+
+    private TransactionRollup row(String total, long count, long writes) {
+        TransactionRollup row = new TransactionRollup("user1", DAY, Transaction.TransactionCategory.FOOD,
+                Transaction.TransactionType.EXPENSE, false, new BigDecimal(total), count);
+        row.setId(new ObjectId().toHexString());
+        row.setWrites(writes);
+        return row;
+    }
+
+    private Transaction expense(String amount, LocalDateTime date) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(new ObjectId().toHexString());
+        transaction.setUserId("user1");
+        transaction.setTransactionType(Transaction.TransactionType.EXPENSE);
+        transaction.setTransactionCategory(Transaction.TransactionCategory.FOOD);
+        transaction.setTransactionDate(date);
+        transaction.setTransactionAmount(new BigDecimal(amount));
+        return transaction;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.finance_tracker.Service;
 
 import com.example.finance_tracker.Entity.Transaction;
+import com.example.finance_tracker.Entity.TransactionBatchResult;
+import com.example.finance_tracker.Entity.TransactionPage;
 import com.example.finance_tracker.Entity.Budget;
 import com.example.finance_tracker.Entity.Goal.Goal;
 import com.example.finance_tracker.Entity.Goal.GoalStatus;
@@ -15,10 +17,12 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 class TransactionServiceTest {
@@ -27,10 +31,16 @@ class TransactionServiceTest {
     private TransactionRepository transactionRepository;
 
     @Mock
-    private BudgetService budgetService;
+    private OutboxService outboxService;
 
     @Mock
-    private GoalService goalService;
+    private TransactionRollupService transactionRollupService;
+
+    @Mock
+    private ReportCache reportCache;
+
+    @Mock
+    private SpendingStatsService spendingStatsService;
 
     @InjectMocks
     private TransactionService transactionService;
@@ -50,8 +60,9 @@ class TransactionServiceTest {
         transaction.setTransactionDate(LocalDateTime.now());
         transaction.setTransactionAmount(BigDecimal.valueOf(50.00));
         transaction.setTransactionDescription("Lunch");
+        transaction.setTransactionId("someone-elses-id");
 
-        when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
+        when(transactionRepository.insert(any(Transaction.class))).thenReturn(transaction);
 
         // Act
         Transaction createdTransaction = transactionService.createTransaction(transaction);
@@ -60,8 +71,66 @@ class TransactionServiceTest {
         assertNotNull(createdTransaction);
         assertEquals("user123", createdTransaction.getUserId());
         assertEquals(Transaction.TransactionType.EXPENSE, createdTransaction.getTransactionType());
-        verify(transactionRepository, times(1)).save(transaction);
-        verify(budgetService, times(1)).getBudgetsByUserId("user123");
+        verify(transactionRepository, times(1)).insert(transaction);
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        // The client id is dropped before the (mocked) outbox would assign a fresh one
+        assertNull(createdTransaction.getTransactionId());
+        verify(outboxService, times(1)).enqueue(transaction);
+        verify(transactionRollupService, times(1)).record(transaction);
+        verify(reportCache, times(1)).evictUser("user123");
+        verify(spendingStatsService, times(1)).recordAndCheck(transaction);
+    }
+
+    @Test
+    void testCreateTransactions_BatchInsertsOnceAndReportsErrors() {
+        // Arrange
+        Transaction lunch = new Transaction("user123", Transaction.TransactionType.EXPENSE, Transaction.TransactionCategory.FOOD,
+                LocalDateTime.now(), BigDecimal.valueOf(20.00), "Lunch");
+        Transaction dinner = new Transaction("user123", Transaction.TransactionType.EXPENSE, Transaction.TransactionCategory.FOOD,
+                LocalDateTime.now(), BigDecimal.valueOf(30.00), "Dinner");
+        Transaction invalid = new Transaction("user123", Transaction.TransactionType.EXPENSE, Transaction.TransactionCategory.FOOD,
+                LocalDateTime.now(), BigDecimal.ZERO, "Nothing");
+
+        when(transactionRepository.insertUnordered(anyList())).thenReturn(Map.of());
+
+        // Act
+        List<TransactionBatchResult> results = transactionService.createTransactions(List.of(lunch, invalid, dinner), userId -> true);
+
+        // Assert
+        assertEquals(3, results.size());
+        assertEquals(TransactionBatchResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(TransactionBatchResult.Status.ERROR, results.get(1).getStatus());
+        assertEquals(TransactionBatchResult.Status.CREATED, results.get(2).getStatus());
+        verify(transactionRepository, times(1)).insertUnordered(List.of(lunch, dinner));
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(outboxService, times(1)).enqueueAll(List.of(lunch, dinner));
+        verify(outboxService, never()).discardAll(anyList());
+        verify(transactionRollupService, times(1)).recordAll(List.of(lunch, dinner));
+    }
+
+    @Test
+    void testCreateTransactions_RowsThatFailToInsertAreReportedAndGetNoSideEffects() {
+        // Arrange
+        Transaction lunch = new Transaction("user123", Transaction.TransactionType.EXPENSE, Transaction.TransactionCategory.FOOD,
+                LocalDateTime.now(), BigDecimal.valueOf(20.00), "Lunch");
+        lunch.setTransactionId("663200000000000000000001");
+        Transaction dinner = new Transaction("user123", Transaction.TransactionType.EXPENSE, Transaction.TransactionCategory.FOOD,
+                LocalDateTime.now(), BigDecimal.valueOf(30.00), "Dinner");
+
+        // The insert is unordered: the first row fails, the second is still written
+        when(transactionRepository.insertUnordered(anyList())).thenReturn(Map.of(0, "E11000 duplicate key error"));
+
+        // Act
+        List<TransactionBatchResult> results = transactionService.createTransactions(List.of(lunch, dinner), userId -> true);
+
+        // Assert
+        assertEquals(TransactionBatchResult.Status.ERROR, results.get(0).getStatus());
+        assertEquals(TransactionBatchResult.Status.CREATED, results.get(1).getStatus());
+        // The client id was dropped; the (mocked) outbox would have assigned a fresh one
+        assertNull(lunch.getTransactionId());
+        verify(outboxService, times(1)).discardAll(List.of(lunch));
+        verify(transactionRollupService, times(1)).recordAll(List.of(dinner));
+        verify(spendingStatsService, times(1)).recordAll(List.of(dinner));
     }
 
     @Test
@@ -154,6 +223,70 @@ class TransactionServiceTest {
         verify(transactionRepository, times(1)).findByUserIdAndTransactionCategory(userId, category);
     }
 
+    @Test
+    void testGetTransactionsPage_ReturnsCursorForNextPage() {
+        // Arrange
+        String userId = "user123";
+        LocalDateTime date = LocalDateTime.of(2024, 5, 1, 12, 30);
+        Transaction first = new Transaction();
+        first.setTransactionId("663200000000000000000002");
+        first.setTransactionDate(date);
+        Transaction second = new Transaction();
+        second.setTransactionId("663200000000000000000001");
+        second.setTransactionDate(date);
+        Transaction extra = new Transaction();
+        extra.setTransactionId("663200000000000000000000");
+        extra.setTransactionDate(date.minusDays(1));
+
+        when(transactionRepository.findPageByUserId(userId, null, null, null, 3))
+                .thenReturn(Arrays.asList(first, second, extra));
+        when(transactionRepository.findPageByUserId(userId, null, date, "663200000000000000000001", 3))
+                .thenReturn(List.of(extra));
+
+        // Act
+        TransactionPage page1 = transactionService.getTransactionsPage(userId, null, 2, null);
+        TransactionPage page2 = transactionService.getTransactionsPage(userId, null, 2, page1.getNext());
+
+        // Assert
+        assertEquals(List.of(first, second), page1.getItems());
+        assertNotNull(page1.getNext());
+        assertEquals(List.of(extra), page2.getItems());
+        assertNull(page2.getNext());
+    }
+
+    @Test
+    void testGetTransactionsPage_PageEndingOnAnUndatedTransaction() {
+        // Arrange
+        String userId = "user123";
+        Transaction dated = new Transaction();
+        dated.setTransactionId("663200000000000000000002");
+        dated.setTransactionDate(LocalDateTime.of(2024, 5, 1, 12, 30));
+        Transaction undated = new Transaction();
+        undated.setTransactionId("663200000000000000000001");
+        Transaction extra = new Transaction();
+        extra.setTransactionId("663200000000000000000000");
+
+        when(transactionRepository.findPageByUserId(userId, null, null, null, 3))
+                .thenReturn(Arrays.asList(dated, undated, extra));
+        when(transactionRepository.findPageByUserId(userId, null, null, "663200000000000000000001", 3))
+                .thenReturn(List.of(extra));
+
+        // Act
+        TransactionPage page1 = transactionService.getTransactionsPage(userId, null, 2, null);
+        TransactionPage page2 = transactionService.getTransactionsPage(userId, null, 2, page1.getNext());
+
+        // Assert
+        assertEquals(List.of(dated, undated), page1.getItems());
+        assertEquals(List.of(extra), page2.getItems());
+        assertNull(page2.getNext());
+    }
+
+    @Test
+    void testGetTransactionsPage_InvalidCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionService.getTransactionsPage("user123", null, 10, "not-a-cursor"));
+    }
+
     @Test
     void testUpdateTransaction() {
         // Arrange
@@ -182,30 +315,38 @@ class TransactionServiceTest {
         assertEquals(Transaction.TransactionType.INCOME, result.getTransactionType());
         verify(transactionRepository, times(1)).findById(transactionId);
         verify(transactionRepository, times(1)).save(existingTransaction);
+        verify(transactionRollupService, times(1)).remove(existingTransaction);
+        verify(transactionRollupService, times(1)).record(updatedTransaction);
+        verify(reportCache, times(1)).evictUser("user123");
+        verify(reportCache, times(1)).evictUser("user456");
     }
 
     @Test
     void testDeleteTransaction() {
         // Arrange
         String transactionId = "12345";
-        when(transactionRepository.existsById(transactionId)).thenReturn(true);
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(transactionId);
+        when(transactionRepository.findById(transactionId)).thenReturn(Optional.of(transaction));
 
         // Act
         transactionService.deleteTransaction(transactionId);
 
         // Assert
         verify(transactionRepository, times(1)).deleteById(transactionId);
+        verify(transactionRollupService, times(1)).remove(transaction);
     }
 
     @Test
     void testDeleteTransaction_NotFound() {
         // Arrange
         String transactionId = "12345";
-        when(transactionRepository.existsById(transactionId)).thenReturn(false);
+        when(transactionRepository.findById(transactionId)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> transactionService.deleteTransaction(transactionId));
-        verify(transactionRepository, times(1)).existsById(transactionId);
+        verify(transactionRepository, times(1)).findById(transactionId);
+        verify(transactionRepository, never()).deleteById(transactionId);
     }
 
     /*
@@ -0,0 +1,90 @@
+package com.example.finance_tracker.Service;
+
+import com.example.finance_tracker.Entity.User;
+import com.example.finance_tracker.Repository.UserRepository;
+import com.example.finance_tracker.Utility.AuthenticatedUser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @InjectMocks
+    private UserService userService;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testIsAuthUser_OwnerFromTokenClaims() {
+        signIn(new AuthenticatedUser("user1", "john", "USER"));
+
+        assertTrue(userService.isAuthUser("user1"));
+        assertFalse(userService.isAuthUser("user2"));
+        assertFalse(userService.isAdmin());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testIsAuthUser_AdminFromTokenClaims() {
+        signIn(new AuthenticatedUser("admin1", "admin", "ADMIN"));
+
+        assertTrue(userService.isAuthUser("user2"));
+        assertTrue(userService.isAdmin());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testUpdateUser_RoleChangeRevokesTokens() {
+        User existing = new User("john@example.com", "John", "hash", "Doe", "john", "USER", "USD");
+        existing.setUserId("user1");
+        User update = new User("john@example.com", "John", null, "Doe", "john", "ADMIN", "USD");
+        when(userRepository.findById("user1")).thenReturn(Optional.of(existing));
+        when(userRepository.save(existing)).thenReturn(existing);
+
+        userService.updateUser("user1", update);
+
+        verify(tokenRevocationService, times(1)).revokeUser("user1");
+    }
+
+    @Test
+    void testUpdateUser_CurrencyChangeKeepsTokens() {
+        User existing = new User("john@example.com", "John", "hash", "Doe", "john", "USER", "USD");
+        existing.setUserId("user1");
+        User update = new User("john@example.com", "John", null, "Doe", "john", "USER", "EUR");
+        when(userRepository.findById("user1")).thenReturn(Optional.of(existing));
+        when(userRepository.save(existing)).thenReturn(existing);
+
+        userService.updateUser("user1", update);
+
+        verifyNoInteractions(tokenRevocationService);
+    }
+
+    private void signIn(AuthenticatedUser principal) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
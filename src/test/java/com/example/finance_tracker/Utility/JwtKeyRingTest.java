@@ -0,0 +1,89 @@
+package com.example.finance_tracker.Utility;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtKeyRingTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testKeystoreSharedBetweenNodes() {
+        String keystore = tempDir.resolve("jwt-keys.json").toString();
+        JwtUtil nodeA = new JwtUtil(ring("HS256", keystore, 720, 168), 100);
+        JwtUtil nodeB = new JwtUtil(ring("HS256", keystore, 720, 168), 100);
+
+        String token = nodeA.generateToken("john", List.of("USER"));
+
+        assertTrue(Files.exists(Path.of(keystore)));
+        assertEquals("john", nodeB.getClaims(token).getSubject());
+    }
+
+    @Test
+    void testRotationKeepsOldTokensValidDuringGrace() {
+        JwtKeyRing keyRing = ring("HS256", tempDir.resolve("jwt-keys.json").toString(), 0, 168);
+        JwtUtil jwtUtil = new JwtUtil(keyRing, 100);
+        String oldKid = keyRing.signingKey().kid();
+        String oldToken = jwtUtil.generateToken("john", List.of("USER"));
+
+        keyRing.rotateIfDue(Instant.now());
+
+        assertNotEquals(oldKid, keyRing.signingKey().kid());
+        assertEquals("john", jwtUtil.getClaims(oldToken).getSubject());
+    }
+
+    @Test
+    void testRotationWithoutGraceRejectsOldTokens() {
+        JwtKeyRing keyRing = ring("HS256", tempDir.resolve("jwt-keys.json").toString(), 0, 0);
+        JwtUtil jwtUtil = new JwtUtil(keyRing, 100);
+        String oldToken = jwtUtil.generateToken("john", List.of("USER"));
+        // Verified once, so its claims are cached
+        assertEquals("john", jwtUtil.getClaims(oldToken).getSubject());
+
+        keyRing.rotateIfDue(Instant.now());
+
+        // The cached claims are not trusted once their key is retired
+        assertThrows(JwtException.class, () -> jwtUtil.getClaims(oldToken));
+    }
+
+    @Test
+    void testEs256VerifyOnlyNode() throws Exception {
+        Path keystore = tempDir.resolve("jwt-keys.json");
+        JwtKeyRing signer = ring("ES256", keystore.toString(), 720, 168);
+        String token = new JwtUtil(signer, 100).generateToken("john", List.of("USER"));
+
+        // Edge node: same keystore with the private keys removed
+        ObjectMapper objectMapper = new ObjectMapper();
+        ArrayNode keys = (ArrayNode) objectMapper.readTree(keystore.toFile());
+        keys.forEach(key -> ((ObjectNode) key).putNull("privateKey"));
+        Path publicOnly = tempDir.resolve("jwt-public-keys.json");
+        objectMapper.writeValue(publicOnly.toFile(), keys);
+
+        JwtKeyRing verifier = ring("ES256", publicOnly.toString(), 720, 168);
+
+        assertEquals("john", new JwtUtil(verifier, 100).getClaims(token).getSubject());
+        assertThrows(IllegalStateException.class, verifier::signingKey);
+
+        List<Map<String, Object>> jwks = verifier.publicJwks();
+        assertEquals(1, jwks.size());
+        assertEquals(signer.signingKey().kid(), jwks.get(0).get("kid"));
+        assertEquals("EC", jwks.get(0).get("kty"));
+    }
+
+    private JwtKeyRing ring(String algorithm, String keystore, long rotationIntervalHours, long graceHours) {
+        return new JwtKeyRing(algorithm, "", keystore, true, rotationIntervalHours, graceHours, 0);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.finance_tracker.Utility;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Per-request token verification cost: the old filter path (three full parses per request)
+// against one parse per request and against the claims cache.
+// Run with: ./mvnw test -Dtest=JwtUtilBenchmarkTest -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JwtUtilBenchmarkTest {
+
+    private static final int REQUESTS = 200_000;
+    private static final int DISTINCT_TOKENS = 1_000;
+
+    private final JwtUtil jwtUtil = new JwtUtil(JwtKeyRing.ephemeral("HS256"), 10_000);
+
+    @Test
+    void perRequestAuthOverhead() {
+        List<String> tokens = new ArrayList<>(DISTINCT_TOKENS);
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            tokens.add(jwtUtil.generateToken("user" + i, List.of("USER")));
+        }
+
+        double threeParses = time(tokens, token -> {
+            jwtUtil.parseClaims(token).getSubject();    // extractUsername
+            jwtUtil.parseClaims(token).getSubject();    // validateToken -> extractUsername
+            jwtUtil.parseClaims(token).getExpiration(); // validateToken -> isTokenExpired
+        });
+        double oneParse = time(tokens, token -> jwtUtil.parseClaims(token).getSubject());
+        double cached = time(tokens, token -> jwtUtil.getClaims(token).getSubject());
+
+        System.out.printf("JWT verification per request: 3 parses %.2f us, 1 parse %.2f us, cached %.2f us%n",
+                threeParses, oneParse, cached);
+    }
+
+    private double time(List<String> tokens, Consumer<String> request) {
+        for (int i = 0; i < REQUESTS / 10; i++) {
+            request.accept(tokens.get(i % tokens.size())); // warm up
+        }
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            request.accept(tokens.get(i % tokens.size()));
+        }
+        return (System.nanoTime() - startNanos) / 1_000.0 / REQUESTS;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.finance_tracker.Utility;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private final JwtUtil jwtUtil = new JwtUtil(JwtKeyRing.ephemeral("HS256"), 100);
+
+    @Test
+    void testGetClaims_CachedAfterFirstVerification() {
+        String token = jwtUtil.generateToken("john", List.of("USER"));
+
+        Claims first = jwtUtil.getClaims(token);
+        Claims second = jwtUtil.getClaims(token);
+
+        assertEquals("john", first.getSubject());
+        assertSame(first, second);
+        assertTrue(jwtUtil.validateToken(token, "john"));
+    }
+
+    @Test
+    void testGetClaims_TamperedTokenRejected() {
+        String token = jwtUtil.generateToken("john", List.of("USER"));
+        jwtUtil.getClaims(token);
+
+        // A different token never hits the cached entry of the original
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        assertThrows(JwtException.class, () -> jwtUtil.getClaims(tampered));
+    }
+
+    @Test
+    void testGetClaims_TokenFromAnotherKeyRejected() {
+        String foreign = new JwtUtil(JwtKeyRing.ephemeral("HS256"), 100).generateToken("john", List.of("USER"));
+
+        assertThrows(JwtException.class, () -> jwtUtil.getClaims(foreign));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.finance_tracker.Utility;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Summing report amounts: the old BigDecimal-from-String path, plain BigDecimal.add, and long minor units.
+// Run with: ./mvnw test -Dtest=MoneySumBenchmarkTest -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MoneySumBenchmarkTest {
+
+    private static final int AMOUNTS = 100_000;
+    private static final int ITERATIONS = 50;
+
+    @Test
+    void sumAmounts() {
+        Random random = new Random(42);
+        List<BigDecimal> amounts = new ArrayList<>(AMOUNTS);
+        for (int i = 0; i < AMOUNTS; i++) {
+            amounts.add(BigDecimal.valueOf(random.nextInt(100_000), 2));
+        }
+
+        long expected = Money.toMinorUnits(amounts.stream().reduce(BigDecimal.ZERO, BigDecimal::add));
+
+        double viaString = time(amounts, list -> {
+            BigDecimal total = BigDecimal.ZERO;
+            for (BigDecimal amount : list) {
+                total = total.add(new BigDecimal(String.valueOf(amount)));
+            }
+            return Money.toMinorUnits(total);
+        }, expected);
+        double bigDecimal = time(amounts, list -> {
+            BigDecimal total = BigDecimal.ZERO;
+            for (BigDecimal amount : list) {
+                total = total.add(amount);
+            }
+            return Money.toMinorUnits(total);
+        }, expected);
+        double minorUnits = time(amounts, list -> {
+            long total = 0;
+            for (BigDecimal amount : list) {
+                total += Money.toMinorUnits(amount);
+            }
+            return total;
+        }, expected);
+
+        System.out.printf("Summing %d amounts: BigDecimal via String %.2f ms, BigDecimal %.2f ms, long minor units %.2f ms%n",
+                AMOUNTS, viaString, bigDecimal, minorUnits);
+    }
+
+    private double time(List<BigDecimal> amounts, ToLongFunction<List<BigDecimal>> sum, long expected) {
+        for (int i = 0; i < ITERATIONS / 5; i++) {
+            assertEquals(expected, sum.applyAsLong(amounts)); // warm up
+        }
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertEquals(expected, sum.applyAsLong(amounts));
+        }
+        return (System.nanoTime() - startNanos) / 1_000_000.0 / ITERATIONS;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.finance_tracker.Utility;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void repeatedDepositsDoNotDrift() {
+        Money total = Money.ZERO;
+        double doubleTotal = 0;
+        for (int i = 0; i < 1_000; i++) {
+            total = total.plus(Money.of("0.10"));
+            doubleTotal += 0.1;
+        }
+
+        assertEquals(Money.of("100.00"), total);
+        assertEquals(10_000, total.getMinorUnits());
+        assertNotEquals(100.0, doubleTotal); // what Goal.savedAmount used to accumulate
+    }
+
+    @Test
+    void roundsHalfEvenToTheMinorUnit() {
+        assertEquals(1234, Money.of("12.345").getMinorUnits());
+        assertEquals(1236, Money.of("12.355").getMinorUnits());
+        assertEquals(-1234, Money.of("-12.345").getMinorUnits());
+        assertEquals(1200, Money.toMinorUnits(new BigDecimal("12")));
+        assertEquals(500, Money.toMinorUnits(new BigDecimal("5E+0")));
+    }
+
+    @Test
+    void usesTheCurrencysMinorUnit() {
+        Currency yen = Currency.getInstance("JPY");
+        Currency dinar = Currency.getInstance("KWD");
+
+        assertEquals(1234, Money.of(new BigDecimal("1234.5"), yen).getMinorUnits());
+        assertEquals(1234500, Money.of(new BigDecimal("1234.5"), dinar).getMinorUnits());
+        assertEquals(new BigDecimal("1.234"), Money.ofMinor(1234, dinar).toBigDecimal());
+    }
+
+    @Test
+    void arithmeticAndComparison() {
+        Money saved = Money.of("400.00");
+        Money target = Money.of("1000");
+
+        assertEquals(Money.of("600"), target.minus(saved));
+        assertEquals(40.0, saved.percentOf(target));
+        assertEquals(0.0, saved.percentOf(Money.ZERO));
+        assertTrue(saved.compareTo(target) < 0);
+        assertTrue(saved.minus(target).isNegative());
+        assertTrue(saved.minus(saved).isZero());
+        assertEquals("-600.00", saved.minus(target).toString());
+    }
+
+    @Test
+    void rejectsMixedCurrenciesAndOverflow() {
+        Money euros = Money.ofMinor(100, Currency.getInstance("EUR"));
+
+        assertThrows(IllegalArgumentException.class, () -> Money.of("1").plus(euros));
+        assertThrows(IllegalArgumentException.class, () -> Money.of("1").compareTo(euros));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE).plus(Money.ofMinor(1)));
+    }
+
+    @Test
+    void decimal128RoundTrip() {
+        Money amount = Money.of("1234.56");
+
+        assertEquals(new Decimal128(new BigDecimal("1234.56")), amount.toDecimal128());
+        assertEquals(amount, Money.fromDecimal128(amount.toDecimal128()));
+    }
+
+    @Test
+    void jsonIsAPlainNumber() throws Exception {
+        assertEquals("1234.50", objectMapper.writeValueAsString(Money.of("1234.5")));
+
+        assertEquals(Money.of("0.10"), objectMapper.readValue("0.1", Money.class));
+        assertEquals(Money.of("250"), objectMapper.readValue("250", Money.class));
+        assertEquals(Money.of("19.99"), objectMapper.readValue("\"19.99\"", Money.class));
+        assertThrows(Exception.class, () -> objectMapper.readValue("\"ten\"", Money.class));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.finance_tracker.Utility;
+
+import com.example.finance_tracker.Entity.Report;
+import com.example.finance_tracker.Entity.Transaction;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.RepetitionInfo;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Property checks over random transaction lists: the single-pass accumulator, its fork/join split and any
+// split-and-combine must all agree with the original three-pass BigDecimal computation.
+// Each repetition uses its own seed, printed in the failure message so a failing case can be replayed.
+class ReportAccumulatorTest {
+
+    private static final int TRIALS = 200;
+
+    private static final Transaction.TransactionType[] TYPES = Transaction.TransactionType.values();
+    private static final Transaction.TransactionCategory[] CATEGORIES = Transaction.TransactionCategory.values();
+
+    @RepeatedTest(TRIALS)
+    void singlePassMatchesThreePassReference(RepetitionInfo repetition) {
+        long seed = repetition.getCurrentRepetition();
+        List<Transaction> transactions = randomTransactions(new Random(seed));
+
+        assertSameReport(reference(transactions), ReportAccumulator.of(transactions).toReport(), seed);
+    }
+
+    @RepeatedTest(TRIALS)
+    void forkJoinMatchesSequential(RepetitionInfo repetition) {
+        long seed = repetition.getCurrentRepetition();
+        Random random = new Random(seed);
+        List<Transaction> transactions = randomTransactions(random);
+        int threshold = 1 + random.nextInt(64);
+
+        assertSameReport(ReportAccumulator.of(transactions).toReport(),
+                ReportAccumulator.parallel(transactions, threshold).toReport(), seed);
+    }
+
+    @RepeatedTest(TRIALS)
+    void splitCombineAndOrderDoNotMatter(RepetitionInfo repetition) {
+        long seed = repetition.getCurrentRepetition();
+        Random random = new Random(seed);
+        List<Transaction> transactions = randomTransactions(random);
+        int split = random.nextInt(transactions.size() + 1);
+
+        ReportAccumulator left = ReportAccumulator.of(transactions.subList(0, split));
+        ReportAccumulator right = ReportAccumulator.of(transactions.subList(split, transactions.size()));
+        List<Transaction> shuffled = new ArrayList<>(transactions);
+        Collections.shuffle(shuffled, random);
+
+        Report whole = ReportAccumulator.of(transactions).toReport();
+        assertSameReport(whole, left.combine(right).toReport(), seed);
+        assertSameReport(whole, ReportAccumulator.of(shuffled).toReport(), seed);
+        assertSameReport(whole, new ReportAccumulator().combine(ReportAccumulator.of(transactions)).toReport(), seed);
+    }
+
+    @Test
+    void emptyListGivesZeroTotals() {
+        Report report = ReportAccumulator.parallel(List.of(), 1).toReport();
+
+        assertEquals(Money.ZERO, report.getTotalIncome());
+        assertEquals(Money.ZERO, report.getTotalExpenses());
+        assertTrue(report.getCategoryTotals().isEmpty());
+    }
+
+    @Test
+    void skipsMissingAmountsAndCountsUncategorisedExpensesInTheTotal() {
+        List<Transaction> transactions = List.of(
+                transaction(Transaction.TransactionType.EXPENSE, Transaction.TransactionCategory.FOOD, "12.50"),
+                transaction(Transaction.TransactionType.EXPENSE, null, "7.50"),
+                transaction(Transaction.TransactionType.INCOME, Transaction.TransactionCategory.SALARY, null),
+                transaction(Transaction.TransactionType.EXPENSE, Transaction.TransactionCategory.TRANSPORT, "0"));
+
+        Report report = ReportAccumulator.of(transactions).toReport();
+
+        assertEquals(Money.ZERO, report.getTotalIncome());
+        assertEquals(Money.of("20.00"), report.getTotalExpenses());
+        assertEquals(Map.of(Transaction.TransactionCategory.FOOD, Money.of("12.50"),
+                Transaction.TransactionCategory.TRANSPORT, Money.ZERO), report.getCategoryTotals());
+    }
+
+    @Test
+    void subCentAmountsAreSummedExactlyAndRoundedOnce() {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            transactions.add(transaction(Transaction.TransactionType.EXPENSE, Transaction.TransactionCategory.FOOD, "0.005"));
+        }
+        transactions.add(transaction(Transaction.TransactionType.EXPENSE, Transaction.TransactionCategory.FOOD, "1.10"));
+
+        Report report = ReportAccumulator.parallel(transactions, 100).toReport();
+
+        assertEquals(Money.of("6.10"), report.getTotalExpenses());
+        assertEquals(Money.of("6.10"), report.getCategoryTotals().get(Transaction.TransactionCategory.FOOD));
+    }
+
+    @Test
+    void rejectsInvalidThreshold() {
+        assertThrows(IllegalArgumentException.class, () -> ReportAccumulator.parallel(List.of(), 0));
+    }
+
+    // The in-memory report as it was computed before the accumulator: three stream passes over BigDecimals
+    private static Report reference(List<Transaction> transactions) {
+        BigDecimal totalIncome = transactions.stream()
+                .filter(t -> Transaction.TransactionType.INCOME.equals(t.getTransactionType()))
+                .map(Transaction::getTransactionAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalExpenses = transactions.stream()
+                .filter(t -> Transaction.TransactionType.EXPENSE.equals(t.getTransactionType()))
+                .map(Transaction::getTransactionAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Map<Transaction.TransactionCategory, BigDecimal> categoryTotals = transactions.stream()
+                .filter(t -> Transaction.TransactionType.EXPENSE.equals(t.getTransactionType()))
+                .collect(Collectors.groupingBy(Transaction::getTransactionCategory,
+                        Collectors.reducing(BigDecimal.ZERO, Transaction::getTransactionAmount, BigDecimal::add)));
+
+        Report report = new Report();
+        report.setTotalIncome(Money.of(totalIncome));
+        report.setTotalExpenses(Money.of(totalExpenses));
+        report.setCategoryTotals(categoryTotals.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> Money.of(e.getValue()))));
+        return report;
+    }
+
+    // Up to a few thousand transactions with amounts of 0 to 4 decimals, mostly small and sometimes very large;
+    // amounts finer than a cent have to add up exactly before the totals are rounded
+    private static List<Transaction> randomTransactions(Random random) {
+        int size = random.nextInt(4) == 0 ? random.nextInt(5) : random.nextInt(3_000);
+        List<Transaction> transactions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long unscaled = random.nextInt(10) == 0 ? random.nextLong(1_000_000_000_000L) : random.nextInt(100_000);
+            BigDecimal amount = BigDecimal.valueOf(unscaled, random.nextInt(5));
+            transactions.add(transaction(TYPES[random.nextInt(TYPES.length)],
+                    CATEGORIES[random.nextInt(CATEGORIES.length)], amount.toPlainString()));
+        }
+        return transactions;
+    }
+
+    private static Transaction transaction(Transaction.TransactionType type, Transaction.TransactionCategory category, String amount) {
+        return new Transaction("user1", type, category, LocalDateTime.now(),
+                amount == null ? null : new BigDecimal(amount), "test");
+    }
+
+    private static void assertSameReport(Report expected, Report actual, long seed) {
+        String message = "seed " + seed;
+        assertEquals(expected.getTotalIncome(), actual.getTotalIncome(), message);
+        assertEquals(expected.getTotalExpenses(), actual.getTotalExpenses(), message);
+        assertEquals(expected.getCategoryTotals(), actual.getCategoryTotals(), message);
+        assertTrue(actual.getCategoryTotals().values().stream().allMatch(Objects::nonNull), message);
+    }
+}
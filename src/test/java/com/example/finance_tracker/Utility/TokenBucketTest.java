@@ -0,0 +1,30 @@
+package com.example.finance_tracker.Utility;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    @Test
+    void burstIsFreeThenCallersWaitForTheRate() {
+        TokenBucket bucket = new TokenBucket(10, 3);
+
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+
+        // Fourth call is in debt by one token: about 100ms at 10 per second
+        long wait = bucket.reserve();
+        assertTrue(wait > 50_000_000L && wait <= 100_000_000L, "wait was " + wait);
+
+        // Fifth call queues behind the fourth
+        assertTrue(bucket.reserve() > wait);
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 5));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(5, 0.5));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.finance_tracker.config;
+
+import com.example.finance_tracker.Entity.Budget;
+import com.example.finance_tracker.Entity.Transaction;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MongoConversionConfigTest {
+
+    private MappingMongoConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        MongoCustomConversions conversions = new MongoConversionConfig().mongoCustomConversions();
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+    }
+
+    @Test
+    void writesMoneyAsDecimal128() {
+        Transaction transaction = new Transaction("user1", Transaction.TransactionType.EXPENSE, Transaction.TransactionCategory.FOOD,
+                LocalDateTime.now(), new BigDecimal("12.30"), "Lunch");
+        Budget budget = new Budget("user1", "FOOD", new BigDecimal("500.00"), new BigDecimal("0.10"),
+                LocalDate.now(), LocalDate.now().plusDays(30));
+
+        Document transactionDocument = new Document();
+        converter.write(transaction, transactionDocument);
+        Document budgetDocument = new Document();
+        converter.write(budget, budgetDocument);
+
+        assertEquals(new Decimal128(new BigDecimal("12.30")), transactionDocument.get("transaction_amount"));
+        assertEquals(new Decimal128(new BigDecimal("500.00")), budgetDocument.get("budget_amount"));
+        assertEquals(new Decimal128(new BigDecimal("0.10")), budgetDocument.get("spent_amount"));
+    }
+
+    @Test
+    void readsBothDecimal128AndLegacyStrings() {
+        Document migrated = new Document("user_id", "user1").append("transaction_amount", new Decimal128(new BigDecimal("12.30")));
+        Document legacy = new Document("user_id", "user1").append("transaction_amount", "12.30");
+
+        assertEquals(new BigDecimal("12.30"), converter.read(Transaction.class, migrated).getTransactionAmount());
+        assertEquals(new BigDecimal("12.30"), converter.read(Transaction.class, legacy).getTransactionAmount());
+    }
+
+    @Test
+    void queryParametersAreConvertedToo() {
+        assertEquals(new Decimal128(new BigDecimal("99.99")), converter.convertToMongoType(new BigDecimal("99.99")));
+    }
+
+    @Test
+    void amountsBeyondDecimal128PrecisionAreRoundedInsteadOfRejected() {
+        BigDecimal tooPrecise = new BigDecimal("0.12345678901234567890123456789012345678");
+
+        Decimal128 stored = (Decimal128) converter.convertToMongoType(tooPrecise);
+
+        assertEquals(34, stored.bigDecimalValue().precision());
+        assertEquals(new BigDecimal("0.1234567890123456789012345678901235"), stored.bigDecimalValue());
+    }
+}